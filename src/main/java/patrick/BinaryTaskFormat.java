@@ -0,0 +1,373 @@
+package patrick;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import patrick.task.DateCodec;
+import patrick.task.Deadline;
+import patrick.task.Event;
+import patrick.task.Recurrence;
+import patrick.task.RecurringDeadline;
+import patrick.task.RecurringEvent;
+import patrick.task.RecurringTask;
+import patrick.task.Task;
+import patrick.task.ToDo;
+
+/**
+ * Reads and writes tasks in a compact binary format, an alternative to the pipe-delimited text format.
+ *
+ * <p>A file starts with the magic bytes "PTSK", a version byte and the record count. Each record is a
+ * type byte ('T', 'D' or 'E'), a flags byte (bit 0 is the done bit), the task ID as a varint, the dates
+ * of the task (an int epoch-day for a deadline, two long epoch-minutes for an event) and a length-prefixed
+ * UTF-8 description. Event times are kept to the minute, which is the precision the event command accepts.
+ * A recurring task sets bit 1 of the flags and ends its record with its interval in days, the day every
+ * occurrence up to which is done as a varint count of days from the interval before the first occurrence,
+ * then the number of occurrences that are exceptions to it and their epoch-days, each as a varint gap from
+ * the previous one (the first from the first occurrence). Version 1 files, written before tasks had IDs,
+ * version 2 files, written before tasks could recur, and version 3 files, which list every done occurrence
+ * instead of a watermark, are still read.</p>
+ */
+public class BinaryTaskFormat {
+    /** File extension that selects the binary format when saving. */
+    public static final String EXTENSION = ".ptb";
+
+    private static final byte[] MAGIC = {'P', 'T', 'S', 'K'};
+    private static final byte VERSION = 4;
+    private static final byte VERSION_WITHOUT_WATERMARK = 3;
+    private static final byte VERSION_WITHOUT_RECURRENCE = 2;
+    private static final byte VERSION_WITHOUT_IDS = 1;
+    private static final int HEADER_LENGTH = MAGIC.length + 1 + Integer.BYTES;
+
+    private static final byte TYPE_TODO = 'T';
+    private static final byte TYPE_DEADLINE = 'D';
+    private static final byte TYPE_EVENT = 'E';
+    private static final byte FLAG_DONE = 1;
+    private static final byte FLAG_RECURRING = 2;
+
+    /** Flags byte of a task that is done; it can be written in place over a record's flags byte. */
+    public static final byte DONE_FLAGS = FLAG_DONE;
+    /** Flags byte of a task that is not done. */
+    public static final byte NOT_DONE_FLAGS = 0;
+
+    private static final int WRITE_BUFFER_SIZE = 1 << 16;
+    // Type, flags, the longest varint ID, two epoch-minutes and the longest varint length prefix
+    private static final int MAX_FIXED_RECORD_LENGTH = 2 + 10 + 2 * Long.BYTES + 5;
+
+    private BinaryTaskFormat() {
+        // Utility class
+    }
+
+    /**
+     * Checks whether tasks saved to the given path should use the binary format.
+     *
+     * @param path The data file path
+     * @return true if the path has the binary extension
+     */
+    public static boolean isBinaryPath(String path) {
+        return path.endsWith(EXTENSION);
+    }
+
+    /**
+     * Checks whether the file starts with the binary format's magic bytes.
+     *
+     * @param path The file to check
+     * @return true if the file holds binary tasks
+     * @throws IOException if the file cannot be read
+     */
+    public static boolean hasMagic(Path path) throws IOException {
+        try (InputStream in = Files.newInputStream(path)) {
+            byte[] header = in.readNBytes(MAGIC.length);
+            return Arrays.equals(header, MAGIC);
+        }
+    }
+
+    /**
+     * Writes the tasks in the binary format.
+     *
+     * @param out The stream to write to; it is flushed but not closed
+     * @param tasks The tasks to write
+     * @throws IOException if the stream cannot be written
+     */
+    public static void write(OutputStream out, List<Task> tasks) throws IOException {
+        write(out, tasks, null);
+    }
+
+    /**
+     * Writes the tasks in the binary format and records where each task's flags byte is stored.
+     *
+     * @param out The stream to write to; it is flushed but not closed
+     * @param tasks The tasks to write
+     * @param statusOffsets The map to fill with the file offset of each task's flags byte, or null
+     * @throws IOException if the stream cannot be written
+     */
+    public static void write(OutputStream out, List<Task> tasks, Map<Task, Long> statusOffsets) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(WRITE_BUFFER_SIZE);
+        long drained = 0;
+        buffer.put(MAGIC);
+        buffer.put(VERSION);
+        buffer.putInt(tasks.size());
+
+        for (Task task : tasks) {
+            byte[] description = task.getDescription().getBytes(StandardCharsets.UTF_8);
+            int maxLength = MAX_FIXED_RECORD_LENGTH + description.length + maxRecurrenceLength(task);
+            if (buffer.remaining() < maxLength) {
+                drained += drain(out, buffer);
+                if (buffer.remaining() < maxLength) {
+                    buffer = ByteBuffer.allocate(maxLength);
+                }
+            }
+            if (statusOffsets != null) {
+                statusOffsets.put(task, drained + buffer.position() + 1);
+            }
+            writeTask(buffer, task, description);
+        }
+        drain(out, buffer);
+        out.flush();
+    }
+
+    private static int drain(OutputStream out, ByteBuffer buffer) throws IOException {
+        int length = buffer.position();
+        out.write(buffer.array(), 0, length);
+        buffer.clear();
+        return length;
+    }
+
+    private static int maxRecurrenceLength(Task task) {
+        if (!(task instanceof RecurringTask)) {
+            return 0;
+        }
+        // Interval, watermark and count as varints, then one varint of at most ten bytes per exception
+        return 5 + 10 + 5 + 10 * ((RecurringTask) task).getRecurrence().getDone().getExceptions().length;
+    }
+
+    private static void writeTask(ByteBuffer buffer, Task task, byte[] description) {
+        byte flags = (byte) ((task.isDone() ? FLAG_DONE : 0) | (task instanceof RecurringTask ? FLAG_RECURRING : 0));
+        if (task instanceof Deadline) {
+            buffer.put(TYPE_DEADLINE);
+            buffer.put(flags);
+            writeVarLong(buffer, task.getId());
+            buffer.putInt((int) ((Deadline) task).getBy().toEpochDay());
+        } else if (task instanceof Event) {
+            Event event = (Event) task;
+            buffer.put(TYPE_EVENT);
+            buffer.put(flags);
+            writeVarLong(buffer, task.getId());
+            buffer.putLong(DateCodec.toEpochMinute(event.getFrom()));
+            buffer.putLong(DateCodec.toEpochMinute(event.getTo()));
+        } else {
+            buffer.put(TYPE_TODO);
+            buffer.put(flags);
+            writeVarLong(buffer, task.getId());
+        }
+
+        writeVarInt(buffer, description.length);
+        buffer.put(description);
+        if (task instanceof RecurringTask) {
+            writeRecurrence(buffer, ((RecurringTask) task).getRecurrence());
+        }
+    }
+
+    private static void writeRecurrence(ByteBuffer buffer, Recurrence recurrence) {
+        Recurrence.DoneOccurrences done = recurrence.getDone();
+        long firstDay = recurrence.getFirst().toEpochDay();
+        writeVarInt(buffer, recurrence.getIntervalDays());
+        writeVarLong(buffer, done.getDoneThrough() - (firstDay - recurrence.getIntervalDays()));
+        writeVarInt(buffer, done.getExceptions().length);
+        long previous = firstDay;
+        for (long day : done.getExceptions()) {
+            writeVarLong(buffer, day - previous);
+            previous = day;
+        }
+    }
+
+    /**
+     * Reads every task in a binary file into the given list.
+     *
+     * @param path The binary data file
+     * @param tasks The list to fill
+     * @throws IOException if the file cannot be read or is not a supported binary file
+     */
+    public static void read(Path path, ArrayList<Task> tasks) throws IOException {
+        read(path, tasks, null);
+    }
+
+    /**
+     * Reads every task in a binary file into the given list and records where each task's flags byte is stored.
+     *
+     * @param path The binary data file
+     * @param tasks The list to fill
+     * @param statusOffsets The map to fill with the file offset of each task's flags byte, or null
+     * @throws IOException if the file cannot be read or is not a supported binary file
+     */
+    public static void read(Path path, ArrayList<Task> tasks, Map<Task, Long> statusOffsets) throws IOException {
+        byte[] data = Files.readAllBytes(path);
+        if (data.length < HEADER_LENGTH || !Arrays.equals(Arrays.copyOf(data, MAGIC.length), MAGIC)) {
+            throw new IOException("Not a binary task file");
+        }
+        byte version = data[MAGIC.length];
+        if (version < VERSION_WITHOUT_IDS || version > VERSION) {
+            throw new IOException("Unsupported binary task file version " + version);
+        }
+
+        Reader reader = new Reader(data, MAGIC.length + 1, version != VERSION_WITHOUT_IDS, version == VERSION);
+        int count = reader.readInt();
+        tasks.ensureCapacity(tasks.size() + count);
+        for (int i = 0; i < count; i++) {
+            try {
+                long statusOffset = reader.position + 1;
+                Task task = reader.readTask();
+                tasks.add(task);
+                if (statusOffsets != null) {
+                    statusOffsets.put(task, statusOffset);
+                }
+            } catch (RuntimeException e) {
+                // Records have no delimiters, so nothing after a corrupted record can be trusted
+                System.out.println("Skipping corrupted records from record " + (i + 1) + " onwards");
+                return;
+            }
+        }
+    }
+
+    private static void writeVarInt(ByteBuffer buffer, int value) {
+        writeVarLong(buffer, value & 0xFFFFFFFFL);
+    }
+
+    private static void writeVarLong(ByteBuffer buffer, long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    /**
+     * Decodes records from an in-memory copy of the file.
+     */
+    private static class Reader {
+        private final byte[] data;
+        private final boolean hasIds;
+        private final boolean hasWatermarks;
+        private int position;
+
+        private Reader(byte[] data, int position, boolean hasIds, boolean hasWatermarks) {
+            this.data = data;
+            this.position = position;
+            this.hasIds = hasIds;
+            this.hasWatermarks = hasWatermarks;
+        }
+
+        private Task readTask() {
+            byte type = data[position++];
+            byte flags = data[position++];
+            boolean isDone = (flags & FLAG_DONE) != 0;
+            boolean isRecurring = (flags & FLAG_RECURRING) != 0;
+            long id = hasIds ? readVarLong() : 0;
+
+            Task task;
+            switch (type) {
+            case TYPE_TODO:
+                task = new ToDo(readDescription());
+                break;
+            case TYPE_DEADLINE:
+                LocalDate by = LocalDate.ofEpochDay(readInt());
+                String description = readDescription();
+                task = isRecurring
+                        ? new RecurringDeadline(description, by, readVarInt())
+                        : new Deadline(description, by);
+                break;
+            case TYPE_EVENT:
+                LocalDateTime from = DateCodec.fromEpochMinute(readLong());
+                LocalDateTime to = DateCodec.fromEpochMinute(readLong());
+                String eventDescription = readDescription();
+                task = isRecurring
+                        ? new RecurringEvent(eventDescription, from, to, readVarInt())
+                        : new Event(eventDescription, from, to);
+                break;
+            default:
+                throw new IllegalStateException("Unknown task type " + type);
+            }
+            if (task instanceof RecurringTask) {
+                readDoneOccurrences(((RecurringTask) task).getRecurrence());
+            }
+
+            if (isDone) {
+                task.markAsDone();
+            }
+            if (id > 0) {
+                task.setId(id);
+            }
+            return task;
+        }
+
+        private void readDoneOccurrences(Recurrence recurrence) {
+            long firstDay = recurrence.getFirst().toEpochDay();
+            long doneThrough = firstDay - recurrence.getIntervalDays();
+            if (hasWatermarks) {
+                doneThrough += readVarLong();
+            }
+            // Without a watermark every done occurrence is listed, which reads as exceptions to an empty run
+            long[] exceptions = new long[readVarInt()];
+            long previous = firstDay;
+            for (int i = 0; i < exceptions.length; i++) {
+                previous += readVarLong();
+                exceptions[i] = previous;
+            }
+            recurrence.setDone(doneThrough, exceptions);
+        }
+
+        private String readDescription() {
+            int length = readVarInt();
+            String description = DescriptionPool.shared().dedup(data, position, position + length);
+            position += length;
+            return description;
+        }
+
+        private int readVarInt() {
+            int value = 0;
+            for (int shift = 0; shift < Integer.SIZE; shift += 7) {
+                byte b = data[position++];
+                value |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IllegalStateException("Malformed length");
+        }
+
+        private long readVarLong() {
+            long value = 0;
+            for (int shift = 0; shift < Long.SIZE; shift += 7) {
+                byte b = data[position++];
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IllegalStateException("Malformed task ID");
+        }
+
+        private int readInt() {
+            int value = ((data[position] & 0xFF) << 24) | ((data[position + 1] & 0xFF) << 16)
+                    | ((data[position + 2] & 0xFF) << 8) | (data[position + 3] & 0xFF);
+            position += Integer.BYTES;
+            return value;
+        }
+
+        private long readLong() {
+            long high = readInt() & 0xFFFFFFFFL;
+            long low = readInt() & 0xFFFFFFFFL;
+            return (high << Integer.SIZE) | low;
+        }
+    }
+}
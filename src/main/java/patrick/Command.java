@@ -0,0 +1,97 @@
+package patrick;
+
+/**
+ * The commands Patrick understands, looked up from the first word of the input without allocating.
+ *
+ * <p>No two verbs share both their first letter and their length, so a table indexed by the two finds the
+ * only candidate in O(1), and one case-insensitive comparison confirms it. The table is built once, when
+ * the class is loaded.</p>
+ */
+public enum Command {
+    BYE("bye"),
+    LIST("list"),
+    MARK("mark"),
+    UNMARK("unmark"),
+    DELETE("delete"),
+    TODO("todo"),
+    DEADLINE("deadline"),
+    EVENT("event"),
+    FIND("find"),
+    CLASHES("clashes"),
+    DUE("due"),
+    UPCOMING("upcoming"),
+    OVERDUE("overdue"),
+    UNDO("undo"),
+    REDO("redo"),
+    EXPLAIN("explain"),
+    STATS("stats"),
+    HELP("help"),
+    /** Anything that is not one of the verbs above. */
+    UNKNOWN("");
+
+    private static final int LETTERS = 'z' - 'a' + 1;
+    private static final int MAX_VERB_LENGTH = 8;
+    private static final Command[] TABLE = new Command[LETTERS * (MAX_VERB_LENGTH + 1)];
+
+    static {
+        for (Command command : values()) {
+            if (command == UNKNOWN) {
+                continue;
+            }
+            int slot = slotOf(command.verb.charAt(0), command.verb.length());
+            if (slot < 0 || TABLE[slot] != null) {
+                // Checked even with assertions off, so a new verb can never silently replace another
+                throw new IllegalStateException("Verb " + command.verb + " does not fit the command table");
+            }
+            TABLE[slot] = command;
+        }
+    }
+
+    private final String verb;
+
+    Command(String verb) {
+        this.verb = verb;
+    }
+
+    /**
+     * Returns the word that invokes the command.
+     *
+     * @return The verb in lower case
+     */
+    public String getVerb() {
+        return verb;
+    }
+
+    private static int slotOf(char first, int length) {
+        char letter = Character.toLowerCase(first);
+        if (letter < 'a' || letter > 'z' || length > MAX_VERB_LENGTH) {
+            return -1;
+        }
+        return (letter - 'a') * (MAX_VERB_LENGTH + 1) + length;
+    }
+
+    /**
+     * Finds the command whose verb is the given part of the input, ignoring case.
+     *
+     * @param input The input
+     * @param start The index of the first character of the word
+     * @param end The index just past the last character of the word
+     * @return The command, or UNKNOWN if the word is not a verb
+     */
+    public static Command lookup(CharSequence input, int start, int end) {
+        if (start >= end) {
+            return UNKNOWN;
+        }
+        int slot = slotOf(input.charAt(start), end - start);
+        Command candidate = slot < 0 ? null : TABLE[slot];
+        if (candidate == null) {
+            return UNKNOWN;
+        }
+        for (int i = 1; i < end - start; i++) {
+            if (Character.toLowerCase(input.charAt(start + i)) != candidate.verb.charAt(i)) {
+                return UNKNOWN;
+            }
+        }
+        return candidate;
+    }
+}
@@ -0,0 +1,218 @@
+package patrick;
+
+/**
+ * Splits a command into its verb and its argument in one pass over the input, and reads numbers and task
+ * IDs straight from the input. Dates are read by {@link patrick.task.DateCodec}.
+ *
+ * <p>Nothing here allocates: the verb is looked up in the table of {@link Command}, the argument is kept
+ * as a pair of offsets into the input, and every parse returns a primitive with a sentinel value for input
+ * that is not valid, instead of throwing. A lexer is reused for one command after another, so the parser
+ * keeps one per thread. Only handlers that need the argument as a String, e.g. for a task description,
+ * copy it out.</p>
+ */
+public class CommandLexer {
+    /** Returned by {@link #parseNumber} for text that is not an int. */
+    public static final int NOT_A_NUMBER = Integer.MIN_VALUE;
+    /** Returned by {@link #parseId} for text that is not a task ID. */
+    public static final long NOT_AN_ID = 0;
+
+    private static final char VERB_SEPARATOR = ' ';
+    private static final char ID_PREFIX = '#';
+    private static final int ID_RADIX = 16;
+    // Task IDs fit in 15 hex digits without overflowing a long
+    private static final int MAX_ID_DIGITS = 15;
+
+    private CharSequence input = "";
+    // Offsets of the argument after the first space, -1 if there is none; trimmed bounds skip blanks
+    private int argumentStart = -1;
+    private int trimmedStart;
+    private int trimmedEnd;
+
+    /**
+     * Lexes a command: the word before the first space is the verb, and everything after it the argument.
+     *
+     * @param input The input
+     * @return The command the verb invokes, UNKNOWN if it is not one
+     */
+    public Command lex(CharSequence input) {
+        this.input = input;
+        int length = input.length();
+        int verbEnd = 0;
+        while (verbEnd < length && input.charAt(verbEnd) != VERB_SEPARATOR) {
+            verbEnd++;
+        }
+        argumentStart = verbEnd < length ? verbEnd + 1 : -1;
+        trimmedStart = skipBlanks(input, argumentStart < 0 ? length : argumentStart, length);
+        trimmedEnd = trimEnd(input, trimmedStart, length);
+        return Command.lookup(input, 0, verbEnd);
+    }
+
+    /**
+     * Returns the input of the last command, for the static parse methods.
+     *
+     * @return The input
+     */
+    public CharSequence getInput() {
+        return input;
+    }
+
+    /**
+     * Checks whether anything, even only blanks, followed the verb.
+     *
+     * @return true if the input has a space after the verb
+     */
+    public boolean hasArgument() {
+        return argumentStart >= 0;
+    }
+
+    /**
+     * Checks whether the argument is missing or only blanks.
+     *
+     * @return true if there is nothing to read after the verb
+     */
+    public boolean isArgumentBlank() {
+        return trimmedStart == trimmedEnd;
+    }
+
+    /**
+     * Returns the index of the first character of the argument, after leading blanks.
+     *
+     * @return The start of the trimmed argument
+     */
+    public int getArgumentStart() {
+        return trimmedStart;
+    }
+
+    /**
+     * Returns the index just past the last character of the argument, before trailing blanks.
+     *
+     * @return The end of the trimmed argument
+     */
+    public int getArgumentEnd() {
+        return trimmedEnd;
+    }
+
+    /**
+     * Copies the argument out as it was typed, blanks included.
+     *
+     * @return Everything after the first space, or an empty String if there is none
+     */
+    public String getArgument() {
+        return argumentStart < 0 ? "" : input.subSequence(argumentStart, input.length()).toString();
+    }
+
+    /**
+     * Finds text in the argument.
+     *
+     * @param text The text to look for
+     * @param from The index to start looking from
+     * @return The index of the first match at or after from, or -1 if there is none
+     */
+    public int indexOf(String text, int from) {
+        int last = input.length() - text.length();
+        for (int i = Math.max(from, Math.max(argumentStart, 0)); i <= last; i++) {
+            if (regionMatches(input, i, text)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Checks whether the trimmed argument is exactly the given word.
+     *
+     * @param word The word
+     * @return true if the argument is the word and nothing else
+     */
+    public boolean argumentEquals(String word) {
+        return trimmedEnd - trimmedStart == word.length() && regionMatches(input, trimmedStart, word);
+    }
+
+    private static boolean regionMatches(CharSequence text, int start, String other) {
+        for (int i = 0; i < other.length(); i++) {
+            if (text.charAt(start + i) != other.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Skips characters up to and including spaces, like {@link String#trim} does at the start.
+     *
+     * @param text The text
+     * @param start The index to start from
+     * @param end The index to stop at
+     * @return The index of the first character that is not blank, or end
+     */
+    public static int skipBlanks(CharSequence text, int start, int end) {
+        while (start < end && text.charAt(start) <= ' ') {
+            start++;
+        }
+        return start;
+    }
+
+    private static int trimEnd(CharSequence text, int start, int end) {
+        while (end > start && text.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        return end;
+    }
+
+    /**
+     * Reads a decimal int, with an optional sign, ignoring blanks around it.
+     *
+     * @param text The text
+     * @param start The index of the first character
+     * @param end The index just past the last character
+     * @return The number, or {@link #NOT_A_NUMBER} if the text is not an int
+     */
+    public static int parseNumber(CharSequence text, int start, int end) {
+        start = skipBlanks(text, start, end);
+        end = trimEnd(text, start, end);
+        boolean isNegative = start < end && text.charAt(start) == '-';
+        if (start < end && (isNegative || text.charAt(start) == '+')) {
+            start++;
+        }
+        if (start == end) {
+            return NOT_A_NUMBER;
+        }
+        long value = 0;
+        for (int i = start; i < end; i++) {
+            int digit = text.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return NOT_A_NUMBER;
+            }
+            value = value * 10 + digit;
+            if (value > Integer.MAX_VALUE) {
+                return NOT_A_NUMBER;
+            }
+        }
+        return (int) (isNegative ? -value : value);
+    }
+
+    /**
+     * Reads a task ID such as "#a7f3", ignoring blanks around it.
+     *
+     * @param text The text
+     * @param start The index of the first character
+     * @param end The index just past the last character
+     * @return The ID, or {@link #NOT_AN_ID} if the text is not a positive hexadecimal ID after a '#'
+     */
+    public static long parseId(CharSequence text, int start, int end) {
+        start = skipBlanks(text, start, end);
+        end = trimEnd(text, start, end);
+        if (start == end || text.charAt(start) != ID_PREFIX || end - start - 1 > MAX_ID_DIGITS) {
+            return NOT_AN_ID;
+        }
+        long id = 0;
+        for (int i = start + 1; i < end; i++) {
+            int digit = Character.digit(text.charAt(i), ID_RADIX);
+            if (digit < 0) {
+                return NOT_AN_ID;
+            }
+            id = id * ID_RADIX + digit;
+        }
+        return id;
+    }
+}
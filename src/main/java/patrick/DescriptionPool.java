@@ -0,0 +1,150 @@
+package patrick;
+
+import java.lang.ref.WeakReference;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Shares one String instance between tasks with the same description.
+ *
+ * <p>The pool is a fixed-size table of weak references indexed by the hash of the description. A lookup
+ * that finds an equal description returns the pooled instance; otherwise the new description takes over
+ * the slot. The table never grows and never keeps a description alive on its own, so it costs at most a
+ * few megabytes and unlike {@link String#intern} leaves nothing behind once the tasks are gone. Colliding
+ * descriptions simply miss, which only costs the sharing, never correctness. Descriptions are looked up
+ * straight from file bytes, so a repeated description is never decoded into a second String at all.
+ * The table is safe to use from the threads that parse a file in parallel.</p>
+ */
+public class DescriptionPool {
+    private static final int DEFAULT_CAPACITY = 1 << 16;
+    // Rough size of a String and its array headers, added to the characters a shared copy saves
+    private static final int STRING_OVERHEAD_BYTES = 40;
+    private static final int MAX_LATIN1_CHAR = 0xFF;
+    private static final DescriptionPool SHARED = new DescriptionPool(DEFAULT_CAPACITY);
+
+    private final AtomicReferenceArray<WeakReference<String>> table;
+    private final int mask;
+    private final LongAdder lookups = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder savedBytes = new LongAdder();
+
+    /**
+     * Creates a pool with the given number of slots.
+     *
+     * @param capacity The number of slots, a power of two
+     */
+    public DescriptionPool(int capacity) {
+        assert Integer.bitCount(capacity) == 1 : "Capacity must be a power of two";
+        table = new AtomicReferenceArray<>(capacity);
+        mask = capacity - 1;
+    }
+
+    /**
+     * Returns the pool shared by loading and adding tasks.
+     *
+     * @return The shared pool
+     */
+    public static DescriptionPool shared() {
+        return SHARED;
+    }
+
+    /**
+     * Returns the pooled instance equal to the given description, pooling it if there is none.
+     *
+     * @param description The description
+     * @return An equal description, possibly the same instance
+     */
+    public String dedup(String description) {
+        int slot = slotOf(description.hashCode());
+        String pooled = pooledAt(slot);
+        if (description.equals(pooled)) {
+            boolean isLatin1 = pooled.chars().allMatch(c -> c <= MAX_LATIN1_CHAR);
+            recordHit(pooled.length() * (isLatin1 ? 1 : 2));
+            return pooled;
+        }
+        table.set(slot, new WeakReference<>(description));
+        return description;
+    }
+
+    /**
+     * Returns the pooled description stored as UTF-8 in the given byte range, only decoding the bytes when
+     * the description is not pooled yet.
+     *
+     * @param data The bytes holding the description
+     * @param start The index of the first byte
+     * @param end The index just past the last byte
+     * @return The description
+     */
+    public String dedup(byte[] data, int start, int end) {
+        // Same as String.hashCode while the bytes are ASCII, so both lookups share slots
+        int hash = 0;
+        boolean isAscii = true;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + data[i];
+            isAscii &= data[i] >= 0;
+        }
+        if (!isAscii) {
+            return dedup(new String(data, start, end - start, StandardCharsets.UTF_8));
+        }
+
+        int slot = slotOf(hash);
+        String pooled = pooledAt(slot);
+        if (pooled != null && matchesAscii(pooled, data, start, end)) {
+            recordHit(end - start);
+            return pooled;
+        }
+        String description = new String(data, start, end - start, StandardCharsets.ISO_8859_1);
+        table.set(slot, new WeakReference<>(description));
+        return description;
+    }
+
+    private int slotOf(int hash) {
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    private String pooledAt(int slot) {
+        lookups.increment();
+        WeakReference<String> reference = table.get(slot);
+        return reference == null ? null : reference.get();
+    }
+
+    private static boolean matchesAscii(String pooled, byte[] data, int start, int end) {
+        if (pooled.length() != end - start) {
+            return false;
+        }
+        for (int i = start; i < end; i++) {
+            if (pooled.charAt(i - start) != data[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Counts a shared description whose characters take the given number of bytes in a String.
+     */
+    private void recordHit(int characterBytes) {
+        hits.increment();
+        savedBytes.add(STRING_OVERHEAD_BYTES + characterBytes);
+    }
+
+    /**
+     * Estimates the heap saved by sharing descriptions so far.
+     *
+     * @return The approximate number of bytes saved
+     */
+    public long getSavedBytes() {
+        return savedBytes.sum();
+    }
+
+    /**
+     * Describes how well descriptions were shared.
+     *
+     * @return One line with the lookups, the shared descriptions and the bytes saved
+     */
+    public String describe() {
+        return String.format("Description pool: %,d lookups, %,d shared, ~%,d KB saved",
+                lookups.sum(), hits.sum(), getSavedBytes() / 1024);
+    }
+}
@@ -0,0 +1,37 @@
+package patrick;
+
+/**
+ * Controls how eagerly Storage makes a mutation durable, trading command latency against safety.
+ */
+public enum Durability {
+    /** Every mutation is journaled and forced to disk before the command returns. */
+    SYNC,
+
+    /** Mutations are journaled in memory and forced to disk together once per flush delay. */
+    GROUP_COMMIT,
+
+    /** Mutations only mark the list dirty; a background writer snapshots it after the flush delay. */
+    ASYNC;
+
+    /**
+     * Parses a durability setting such as "sync", "group-commit" or "async".
+     *
+     * @param value The setting to parse
+     * @return The matching durability
+     * @throws PatrickException if the setting is not recognised
+     */
+    public static Durability fromString(String value) throws PatrickException {
+        assert value != null : "Durability setting cannot be null";
+
+        switch (value.trim().toLowerCase()) {
+        case "sync":
+            return SYNC;
+        case "group-commit":
+            return GROUP_COMMIT;
+        case "async":
+            return ASYNC;
+        default:
+            throw new PatrickException("Uhhh... I only know sync, group-commit and async durability.");
+        }
+    }
+}
@@ -0,0 +1,343 @@
+package patrick;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import patrick.task.Event;
+import patrick.task.RecurringEvent;
+import patrick.task.Task;
+
+/**
+ * Interval tree over events for finding the events that overlap a period of time.
+ *
+ * <p>Events are kept in a treap ordered by start time, and every node also stores the latest end time
+ * in its subtree. A query skips any subtree that ends before the period starts and stops walking right
+ * once events start after the period ends, so finding k overlapping events costs O(log n + k) expected.
+ * Two events clash when each starts before the other ends; an event ending exactly when another starts
+ * does not clash with it. Tasks that are not events are ignored. Priorities are mixed from each node's
+ * sequence number, so the same events added in the same order always give the same tree.</p>
+ *
+ * <p>Recurring events have a node for each occurrence that overlaps a horizon of about three months from
+ * today, so a query inside the horizon costs the same as for one-off events. The horizon moves
+ * forward with the next change once the day is over. A query reaching outside it expands the recurring
+ * events instead, creating only the occurrences that start within the period, or early enough to still be
+ * running when it starts.</p>
+ */
+public class EventIntervalTree implements TaskIndex {
+    private static final int HORIZON_DAYS = 92;
+
+    private final Clock clock;
+    private final IdentityHashMap<Task, Long> sequenceNumbers = new IdentityHashMap<>();
+    // The occurrence nodes of each recurring event, in the order the events were added
+    private final IdentityHashMap<Task, List<Node>> occurrenceNodes = new IdentityHashMap<>();
+    private final Set<Task> recurringEvents = new LinkedHashSet<>();
+    private Node root;
+    private long nextSequence;
+    private int occurrenceCount;
+    // Occurrences overlapping the horizon, from the start of its first day to the start of its last, are nodes
+    private LocalDateTime horizonStart;
+    private LocalDateTime horizonEnd;
+
+    /**
+     * Treap node. Sequence numbers break ties between events starting at the same time. The node of an
+     * occurrence keeps the recurring event and the occurrence's date, and creates the occurrence when a
+     * query returns it, so it always has the current done status.
+     */
+    private static class Node {
+        private final Event event;
+        private final LocalDate occurrence;
+        private final LocalDateTime from;
+        private final LocalDateTime to;
+        private final long sequence;
+        private final long priority;
+        private LocalDateTime maxEnd;
+        private Node left;
+        private Node right;
+
+        private Node(Event event, LocalDate occurrence, LocalDateTime from, LocalDateTime to, long sequence) {
+            this.event = event;
+            this.occurrence = occurrence;
+            this.from = from;
+            this.to = to;
+            this.sequence = sequence;
+            this.priority = priority(sequence);
+            this.maxEnd = to;
+        }
+
+        private int compareTo(LocalDateTime otherFrom, long otherSequence) {
+            int byStart = from.compareTo(otherFrom);
+            return byStart != 0 ? byStart : Long.compare(sequence, otherSequence);
+        }
+
+        private Task toTask() {
+            return occurrence == null ? event : ((RecurringEvent) event).occurrenceOn(occurrence);
+        }
+
+        private void update() {
+            maxEnd = to;
+            if (left != null && left.maxEnd.isAfter(maxEnd)) {
+                maxEnd = left.maxEnd;
+            }
+            if (right != null && right.maxEnd.isAfter(maxEnd)) {
+                maxEnd = right.maxEnd;
+            }
+        }
+    }
+
+    /**
+     * Creates an empty tree whose horizon starts today.
+     */
+    public EventIntervalTree() {
+        this(Clock.systemDefaultZone());
+    }
+
+    /**
+     * Creates an empty tree whose horizon starts on the clock's current day.
+     *
+     * @param clock The clock to read today's date from
+     */
+    public EventIntervalTree(Clock clock) {
+        this.clock = clock;
+        setHorizon(LocalDate.now(clock));
+    }
+
+    /**
+     * Mixes the bits of a sequence number into a well-spread priority.
+     */
+    private static long priority(long sequence) {
+        long mixed = sequence * 0x9E3779B97F4A7C15L;
+        mixed ^= mixed >>> 32;
+        mixed *= 0xBF58476D1CE4E5B9L;
+        return mixed ^ (mixed >>> 29);
+    }
+
+    private void setHorizon(LocalDate today) {
+        horizonStart = today.atStartOfDay();
+        horizonEnd = today.plusDays(HORIZON_DAYS).atStartOfDay();
+    }
+
+    @Override
+    public void add(Task task) {
+        moveHorizonToToday();
+        if (task instanceof RecurringEvent) {
+            if (recurringEvents.add(task)) {
+                addOccurrences((RecurringEvent) task);
+            }
+            return;
+        }
+        if (!(task instanceof Event) || sequenceNumbers.containsKey(task)) {
+            return;
+        }
+        Event event = (Event) task;
+        long sequence = nextSequence++;
+        sequenceNumbers.put(task, sequence);
+        root = insert(root, new Node(event, null, event.getFrom(), event.getTo(), sequence));
+    }
+
+    /**
+     * Adds a node for every occurrence of a recurring event that overlaps the horizon.
+     */
+    private void addOccurrences(RecurringEvent recurring) {
+        List<Node> nodes = new ArrayList<>();
+        for (Event occurrence : occurrencesOverlapping(recurring, horizonStart, horizonEnd)) {
+            Node node = new Node(recurring, occurrence.getFrom().toLocalDate(), occurrence.getFrom(),
+                    occurrence.getTo(), nextSequence++);
+            root = insert(root, node);
+            nodes.add(node);
+        }
+        occurrenceNodes.put(recurring, nodes);
+        occurrenceCount += nodes.size();
+    }
+
+    private void removeOccurrences(Task recurring) {
+        List<Node> nodes = occurrenceNodes.remove(recurring);
+        for (Node node : nodes) {
+            root = delete(root, node.from, node.sequence);
+        }
+        occurrenceCount -= nodes.size();
+    }
+
+    /**
+     * Moves the horizon to start today if a day has passed since it last moved, replacing the occurrence
+     * nodes of every recurring event.
+     */
+    private void moveHorizonToToday() {
+        LocalDate today = LocalDate.now(clock);
+        if (!today.atStartOfDay().isAfter(horizonStart)) {
+            return;
+        }
+        for (Task recurring : recurringEvents) {
+            removeOccurrences(recurring);
+        }
+        setHorizon(today);
+        for (Task recurring : recurringEvents) {
+            addOccurrences((RecurringEvent) recurring);
+        }
+    }
+
+    private static Node insert(Node node, Node added) {
+        if (node == null) {
+            return added;
+        }
+        if (node.compareTo(added.from, added.sequence) > 0) {
+            node.left = insert(node.left, added);
+            if (node.left.priority > node.priority) {
+                node = rotateRight(node);
+            }
+        } else {
+            node.right = insert(node.right, added);
+            if (node.right.priority > node.priority) {
+                node = rotateLeft(node);
+            }
+        }
+        node.update();
+        return node;
+    }
+
+    @Override
+    public void remove(Task task) {
+        if (recurringEvents.remove(task)) {
+            removeOccurrences(task);
+            moveHorizonToToday();
+            return;
+        }
+        Long sequence = sequenceNumbers.remove(task);
+        if (sequence == null) {
+            return;
+        }
+        root = delete(root, ((Event) task).getFrom(), sequence);
+        moveHorizonToToday();
+    }
+
+    private static Node delete(Node node, LocalDateTime from, long sequence) {
+        if (node == null) {
+            return null;
+        }
+        int comparison = node.compareTo(from, sequence);
+        if (comparison > 0) {
+            node.left = delete(node.left, from, sequence);
+        } else if (comparison < 0) {
+            node.right = delete(node.right, from, sequence);
+        } else if (node.left == null) {
+            return node.right;
+        } else if (node.right == null) {
+            return node.left;
+        } else if (node.left.priority > node.right.priority) {
+            node = rotateRight(node);
+            node.right = delete(node.right, from, sequence);
+        } else {
+            node = rotateLeft(node);
+            node.left = delete(node.left, from, sequence);
+        }
+        node.update();
+        return node;
+    }
+
+    private static Node rotateRight(Node node) {
+        Node pivot = node.left;
+        node.left = pivot.right;
+        pivot.right = node;
+        node.update();
+        pivot.update();
+        return pivot;
+    }
+
+    private static Node rotateLeft(Node node) {
+        Node pivot = node.right;
+        node.right = pivot.left;
+        pivot.left = node;
+        node.update();
+        pivot.update();
+        return pivot;
+    }
+
+    /**
+     * Finds the events that overlap the given period.
+     *
+     * @param from The start of the period
+     * @param to The end of the period
+     * @return The overlapping events ordered by start time
+     */
+    public List<Task> findOverlapping(LocalDateTime from, LocalDateTime to) {
+        List<Task> result = new ArrayList<>();
+        boolean isInsideHorizon = !from.isBefore(horizonStart) && !to.isAfter(horizonEnd);
+        collectOverlapping(root, from, to, isInsideHorizon, result);
+        if (!isInsideHorizon && collectOccurrences(from, to, result)) {
+            result.sort(Comparator.comparing(task -> ((Event) task).getFrom()));
+        }
+        return result;
+    }
+
+    /**
+     * Adds the occurrences of recurring events that overlap the period, expanding only the occurrences that
+     * start close enough to it. Used for periods outside the horizon, whose occurrences have no nodes.
+     *
+     * @return true if any occurrence was added
+     */
+    private boolean collectOccurrences(LocalDateTime from, LocalDateTime to, List<Task> result) {
+        boolean isAdded = false;
+        for (Task task : recurringEvents) {
+            List<Event> occurrences = occurrencesOverlapping((RecurringEvent) task, from, to);
+            result.addAll(occurrences);
+            isAdded |= !occurrences.isEmpty();
+        }
+        return isAdded;
+    }
+
+    private static List<Event> occurrencesOverlapping(RecurringEvent recurring, LocalDateTime from,
+            LocalDateTime to) {
+        long durationDays = ChronoUnit.DAYS.between(recurring.getFrom().toLocalDate(),
+                recurring.getTo().toLocalDate());
+        LocalDate earliest = from.toLocalDate().minusDays(durationDays);
+        List<Event> occurrences = new ArrayList<>();
+        for (LocalDate date : recurring.getRecurrence().occurrencesBetween(earliest, to.toLocalDate())) {
+            Event occurrence = (Event) recurring.occurrenceOn(date);
+            if (occurrence.getFrom().isBefore(to) && occurrence.getTo().isAfter(from)) {
+                occurrences.add(occurrence);
+            }
+        }
+        return occurrences;
+    }
+
+    private static void collectOverlapping(Node node, LocalDateTime from, LocalDateTime to,
+            boolean includesOccurrences, List<Task> result) {
+        if (node == null || !node.maxEnd.isAfter(from)) {
+            // Nothing in this subtree ends after the period starts
+            return;
+        }
+        collectOverlapping(node.left, from, to, includesOccurrences, result);
+        if (!node.from.isBefore(to)) {
+            // This event and everything to its right start after the period ends
+            return;
+        }
+        if (node.to.isAfter(from) && (includesOccurrences || node.occurrence == null)) {
+            result.add(node.toTask());
+        }
+        collectOverlapping(node.right, from, to, includesOccurrences, result);
+    }
+
+    @Override
+    public void clear() {
+        sequenceNumbers.clear();
+        occurrenceNodes.clear();
+        recurringEvents.clear();
+        root = null;
+        nextSequence = 0;
+        occurrenceCount = 0;
+        setHorizon(LocalDate.now(clock));
+    }
+
+    @Override
+    public String describe() {
+        return String.format("Event interval tree: %,d events, %,d recurring with %,d occurrences before %s",
+                sequenceNumbers.size(), recurringEvents.size(), occurrenceCount, horizonEnd.toLocalDate());
+    }
+}
@@ -0,0 +1,200 @@
+package patrick;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Dictionary of words for finding the words within a given edit distance of a query.
+ *
+ * <p>Words are kept in a trie. A search walks it depth first with one row of the Levenshtein table per
+ * level, so each prefix shared by many words is matched against the query only once. As soon as every
+ * entry of a row exceeds the allowed distance, no word below that node can match and the whole subtree
+ * is skipped. This is a Levenshtein automaton run over the trie: the work grows with the number of
+ * prefixes within a few edits of the query rather than with the size of the dictionary.</p>
+ */
+public class FuzzyDictionary {
+    private static final char[] NO_LABELS = new char[0];
+    private static final Node[] NO_CHILDREN = new Node[0];
+
+    private final Node root = new Node();
+
+    /**
+     * Trie node. Children are sorted by the character leading to them, so words come out in sorted order.
+     */
+    private static class Node {
+        private char[] labels = NO_LABELS;
+        private Node[] children = NO_CHILDREN;
+        // The word ending at this node, if any
+        private String word;
+        // Number of words ending at or below this node
+        private int wordCount;
+
+        private Node child(char label) {
+            int index = Arrays.binarySearch(labels, label);
+            return index < 0 ? null : children[index];
+        }
+
+        private Node addChild(char label) {
+            int index = -Arrays.binarySearch(labels, label) - 1;
+            assert index >= 0 : "Child already exists";
+            labels = insert(labels, index, label);
+            Node child = new Node();
+            Node[] grown = Arrays.copyOf(children, children.length + 1);
+            System.arraycopy(grown, index, grown, index + 1, children.length - index);
+            grown[index] = child;
+            children = grown;
+            return child;
+        }
+
+        private void removeChild(char label) {
+            int index = Arrays.binarySearch(labels, label);
+            char[] newLabels = new char[labels.length - 1];
+            Node[] newChildren = new Node[children.length - 1];
+            System.arraycopy(labels, 0, newLabels, 0, index);
+            System.arraycopy(labels, index + 1, newLabels, index, newLabels.length - index);
+            System.arraycopy(children, 0, newChildren, 0, index);
+            System.arraycopy(children, index + 1, newChildren, index, newChildren.length - index);
+            labels = newLabels;
+            children = newChildren;
+        }
+
+        private static char[] insert(char[] array, int index, char value) {
+            char[] grown = new char[array.length + 1];
+            System.arraycopy(array, 0, grown, 0, index);
+            grown[index] = value;
+            System.arraycopy(array, index, grown, index + 1, array.length - index);
+            return grown;
+        }
+    }
+
+    /**
+     * Checks whether the dictionary holds a word.
+     *
+     * @param word The word
+     * @return true if the word was added and not removed since
+     */
+    public boolean contains(String word) {
+        Node node = root;
+        for (int i = 0; i < word.length() && node != null; i++) {
+            node = node.child(word.charAt(i));
+        }
+        return node != null && node.word != null;
+    }
+
+    /**
+     * Adds a word to the dictionary. Adding a word already present does nothing.
+     *
+     * @param word The word to add
+     */
+    public void add(String word) {
+        if (contains(word)) {
+            return;
+        }
+        Node node = root;
+        node.wordCount++;
+        for (int i = 0; i < word.length(); i++) {
+            Node child = node.child(word.charAt(i));
+            node = child != null ? child : node.addChild(word.charAt(i));
+            node.wordCount++;
+        }
+        node.word = word;
+    }
+
+    /**
+     * Removes a word from the dictionary, dropping the nodes no other word uses. Removing a word that is not
+     * present does nothing.
+     *
+     * @param word The word to remove
+     */
+    public void remove(String word) {
+        if (!contains(word)) {
+            return;
+        }
+        Node node = root;
+        node.wordCount--;
+        for (int i = 0; i < word.length(); i++) {
+            Node child = node.child(word.charAt(i));
+            if (--child.wordCount == 0) {
+                node.removeChild(word.charAt(i));
+                return;
+            }
+            node = child;
+        }
+        node.word = null;
+    }
+
+    /**
+     * Finds the words within the given edit distance of the query.
+     *
+     * @param query The word to look for
+     * @param maxDistance The largest number of single-character insertions, deletions and substitutions
+     * @return The matching words in sorted order
+     */
+    public List<String> find(String query, int maxDistance) {
+        List<String> matches = new ArrayList<>();
+        // rows[i] compares the first i characters of the current prefix with every prefix of the query. A
+        // row past query.length() + maxDistance always exceeds the distance, so the walk stops before it.
+        int[][] rows = new int[query.length() + maxDistance + 2][query.length() + 1];
+        for (int j = 0; j <= query.length(); j++) {
+            rows[0][j] = j;
+        }
+        if (root.word != null && query.length() <= maxDistance) {
+            matches.add(root.word);
+        }
+        collectMatches(root, 0, query, maxDistance, rows, matches);
+        return matches;
+    }
+
+    private static void collectMatches(Node node, int depth, String query, int maxDistance, int[][] rows,
+            List<String> matches) {
+        for (int i = 0; i < node.children.length; i++) {
+            Node child = node.children[i];
+            int[] row = rows[depth + 1];
+            int minimum = fillRow(rows[depth], row, node.labels[i], query);
+            if (minimum > maxDistance) {
+                // Every word below this prefix is too far from the query
+                continue;
+            }
+            if (child.word != null && row[query.length()] <= maxDistance) {
+                matches.add(child.word);
+            }
+            collectMatches(child, depth + 1, query, maxDistance, rows, matches);
+        }
+    }
+
+    /**
+     * Fills the row for one more character of the current prefix.
+     *
+     * @return The smallest entry of the row
+     */
+    private static int fillRow(int[] above, int[] row, char c, String query) {
+        row[0] = above[0] + 1;
+        int minimum = row[0];
+        for (int j = 1; j <= query.length(); j++) {
+            int substitution = above[j - 1] + (c == query.charAt(j - 1) ? 0 : 1);
+            row[j] = Math.min(substitution, Math.min(above[j], row[j - 1]) + 1);
+            minimum = Math.min(minimum, row[j]);
+        }
+        return minimum;
+    }
+
+    /**
+     * Removes every word.
+     */
+    public void clear() {
+        root.labels = NO_LABELS;
+        root.children = NO_CHILDREN;
+        root.word = null;
+        root.wordCount = 0;
+    }
+
+    /**
+     * Gets the number of words in the dictionary.
+     *
+     * @return The number of words
+     */
+    public int size() {
+        return root.wordCount;
+    }
+}
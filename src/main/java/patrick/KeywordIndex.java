@@ -0,0 +1,361 @@
+package patrick;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+import patrick.task.Task;
+
+/**
+ * Inverted index from the words of task descriptions to the tasks containing them.
+ * Words are normalized to lower case and split on anything that is not a letter or digit.
+ * Each posting set keeps tasks in the order they were added, which is their order in the list.
+ * The words themselves are also kept in a {@link FuzzyDictionary}, so fuzzy queries can expand each query word to
+ * the indexed words within a few typos of it without comparing against every description.
+ * The index also keeps the statistics BM25 needs, the number of tasks and their total length in words,
+ * so ranked queries can score matches without a pass over the list.
+ */
+public class KeywordIndex implements TaskIndex {
+    // Words up to these lengths tolerate no typo and one typo respectively; longer words tolerate two
+    private static final int MAX_LENGTH_WITHOUT_TYPOS = 2;
+    private static final int MAX_LENGTH_WITH_ONE_TYPO = 5;
+    // Standard BM25 parameters: term frequency saturation and document length normalization
+    private static final double BM25_K1 = 1.2;
+    private static final double BM25_B = 0.75;
+
+    private final HashMap<String, LinkedHashSet<Task>> postings = new HashMap<>();
+    private final FuzzyDictionary dictionary = new FuzzyDictionary();
+    private int taskCount;
+    private long totalWordCount;
+
+    private static final Comparator<ScoredTask> BY_RELEVANCE = Comparator
+            .<ScoredTask>comparingDouble(scored -> scored.score)
+            .thenComparing(scored -> scored.task.getId(), Comparator.reverseOrder());
+
+    /**
+     * A task with its relevance to a query.
+     */
+    private static class ScoredTask {
+        private final Task task;
+        private final double score;
+
+        private ScoredTask(Task task, double score) {
+            this.task = task;
+            this.score = score;
+        }
+    }
+
+    /**
+     * Splits text into normalized words.
+     *
+     * @param text The text to split
+     * @return The distinct words of the text, in order of first appearance
+     */
+    public static Set<String> tokenize(String text) {
+        return new LinkedHashSet<>(words(text));
+    }
+
+    /**
+     * Splits text into normalized words, keeping repeated words.
+     *
+     * @param text The text to split
+     * @return Every word of the text in order
+     */
+    public static List<String> words(String text) {
+        List<String> words = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean isWordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (isWordChar && start < 0) {
+                start = i;
+            } else if (!isWordChar && start >= 0) {
+                words.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+        return words;
+    }
+
+    /**
+     * Adds a task under every word of its description.
+     *
+     * @param task The task to index
+     */
+    @Override
+    public void add(Task task) {
+        taskCount++;
+        totalWordCount += words(task.getDescription()).size();
+        for (String word : tokenize(task.getDescription())) {
+            postings.computeIfAbsent(word, key -> {
+                dictionary.add(key);
+                return new LinkedHashSet<>();
+            }).add(task);
+        }
+    }
+
+    /**
+     * Removes a task from the postings of every word of its description.
+     *
+     * @param task The task to remove
+     */
+    @Override
+    public void remove(Task task) {
+        taskCount--;
+        totalWordCount -= words(task.getDescription()).size();
+        for (String word : tokenize(task.getDescription())) {
+            Set<Task> tasks = postings.get(word);
+            if (tasks == null) {
+                continue;
+            }
+            tasks.remove(task);
+            if (tasks.isEmpty()) {
+                postings.remove(word);
+                dictionary.remove(word);
+            }
+        }
+    }
+
+    /**
+     * Returns the tasks whose descriptions contain a normalized word.
+     *
+     * @param word A word as produced by {@link #tokenize}
+     * @return A read-only view of the tasks, empty if no description has the word
+     */
+    public Set<Task> tasksWith(String word) {
+        Set<Task> tasks = postings.get(word);
+        return tasks == null ? Collections.emptySet() : Collections.unmodifiableSet(tasks);
+    }
+
+    /**
+     * Finds the tasks whose descriptions contain every word of the query.
+     * Walks the shortest posting set and probes the others, so the cost depends on the smallest
+     * posting set rather than on the size of the list.
+     *
+     * @param query The words to look for
+     * @return The matching tasks in list order
+     */
+    public List<Task> find(String query) {
+        List<Set<Task>> matches = new ArrayList<>();
+        for (String word : tokenize(query)) {
+            Set<Task> tasks = postings.get(word);
+            if (tasks == null) {
+                return Collections.emptyList();
+            }
+            matches.add(tasks);
+        }
+        if (matches.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        Set<Task> shortest = Collections.min(matches, (first, second) -> first.size() - second.size());
+        List<Task> result = new ArrayList<>();
+        for (Task task : shortest) {
+            if (containsInAll(matches, task)) {
+                result.add(task);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Finds the tasks whose descriptions contain, for every word of the query, a word within a few typos
+     * of it. Short words must match exactly, words of up to five letters may be one edit away and longer
+     * words two.
+     *
+     * @param query The words to look for
+     * @return The matching tasks, in no particular order
+     */
+    public List<Task> findFuzzy(String query) {
+        List<Set<Task>> matches = new ArrayList<>();
+        for (String word : tokenize(query)) {
+            Set<Task> tasks = new HashSet<>();
+            for (String similar : dictionary.find(word, maxTypos(word))) {
+                tasks.addAll(postings.get(similar));
+            }
+            if (tasks.isEmpty()) {
+                return Collections.emptyList();
+            }
+            matches.add(tasks);
+        }
+        if (matches.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        Set<Task> shortest = Collections.min(matches, (first, second) -> first.size() - second.size());
+        List<Task> result = new ArrayList<>();
+        for (Task task : shortest) {
+            if (containsInAll(matches, task)) {
+                result.add(task);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Finds the tasks most relevant to the query, ranked by BM25. A task matches if its description contains
+     * any word of the query. Rare words weigh more than common ones, repeated words count with diminishing
+     * returns, and long descriptions are penalized. Only the best tasks are kept, in a bounded heap, so the
+     * cost is O(m log k) for m matching tasks and the result never holds more than k tasks.
+     *
+     * @param query The words to look for
+     * @param limit The number of tasks to return at most
+     * @return The best matching tasks, most relevant first, with ties in list order
+     */
+    public List<Task> findTop(String query, int limit) {
+        assert limit > 0 : "Limit must be positive";
+        List<String> terms = new ArrayList<>();
+        List<Set<Task>> termPostings = new ArrayList<>();
+        long matchBound = 0;
+        for (String term : tokenize(query)) {
+            Set<Task> tasks = postings.get(term);
+            if (tasks != null) {
+                terms.add(term);
+                termPostings.add(tasks);
+                matchBound += tasks.size();
+            }
+        }
+        RankedQuery rankedQuery = new RankedQuery(terms, termPostings);
+
+        // Keeps the worst of the best tasks seen so far on top, so it can be replaced by a better one.
+        // It never holds more than the matching tasks, however large a limit the user asks for.
+        int capacity = (int) Math.min(limit, matchBound) + 1;
+        PriorityQueue<ScoredTask> best = new PriorityQueue<>(capacity, BY_RELEVANCE);
+        for (int t = 0; t < terms.size(); t++) {
+            for (Task task : termPostings.get(t)) {
+                if (rankedQuery.containsEarlierTerm(task, t)) {
+                    // Already scored for all its terms when the earlier term was visited
+                    continue;
+                }
+                ScoredTask scored = new ScoredTask(task, rankedQuery.score(task));
+                if (best.size() < limit) {
+                    best.add(scored);
+                } else if (BY_RELEVANCE.compare(scored, best.peek()) > 0) {
+                    best.poll();
+                    best.add(scored);
+                }
+            }
+        }
+
+        List<Task> ranked = new ArrayList<>(best.size());
+        while (!best.isEmpty()) {
+            ranked.add(best.poll().task);
+        }
+        Collections.reverse(ranked);
+        return ranked;
+    }
+
+    /**
+     * Scores tasks against the terms of one query with BM25.
+     */
+    private class RankedQuery {
+        private final List<String> terms;
+        private final List<Set<Task>> termPostings;
+        private final double[] weights;
+        private final int[] frequencies;
+        private final double averageLength;
+
+        private RankedQuery(List<String> terms, List<Set<Task>> termPostings) {
+            this.terms = terms;
+            this.termPostings = termPostings;
+            this.frequencies = new int[terms.size()];
+            this.averageLength = (double) totalWordCount / Math.max(1, taskCount);
+            this.weights = new double[terms.size()];
+            for (int t = 0; t < terms.size(); t++) {
+                int matchingTasks = termPostings.get(t).size();
+                weights[t] = Math.log(1 + (taskCount - matchingTasks + 0.5) / (matchingTasks + 0.5));
+            }
+        }
+
+        private boolean containsEarlierTerm(Task task, int term) {
+            for (int t = 0; t < term; t++) {
+                if (termPostings.get(t).contains(task)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Counts the query terms and the words of the description in one pass, comparing word ranges in
+         * place instead of splitting the description into strings.
+         */
+        private double score(Task task) {
+            Arrays.fill(frequencies, 0);
+            String text = task.getDescription();
+            int wordCount = 0;
+            int start = -1;
+            for (int i = 0; i <= text.length(); i++) {
+                boolean isWordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+                if (isWordChar && start < 0) {
+                    start = i;
+                } else if (!isWordChar && start >= 0) {
+                    wordCount++;
+                    countTerm(text, start, i);
+                    start = -1;
+                }
+            }
+
+            double lengthNorm = BM25_K1 * (1 - BM25_B + BM25_B * wordCount / averageLength);
+            double score = 0;
+            for (int t = 0; t < terms.size(); t++) {
+                int frequency = frequencies[t];
+                if (frequency == 0 && termPostings.get(t).contains(task)) {
+                    // A case mapping that changes the word's length, which regionMatches does not follow
+                    frequency = 1;
+                }
+                score += weights[t] * frequency * (BM25_K1 + 1) / (frequency + lengthNorm);
+            }
+            return score;
+        }
+
+        private void countTerm(String text, int start, int end) {
+            for (int t = 0; t < terms.size(); t++) {
+                String term = terms.get(t);
+                if (term.length() == end - start && text.regionMatches(true, start, term, 0, term.length())) {
+                    frequencies[t]++;
+                }
+            }
+        }
+    }
+
+    private static int maxTypos(String word) {
+        if (word.length() <= MAX_LENGTH_WITHOUT_TYPOS) {
+            return 0;
+        }
+        return word.length() <= MAX_LENGTH_WITH_ONE_TYPO ? 1 : 2;
+    }
+
+    private static boolean containsInAll(List<Set<Task>> matches, Task task) {
+        for (Set<Task> tasks : matches) {
+            if (!tasks.contains(task)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void clear() {
+        postings.clear();
+        dictionary.clear();
+        taskCount = 0;
+        totalWordCount = 0;
+    }
+
+    @Override
+    public String describe() {
+        int postingCount = 0;
+        for (Set<Task> tasks : postings.values()) {
+            postingCount += tasks.size();
+        }
+        return String.format("Keyword index: %,d words, %,d postings", postings.size(), postingCount);
+    }
+}
@@ -42,6 +42,9 @@ public class MainWindow extends AnchorPane {
         dialogContainer.getChildren().add(
                 DialogBox.getPatrickDialog(welcome, patrickImage)
         );
+        // Reminders fire on a background thread, so their dialogs are added on the JavaFX thread
+        patrick.startReminders(reminder -> Platform.runLater(() -> dialogContainer.getChildren().add(
+                DialogBox.getPatrickDialog(reminder, patrickImage))));
     }
 
     /**
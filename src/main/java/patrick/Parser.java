@@ -2,11 +2,15 @@ package patrick;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.BitSet;
 
+import patrick.task.DateCodec;
 import patrick.task.Deadline;
 import patrick.task.Event;
+import patrick.task.Recurrence;
+import patrick.task.RecurringDeadline;
+import patrick.task.RecurringEvent;
 import patrick.task.Task;
 import patrick.task.ToDo;
 
@@ -15,21 +19,40 @@ import patrick.task.ToDo;
  */
 
 public class Parser {
-    // Constants for date/time formats
-    private static final String DATE_FORMAT = "yyyy-MM-dd";
-    private static final String DATETIME_FORMAT = "yyyy-MM-dd HHmm";
+    private static final String CLASHES_HEADER = "Uhh... these events are happening then:";
+    private static final String OVERDUE_HEADER = "Uhh... these should have been done already:";
 
     // Constants for command parsing
-    private static final int COMMAND_SPLIT_LIMIT = 2;
     private static final int TASK_INDEX_OFFSET = 1; // Convert 1-indexed user input to 0-indexed array
 
     // Constants for command delimiters
     private static final String DEADLINE_DELIMITER = " /by ";
-    private static final String EVENT_DELIMITER_REGEX = " /from | /to ";
+    private static final String EVENT_FROM_DELIMITER = " /from ";
+    private static final String EVENT_TO_DELIMITER = " /to ";
+    private static final String RECURRENCE_DELIMITER = " /every ";
+    private static final String OCCURRENCE_DELIMITER = " /on ";
+    private static final String FLAG_PREFIX = " /";
+    private static final char TASK_ID_PREFIX = '#';
+    private static final String SELECTION_SEPARATOR = ",";
+    private static final char SELECTION_SEPARATOR_CHAR = ',';
+    private static final char RANGE_SEPARATOR = '-';
+    private static final String DONE_SELECTION = "done";
+    private static final String EXACT_SEARCH_FLAG = "/exact";
+    private static final String WORD_SEARCH_FLAG = "/words";
+    private static final String FUZZY_SEARCH_PREFIX = "~";
+    private static final String TOP_SEARCH_FLAG = "/top";
+    private static final String QUERY_SEARCH_FLAG = "/query";
+    private static final String EXPLAINED_COMMAND = "find";
+    private static final int DEFAULT_TOP_RESULTS = 10;
+    private static final String SORT_PREFIX = "sort:";
 
-    // Constants for minimum parts needed after splitting
-    private static final int MIN_PARTS_WITH_ARGUMENT = 2;
-    private static final int MIN_EVENT_PARTS = 3;
+    private static final String NOT_A_NUMBER_MESSAGE = "Uhhh... that doesn't look like a number to me...";
+    private static final String BAD_DATE_MESSAGE = "Uhhh... I need the date in yyyy-MM-dd format (like 2019-10-15)";
+    private static final String BAD_DATE_TIME_MESSAGE =
+            "Uhhh... I need dates in yyyy-MM-dd HHmm format (like 2019-10-15 1800)";
+
+    // Each thread lexes its commands with its own lexer, reused from one command to the next
+    private static final ThreadLocal<CommandLexer> LEXERS = ThreadLocal.withInitial(CommandLexer::new);
 
     /**
      * Parses and executes a user command for GUI (returns response string).
@@ -42,38 +65,61 @@ public class Parser {
      */
     public static String parseCommandForGui(String input, TaskList tasks, Ui ui, Storage storage) {
         try {
-            String[] parts = input.split(" ", COMMAND_SPLIT_LIMIT);
-            String command = parts[0].toLowerCase();
-
-            switch (command) {
-            case "bye":
+            CommandLexer command = LEXERS.get();
+            switch (command.lex(input)) {
+            case BYE:
+                storage.close();
                 return ui.formatGoodbye();
 
-            case "list":
-                return ui.formatTaskList(tasks.getTasks());
+            case LIST:
+                return ui.formatTaskList(tasks.getTasks(parseSortOrder(command)));
+
+            case MARK:
+                return handleMarkForGui(command, tasks, ui, storage);
+
+            case UNMARK:
+                return handleUnmarkForGui(command, tasks, ui, storage);
+
+            case DELETE:
+                return handleDeleteForGui(command, tasks, ui, storage);
+
+            case TODO:
+                return handleTodoForGui(command, tasks, ui, storage);
+
+            case DEADLINE:
+                return handleDeadlineForGui(command, tasks, ui, storage);
+
+            case EVENT:
+                return handleEventForGui(command, tasks, ui, storage);
+
+            case FIND:
+                return handleFindForGui(command, tasks, ui);
 
-            case "mark":
-                return handleMarkForGui(parts, tasks, ui, storage);
+            case CLASHES:
+                return handleClashesForGui(command, tasks, ui);
 
-            case "unmark":
-                return handleUnmarkForGui(parts, tasks, ui, storage);
+            case DUE:
+                return handleDueForGui(command, tasks, ui);
 
-            case "delete":
-                return handleDeleteForGui(parts, tasks, ui, storage);
+            case UPCOMING:
+                return handleUpcomingForGui(command, tasks, ui);
 
-            case "todo":
-                return handleTodoForGui(parts, tasks, ui, storage);
+            case OVERDUE:
+                return handleOverdueForGui(tasks, ui);
 
-            case "deadline":
-                return handleDeadlineForGui(parts, tasks, ui, storage);
+            case UNDO:
+                return handleUndoForGui(tasks, ui, storage);
 
-            case "event":
-                return handleEventForGui(parts, tasks, ui, storage);
+            case REDO:
+                return handleRedoForGui(tasks, ui, storage);
 
-            case "find":
-                return handleFindForGui(parts, tasks, ui);
+            case EXPLAIN:
+                return ui.formatQueryPlan(tasks.explain(parseExplainedQuery(command)));
 
-            case "help":
+            case STATS:
+                return ui.formatStats(tasks.getStats());
+
+            case HELP:
                 return ui.formatHelp();
 
             default:
@@ -81,10 +127,6 @@ public class Parser {
             }
         } catch (PatrickException e) {
             return e.getMessage();
-        } catch (NumberFormatException e) {
-            return "Uhhh... that doesn't look like a number to me...";
-        } catch (ArrayIndexOutOfBoundsException e) {
-            return "I think something's missing in your command";
         }
     }
 
@@ -98,249 +140,781 @@ public class Parser {
      * @throws PatrickException if there's an error executing the command
      */
     public static boolean parseCommand(String input, TaskList tasks, Ui ui, Storage storage) throws PatrickException {
-        String[] parts = input.split(" ", COMMAND_SPLIT_LIMIT);
-        String command = parts[0].toLowerCase();
+        CommandLexer command = LEXERS.get();
+        switch (command.lex(input)) {
+        case BYE:
+            return true;
 
-        try {
-            switch (command) {
-            case "bye":
-                return true;
+        case LIST:
+            ui.showTaskList(tasks.getTasks(parseSortOrder(command)));
+            break;
 
-            case "list":
-                ui.showTaskList(tasks.getTasks());
-                break;
+        case MARK:
+            handleMark(command, tasks, ui, storage);
+            break;
 
-            case "mark":
-                handleMark(parts, tasks, ui, storage);
-                break;
+        case UNMARK:
+            handleUnmark(command, tasks, ui, storage);
+            break;
 
-            case "unmark":
-                handleUnmark(parts, tasks, ui, storage);
-                break;
+        case DELETE:
+            handleDelete(command, tasks, ui, storage);
+            break;
 
-            case "delete":
-                handleDelete(parts, tasks, ui, storage);
-                break;
+        case TODO:
+            handleTodo(command, tasks, ui, storage);
+            break;
 
-            case "todo":
-                handleTodo(parts, tasks, ui, storage);
-                break;
+        case DEADLINE:
+            handleDeadline(command, tasks, ui, storage);
+            break;
 
-            case "deadline":
-                handleDeadline(parts, tasks, ui, storage);
-                break;
+        case EVENT:
+            handleEvent(command, tasks, ui, storage);
+            break;
 
-            case "event":
-                handleEvent(parts, tasks, ui, storage);
-                break;
+        case FIND:
+            handleFind(command, tasks, ui);
+            break;
 
-            case "find":
-                handleFind(parts, tasks, ui);
-                break;
+        case CLASHES:
+            handleClashes(command, tasks, ui);
+            break;
 
-            case "help":
-                ui.showHelp();
-                break;
+        case DUE:
+            handleDue(command, tasks, ui);
+            break;
 
-            default:
-                throw new PatrickException("Uhhh... I don't understand what that means. Is mayonnaise a command?");
-            }
-        } catch (NumberFormatException e) {
-            throw new PatrickException("Uhhh... that doesn't look like a number to me...");
-        } catch (ArrayIndexOutOfBoundsException e) {
-            throw new PatrickException("I think something's missing in your command");
+        case UPCOMING:
+            handleUpcoming(command, tasks, ui);
+            break;
+
+        case OVERDUE:
+            handleOverdue(tasks, ui);
+            break;
+
+        case UNDO:
+            handleUndo(tasks, ui, storage);
+            break;
+
+        case REDO:
+            handleRedo(tasks, ui, storage);
+            break;
+
+        case EXPLAIN:
+            ui.showQueryPlan(tasks.explain(parseExplainedQuery(command)));
+            break;
+
+        case STATS:
+            ui.showStats(tasks.getStats());
+            break;
+
+        case HELP:
+            ui.showHelp();
+            break;
+
+        default:
+            throw new PatrickException("Uhhh... I don't understand what that means. Is mayonnaise a command?");
         }
 
         return false;
     }
 
     /**
-     * Validates that command has required number of parts.
+     * Checks that something follows the verb of a command.
      *
-     * @param parts The split command parts
-     * @param minParts Minimum number of parts required
-     * @param errorMessage Error message if validation fails
-     * @throws PatrickException if validation fails
+     * @param command The lexed command
+     * @param errorMessage Error message if nothing does
+     * @throws PatrickException if the command has no argument
      */
-    private static void validateCommandParts(String[] parts, int minParts, String errorMessage)
-            throws PatrickException {
-        if (parts.length < minParts) {
+    private static void requireArgument(CommandLexer command, String errorMessage) throws PatrickException {
+        if (!command.hasArgument()) {
             throw new PatrickException(errorMessage);
         }
     }
 
     /**
-     * Parses task number from command parts (converts from 1-indexed to 0-indexed).
+     * Parses the task a command refers to, either by its number in the list (converted from 1-indexed
+     * to 0-indexed) or by its ID, like "#a7f3".
      *
-     * @param parts The split command parts
+     * @param text The text holding the reference
+     * @param start The index the reference starts at
+     * @param end The index just past the reference
+     * @param tasks The task list used to look up IDs
      * @return The 0-indexed task number
-     * @throws NumberFormatException if parts[1] is not a valid integer
+     * @throws PatrickException if the reference is neither a number nor an ID, or no task has the ID
+     */
+    private static int parseTaskNumber(CharSequence text, int start, int end, TaskList tasks)
+            throws PatrickException {
+        start = CommandLexer.skipBlanks(text, start, end);
+        if (start < end && text.charAt(start) == TASK_ID_PREFIX) {
+            long id = CommandLexer.parseId(text, start, end);
+            if (id == CommandLexer.NOT_AN_ID) {
+                throw new PatrickException(NOT_A_NUMBER_MESSAGE);
+            }
+            return tasks.indexOfId(id);
+        }
+        int number = CommandLexer.parseNumber(text, start, end);
+        if (number == CommandLexer.NOT_A_NUMBER) {
+            throw new PatrickException(NOT_A_NUMBER_MESSAGE);
+        }
+        return number - TASK_INDEX_OFFSET;
+    }
+
+    private static int parseTaskNumber(CommandLexer command, TaskList tasks) throws PatrickException {
+        return parseTaskNumber(command.getInput(), command.getArgumentStart(), command.getArgumentEnd(), tasks);
+    }
+
+    /**
+     * Checks whether a command refers to several tasks, e.g. "1-500", "3,5,9" or "done".
+     *
+     * @param command The lexed command
+     * @return true if the command should run as one bulk operation
+     */
+    private static boolean isBulkSelection(CommandLexer command) {
+        if (command.argumentEquals(DONE_SELECTION)) {
+            return true;
+        }
+        CharSequence input = command.getInput();
+        int start = command.getArgumentStart();
+        for (int i = start; i < command.getArgumentEnd(); i++) {
+            char c = input.charAt(i);
+            // A '-' at the very start is a negative number, not a range
+            if (c == SELECTION_SEPARATOR_CHAR || c == RANGE_SEPARATOR && i > start) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Parses how often a deadline or event repeats, given with "/every" like "1d" or "2w".
+     *
+     * @param command The lexed command
+     * @return The interval in days, or 0 if the task does not repeat
+     * @throws PatrickException if the interval is not a positive number of days or weeks
+     */
+    private static int parseRecurrence(CommandLexer command) throws PatrickException {
+        int start = command.indexOf(RECURRENCE_DELIMITER, 0);
+        if (start < 0) {
+            return 0;
+        }
+        start += RECURRENCE_DELIMITER.length();
+        int end = command.indexOf(FLAG_PREFIX, start);
+        CharSequence input = command.getInput();
+        try {
+            return Recurrence.parseInterval(input.subSequence(start, end < 0 ? input.length() : end).toString());
+        } catch (IllegalArgumentException | ArithmeticException e) {
+            throw new PatrickException("Uhhh... I need the repeat like 1d or 2w");
+        }
+    }
+
+    /**
+     * Removes the "/every" part from the arguments of a command, so the dates can be split off as usual.
+     *
+     * @param arguments The arguments of the command
+     * @return The arguments without the repeat interval
+     */
+    private static String withoutRecurrence(String arguments) {
+        int start = arguments.indexOf(RECURRENCE_DELIMITER);
+        if (start < 0) {
+            return arguments;
+        }
+        int end = arguments.indexOf(FLAG_PREFIX, start + RECURRENCE_DELIMITER.length());
+        return arguments.substring(0, start) + (end < 0 ? "" : arguments.substring(end));
+    }
+
+    /**
+     * Checks whether a mark or unmark command refers to one occurrence of a recurring task, e.g. "2 /on 2026-10-20".
+     *
+     * @param command The lexed command
+     * @return true if the command names a date with "/on"
+     */
+    private static boolean isOccurrenceSelection(CommandLexer command) {
+        return command.indexOf(OCCURRENCE_DELIMITER, 0) >= 0;
+    }
+
+    /**
+     * Marks or unmarks one occurrence of a recurring task and records the change.
+     *
+     * @param command The lexed command, with an argument like "2 /on 2026-10-20"
+     * @param tasks The task list
+     * @param storage The storage handler
+     * @param isDone Whether the occurrence is now done
+     * @return The occurrence that was changed
+     * @throws PatrickException If the task does not repeat, the date is invalid or not an occurrence
+     */
+    private static Task setOccurrenceStatus(CommandLexer command, TaskList tasks, Storage storage, boolean isDone)
+            throws PatrickException {
+        CharSequence input = command.getInput();
+        int on = command.indexOf(OCCURRENCE_DELIMITER, 0);
+        int taskNum = parseTaskNumber(input, command.getArgumentStart(), on, tasks);
+        long day = DateCodec.parseDate(input, on + OCCURRENCE_DELIMITER.length(), command.getArgumentEnd());
+        if (day == DateCodec.NOT_A_DATE) {
+            throw new PatrickException(BAD_DATE_MESSAGE);
+        }
+        Task occurrence = tasks.setOccurrenceStatus(taskNum, LocalDate.ofEpochDay(day), isDone);
+        storage.appendOccurrenceStatus(taskNum, occurrence);
+        return occurrence;
+    }
+
+    /**
+     * Parses a comma-separated list of task numbers, ranges like "10-200" and IDs like "#a7f3".
+     *
+     * @param selection The argument of the command
+     * @param tasks The task list used to check bounds and look up IDs
+     * @return The distinct 0-indexed task numbers in increasing order
+     * @throws PatrickException if an item is not a number, a range or an ID, or refers to a task that
+     *     does not exist
      */
-    private static int parseTaskNumber(String[] parts) {
-        return Integer.parseInt(parts[1]) - TASK_INDEX_OFFSET;
+    private static int[] parseTaskSelection(String selection, TaskList tasks) throws PatrickException {
+        BitSet selected = new BitSet();
+        for (String item : selection.split(SELECTION_SEPARATOR)) {
+            String trimmed = item.trim();
+            int dash = trimmed.indexOf(RANGE_SEPARATOR, 1);
+            if (trimmed.isEmpty() || trimmed.charAt(0) == TASK_ID_PREFIX || dash < 0) {
+                int taskNum = parseTaskNumber(trimmed, 0, trimmed.length(), tasks);
+                validateSelectedNumber(taskNum, tasks);
+                selected.set(taskNum);
+                continue;
+            }
+            int first = parseTaskNumber(trimmed, 0, dash, tasks);
+            int last = parseTaskNumber(trimmed, dash + 1, trimmed.length(), tasks);
+            if (first > last) {
+                throw new PatrickException("Uhhh... that range goes backwards");
+            }
+            validateSelectedNumber(first, tasks);
+            validateSelectedNumber(last, tasks);
+            selected.set(first, last + 1);
+        }
+        return selected.stream().toArray();
+    }
+
+    private static void validateSelectedNumber(int taskNum, TaskList tasks) throws PatrickException {
+        if (taskNum < 0 || taskNum >= tasks.size()) {
+            throw new PatrickException("Huh? Task " + (taskNum + TASK_INDEX_OFFSET) + " doesn't exist...");
+        }
+    }
+
+    /**
+     * Parses the tasks a bulk delete refers to, where "done" selects every finished task.
+     *
+     * @param command The lexed command
+     * @param tasks The task list
+     * @return The distinct 0-indexed task numbers in increasing order
+     * @throws PatrickException if a task does not exist or nothing is done
+     */
+    private static int[] parseDeleteSelection(CommandLexer command, TaskList tasks) throws PatrickException {
+        if (!command.argumentEquals(DONE_SELECTION)) {
+            return parseTaskSelection(command.getArgument(), tasks);
+        }
+        int[] done = tasks.findDoneIndexes();
+        if (done.length == 0) {
+            throw new PatrickException("Uhhh... none of your tasks are done yet");
+        }
+        return done;
     }
 
     /**
      * Handles the mark command to mark a task as done.
      *
-     * @param parts The split command parts.
+     * @param command The lexed command.
      * @param tasks The task list.
      * @param ui The UI handler.
      * @param storage The storage handler.
      * @throws PatrickException If task number is invalid or missing.
      */
-    private static void handleMark(String[] parts, TaskList tasks, Ui ui, Storage storage) throws PatrickException {
-        validateCommandParts(parts, MIN_PARTS_WITH_ARGUMENT, "Uhhh... which task do I mark?");
-        int taskNum = parseTaskNumber(parts);
+    private static void handleMark(CommandLexer command, TaskList tasks, Ui ui, Storage storage)
+            throws PatrickException {
+        requireArgument(command, "Uhhh... which task do I mark?");
+        if (isOccurrenceSelection(command)) {
+            ui.showTaskMarked(setOccurrenceStatus(command, tasks, storage, true));
+            return;
+        }
+        if (isBulkSelection(command)) {
+            ArrayList<Task> marked = tasks.markTasks(parseTaskSelection(command.getArgument(), tasks));
+            ui.showTasksMarked(marked);
+            storage.appendMarks(marked);
+            return;
+        }
+        int taskNum = parseTaskNumber(command, tasks);
         assert taskNum >= -1 : "Task number after parsing should be >= -1";
 
-        tasks.markTask(taskNum);
-        ui.showTaskMarked(tasks.getTask(taskNum));
-        storage.save(tasks.getTasks());
+        Task marked = tasks.markTask(taskNum);
+        ui.showTaskMarked(marked);
+        storage.appendMark(taskNum, marked);
     }
 
     /**
      * Handles the unmark command to mark a task as not done.
      *
-     * @param parts The split command parts.
+     * @param command The lexed command.
      * @param tasks The task list.
      * @param ui The UI handler.
      * @param storage The storage handler.
      * @throws PatrickException If task number is invalid or missing.
      */
-    private static void handleUnmark(String[] parts, TaskList tasks, Ui ui, Storage storage) throws PatrickException {
-        validateCommandParts(parts, MIN_PARTS_WITH_ARGUMENT, "Uhhh... which task do I unmark?");
-        int taskNum = parseTaskNumber(parts);
-        tasks.unmarkTask(taskNum);
-        ui.showTaskUnmarked(tasks.getTask(taskNum));
-        storage.save(tasks.getTasks());
+    private static void handleUnmark(CommandLexer command, TaskList tasks, Ui ui, Storage storage)
+            throws PatrickException {
+        requireArgument(command, "Uhhh... which task do I unmark?");
+        if (isOccurrenceSelection(command)) {
+            ui.showTaskUnmarked(setOccurrenceStatus(command, tasks, storage, false));
+            return;
+        }
+        if (isBulkSelection(command)) {
+            ArrayList<Task> unmarked = tasks.unmarkTasks(parseTaskSelection(command.getArgument(), tasks));
+            ui.showTasksUnmarked(unmarked);
+            storage.appendUnmarks(unmarked);
+            return;
+        }
+        int taskNum = parseTaskNumber(command, tasks);
+        Task unmarked = tasks.unmarkTask(taskNum);
+        ui.showTaskUnmarked(unmarked);
+        storage.appendUnmark(taskNum, unmarked);
     }
 
     /**
      * Handles the delete command to remove a task.
      *
-     * @param parts The split command parts.
+     * @param command The lexed command.
      * @param tasks The task list.
      * @param ui The UI handler.
      * @param storage The storage handler.
      * @throws PatrickException If task number is invalid or missing.
      */
-    private static void handleDelete(String[] parts, TaskList tasks, Ui ui, Storage storage) throws PatrickException {
-        validateCommandParts(parts, MIN_PARTS_WITH_ARGUMENT, "Uhhh... which task do you want me to delete?");
-        int taskNum = parseTaskNumber(parts);
+    private static void handleDelete(CommandLexer command, TaskList tasks, Ui ui, Storage storage)
+            throws PatrickException {
+        requireArgument(command, "Uhhh... which task do you want me to delete?");
+        if (isBulkSelection(command)) {
+            ArrayList<Task> deleted = tasks.deleteTasks(parseDeleteSelection(command, tasks));
+            ui.showTasksDeleted(deleted, tasks.size());
+            storage.appendDeletes(deleted);
+            return;
+        }
+        int taskNum = parseTaskNumber(command, tasks);
         Task deletedTask = tasks.deleteTask(taskNum);
         ui.showTaskDeleted(deletedTask, tasks.size());
-        storage.save(tasks.getTasks());
+        storage.appendDelete(taskNum, deletedTask);
     }
 
     /**
      * Handles the todo command to create a new todo task.
      *
-     * @param parts The split command parts.
+     * @param command The lexed command.
      * @param tasks The task list.
      * @param ui The UI handler.
      * @param storage The storage handler.
      * @throws PatrickException If description is missing.
      */
-    private static void handleTodo(String[] parts, TaskList tasks, Ui ui, Storage storage) throws PatrickException {
-        if (parts.length < MIN_PARTS_WITH_ARGUMENT || parts[1].trim().isEmpty()) {
+    private static void handleTodo(CommandLexer command, TaskList tasks, Ui ui, Storage storage)
+            throws PatrickException {
+        if (command.isArgumentBlank()) {
             throw new PatrickException("Uhhh... What is the name of the ToDo task again?");
         }
-        String description = parts[1];
+        String description = DescriptionPool.shared().dedup(command.getArgument());
         Task task = new ToDo(description);
         assert task != null : "Created task should not be null";
 
         tasks.addTask(task);
         ui.showTaskAdded(task, tasks.size());
-        storage.save(tasks.getTasks());
+        storage.appendAdd(task);
     }
 
     /**
      * Handles the deadline command to create a new deadline task.
      *
-     * @param parts The split command parts.
+     * @param command The lexed command.
      * @param tasks The task list.
      * @param ui The UI handler.
      * @param storage The storage handler.
      * @throws PatrickException If description or date is missing or invalid.
      */
-    private static void handleDeadline(String[] parts, TaskList tasks, Ui ui, Storage storage) throws PatrickException {
-        if (parts.length < MIN_PARTS_WITH_ARGUMENT || parts[1].trim().isEmpty()) {
+    private static void handleDeadline(CommandLexer command, TaskList tasks, Ui ui, Storage storage)
+            throws PatrickException {
+        Task task = parseDeadline(command);
+        tasks.addTask(task);
+        ui.showTaskAdded(task, tasks.size());
+        storage.appendAdd(task);
+    }
+
+    /**
+     * Handles the event command to create a new event task.
+     *
+     * @param command The lexed command.
+     * @param tasks The task list.
+     * @param ui The UI handler.
+     * @param storage The storage handler.
+     * @throws PatrickException If description or times are missing or invalid.
+     */
+    private static void handleEvent(CommandLexer command, TaskList tasks, Ui ui, Storage storage)
+            throws PatrickException {
+        Event task = parseEvent(command);
+        ArrayList<Task> clashes = tasks.findClashes(task.getFrom(), task.getTo());
+        tasks.addTask(task);
+        ui.showTaskAddedWithUhh(task, tasks.size());
+        if (!clashes.isEmpty()) {
+            ui.showClashWarning(clashes);
+        }
+        storage.appendAdd(task);
+    }
+
+    /**
+     * Parses the argument of a deadline command, like "return book /by 2019-10-15 /every 1w".
+     *
+     * @param command The lexed command
+     * @return The new deadline, recurring if "/every" was given
+     * @throws PatrickException If the description or date is missing or invalid
+     */
+    private static Deadline parseDeadline(CommandLexer command) throws PatrickException {
+        if (command.isArgumentBlank()) {
             throw new PatrickException("Uhhh... I need a description for the deadline...");
         }
-        if (!parts[1].contains("/by")) {
+        if (command.indexOf("/by", 0) < 0) {
             throw new PatrickException("Huh? When is the deadline? Use '/by' to tell me");
         }
-        String[] deadlineParts = parts[1].split(DEADLINE_DELIMITER);
-        if (deadlineParts.length < MIN_PARTS_WITH_ARGUMENT || deadlineParts[0].trim().isEmpty()) {
+        int intervalDays = parseRecurrence(command);
+        String arguments = intervalDays > 0 ? withoutRecurrence(command.getArgument()) : command.getArgument();
+        int by = arguments.indexOf(DEADLINE_DELIMITER);
+        if (by < 0 || arguments.substring(0, by).trim().isEmpty()) {
             throw new PatrickException("Uhhh... the deadline description can't be empty Yeah");
         }
-        String description = deadlineParts[0];
-        String byString = deadlineParts[1].trim();
-
-        try {
-            LocalDate by = LocalDate.parse(byString, DateTimeFormatter.ofPattern(DATE_FORMAT));
-            Task task = new Deadline(description, by);
-            tasks.addTask(task);
-            ui.showTaskAdded(task, tasks.size());
-            storage.save(tasks.getTasks());
-        } catch (DateTimeParseException e) {
-            throw new PatrickException("Uhhh... I need the date in yyyy-MM-dd format (like 2019-10-15)");
+        int dateEnd = arguments.indexOf(DEADLINE_DELIMITER, by + DEADLINE_DELIMITER.length());
+        long day = DateCodec.parseDate(arguments, by + DEADLINE_DELIMITER.length(),
+                dateEnd < 0 ? arguments.length() : dateEnd);
+        if (day == DateCodec.NOT_A_DATE) {
+            throw new PatrickException(BAD_DATE_MESSAGE);
         }
+        String description = DescriptionPool.shared().dedup(arguments.substring(0, by));
+        LocalDate date = LocalDate.ofEpochDay(day);
+        return intervalDays > 0 ? new RecurringDeadline(description, date, intervalDays)
+                : new Deadline(description, date);
     }
 
     /**
-     * Handles the event command to create a new event task.
+     * Parses the argument of an event command, like "meeting /from 2019-10-15 1800 /to 2019-10-15 2000".
      *
-     * @param parts The split command parts.
-     * @param tasks The task list.
-     * @param ui The UI handler.
-     * @param storage The storage handler.
-     * @throws PatrickException If description or times are missing or invalid.
+     * @param command The lexed command
+     * @return The new event, recurring if "/every" was given
+     * @throws PatrickException If the description or times are missing or invalid
      */
-    private static void handleEvent(String[] parts, TaskList tasks, Ui ui, Storage storage) throws PatrickException {
-        if (parts.length < MIN_PARTS_WITH_ARGUMENT || parts[1].trim().isEmpty()) {
+    private static Event parseEvent(CommandLexer command) throws PatrickException {
+        if (command.isArgumentBlank()) {
             throw new PatrickException("Uhhh... I need a description for the event Yeah");
         }
-        if (!parts[1].contains("/from") || !parts[1].contains("/to")) {
+        if (command.indexOf("/from", 0) < 0 || command.indexOf("/to", 0) < 0) {
             throw new PatrickException("Huh? When is the event? Use '/from' and '/to'");
         }
-        String[] eventParts = parts[1].split(EVENT_DELIMITER_REGEX);
-        if (eventParts.length < MIN_EVENT_PARTS || eventParts[0].trim().isEmpty()) {
+        int intervalDays = parseRecurrence(command);
+        String arguments = intervalDays > 0 ? withoutRecurrence(command.getArgument()) : command.getArgument();
+        int from = arguments.indexOf(EVENT_FROM_DELIMITER);
+        int to = from < 0 ? -1 : arguments.indexOf(EVENT_TO_DELIMITER, from + EVENT_FROM_DELIMITER.length());
+        if (to < 0 || arguments.substring(0, from).trim().isEmpty()) {
             throw new PatrickException("Uhhh... the event description can't be empty Yeah");
         }
-        String description = eventParts[0];
-        String fromString = eventParts[1].trim();
-        String toString = eventParts[2].trim();
-
-        try {
-            DateTimeFormatter formatter = DateTimeFormatter.ofPattern(DATETIME_FORMAT);
-            LocalDateTime from = LocalDateTime.parse(fromString, formatter);
-            LocalDateTime to = LocalDateTime.parse(toString, formatter);
-            Task task = new Event(description, from, to);
-            tasks.addTask(task);
-            ui.showTaskAddedWithUhh(task, tasks.size());
-            storage.save(tasks.getTasks());
-        } catch (DateTimeParseException e) {
-            throw new PatrickException("Uhhh... I need dates in yyyy-MM-dd HHmm format (like 2019-10-15 1800)");
+        long fromMinute = DateCodec.parseDateTime(arguments, from + EVENT_FROM_DELIMITER.length(), to);
+        long toMinute = DateCodec.parseDateTime(arguments, to + EVENT_TO_DELIMITER.length(), arguments.length());
+        if (fromMinute == DateCodec.NOT_A_DATE || toMinute == DateCodec.NOT_A_DATE) {
+            throw new PatrickException(BAD_DATE_TIME_MESSAGE);
         }
+        String description = DescriptionPool.shared().dedup(arguments.substring(0, from));
+        LocalDateTime start = DateCodec.fromEpochMinute(fromMinute);
+        LocalDateTime end = DateCodec.fromEpochMinute(toMinute);
+        return intervalDays > 0 ? new RecurringEvent(description, start, end, intervalDays)
+                : new Event(description, start, end);
     }
 
     /**
      * Handles the find command to search for tasks containing a given keyword
      *
-     * @param parts The split command parts, where the second element contains the search keyword
+     * @param command The lexed command, whose argument contains the search keyword
      * @param tasks The task list to search within
      * @param ui The UI handler used to display matching tasks
      * @throws PatrickException If the search keyword is missing or empty
      */
-    private static void handleFind(String[] parts, TaskList tasks, Ui ui) throws PatrickException {
-        if (parts.length < MIN_PARTS_WITH_ARGUMENT || parts[1].trim().isEmpty()) {
+    private static void handleFind(CommandLexer command, TaskList tasks, Ui ui) throws PatrickException {
+        ui.showMatchingTasks(findMatchingTasks(command, tasks));
+    }
+
+    /**
+     * Parses the optional order of a list command, e.g. "sort:by" to list deadlines and events by date.
+     *
+     * @param command The lexed command, whose argument, if any, holds the order
+     * @return The order to list tasks in, list order if none was given
+     * @throws PatrickException If the order is not one Patrick knows
+     */
+    private static SortOrder parseSortOrder(CommandLexer command) throws PatrickException {
+        if (command.isArgumentBlank()) {
+            return SortOrder.CREATED;
+        }
+        switch (command.getArgument().trim().toLowerCase()) {
+        case SORT_PREFIX + "created":
+            return SortOrder.CREATED;
+        case SORT_PREFIX + "by":
+        case SORT_PREFIX + "date":
+            return SortOrder.DATE;
+        case SORT_PREFIX + "type":
+            return SortOrder.TYPE;
+        case SORT_PREFIX + "status":
+        case SORT_PREFIX + "done":
+            return SortOrder.STATUS;
+        default:
+            throw new PatrickException("Uhhh... I can only sort by date, type, status or created");
+        }
+    }
+
+    /**
+     * Runs a find query. Plain text matches descriptions containing it exactly, through the trigram index, and
+     * "/exact text" does the same. "/words ..." looks up whole words in the keyword index, "~words" tolerates
+     * typos in the words, "/top [k] words" ranks the tasks containing any of the words and keeps the best k,
+     * and "/query ..." is parsed as a {@link TaskQuery} of words, types, done status and dates. Only /query
+     * gives done, AND, OR and NOT a meaning, so a plain find for them looks for the text.
+     *
+     * @param command The lexed command, whose argument contains the query
+     * @param tasks The task list to search within
+     * @return The matching tasks, in list order unless ranked
+     * @throws PatrickException If the query is missing or empty
+     */
+    private static ArrayList<Task> findMatchingTasks(CommandLexer command, TaskList tasks) throws PatrickException {
+        if (command.isArgumentBlank()) {
             throw new PatrickException("Uhhh... what should I search for?");
         }
-        String keyword = parts[1].trim();
-        java.util.ArrayList<Task> matchingTasks = tasks.findTasks(keyword);
-        ui.showMatchingTasks(matchingTasks);
+        String query = command.getArgument().trim();
+        if (query.equals(EXACT_SEARCH_FLAG) || query.startsWith(EXACT_SEARCH_FLAG + " ")) {
+            String text = query.substring(EXACT_SEARCH_FLAG.length()).trim();
+            if (text.isEmpty()) {
+                throw new PatrickException("Uhhh... what should I search for?");
+            }
+            return tasks.findTasks(text, SearchMode.SUBSTRING);
+        }
+        if (query.equals(WORD_SEARCH_FLAG) || query.startsWith(WORD_SEARCH_FLAG + " ")) {
+            String words = query.substring(WORD_SEARCH_FLAG.length()).trim();
+            if (words.isEmpty()) {
+                throw new PatrickException("Uhhh... what should I search for?");
+            }
+            return tasks.findTasks(words, SearchMode.WORD);
+        }
+        if (query.equals(TOP_SEARCH_FLAG) || query.startsWith(TOP_SEARCH_FLAG + " ")) {
+            return findTopTasks(query.substring(TOP_SEARCH_FLAG.length()).trim(), tasks);
+        }
+        if (query.startsWith(FUZZY_SEARCH_PREFIX)) {
+            String words = query.substring(FUZZY_SEARCH_PREFIX.length()).trim();
+            if (words.isEmpty()) {
+                throw new PatrickException("Uhhh... what should I search for?");
+            }
+            return tasks.findTasks(words, SearchMode.FUZZY);
+        }
+        if (isStructuredQuery(query)) {
+            return tasks.query(TaskQuery.parse(query.substring(QUERY_SEARCH_FLAG.length())));
+        }
+        return tasks.findTasks(query, SearchMode.SUBSTRING);
+    }
+
+    private static boolean isStructuredQuery(String query) {
+        return query.equals(QUERY_SEARCH_FLAG) || query.startsWith(QUERY_SEARCH_FLAG + " ");
+    }
+
+    /**
+     * Parses the query of an explain command, which may repeat the "find /query" in front of it.
+     *
+     * @param command The lexed command, whose argument contains the query
+     * @return The parsed query
+     * @throws PatrickException If the query is missing or malformed
+     */
+    private static TaskQuery parseExplainedQuery(CommandLexer command) throws PatrickException {
+        if (command.isArgumentBlank()) {
+            throw new PatrickException("Uhhh... what should I explain?");
+        }
+        String query = command.getArgument().trim();
+        if (query.startsWith(EXPLAINED_COMMAND + " ")) {
+            query = query.substring(EXPLAINED_COMMAND.length()).trim();
+        }
+        if (isStructuredQuery(query)) {
+            query = query.substring(QUERY_SEARCH_FLAG.length());
+        }
+        return TaskQuery.parse(query);
+    }
+
+    /**
+     * Runs a ranked find query of the form "[k] words".
+     *
+     * @param query The query after the /top flag
+     * @param tasks The task list to search within
+     * @return At most k tasks, most relevant first
+     * @throws PatrickException If the words are missing or k is not positive
+     */
+    private static ArrayList<Task> findTopTasks(String query, TaskList tasks) throws PatrickException {
+        int space = query.indexOf(' ');
+        int limitEnd = space < 0 ? query.length() : space;
+        int limit = DEFAULT_TOP_RESULTS;
+        String words = query;
+        if (isDigits(query, 0, limitEnd)) {
+            limit = CommandLexer.parseNumber(query, 0, limitEnd);
+            if (limit == CommandLexer.NOT_A_NUMBER) {
+                throw new PatrickException("Uhhh... that's way too many tasks to show");
+            }
+            words = query.substring(limitEnd).trim();
+        }
+        if (limit == 0) {
+            throw new PatrickException("Uhhh... you want me to show you zero tasks?");
+        }
+        if (words.isEmpty()) {
+            throw new PatrickException("Uhhh... what should I search for?");
+        }
+        return tasks.findTopTasks(words, limit);
+    }
+
+    private static boolean isDigits(CharSequence text, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (text.charAt(i) < '0' || text.charAt(i) > '9') {
+                return false;
+            }
+        }
+        return start < end;
+    }
+
+    /**
+     * Handles the undo command to revert the last change. The result is saved as a full snapshot, since
+     * undoing may put tasks back in the middle of the list.
+     *
+     * @param tasks The task list.
+     * @param ui The UI handler.
+     * @param storage The storage handler.
+     * @throws PatrickException If there is nothing to undo or the tasks cannot be saved.
+     */
+    private static void handleUndo(TaskList tasks, Ui ui, Storage storage) throws PatrickException {
+        ui.showUndone(tasks.undo());
+        storage.save(tasks.snapshot());
+    }
+
+    /**
+     * Handles the redo command to apply the last undone change again.
+     *
+     * @param tasks The task list.
+     * @param ui The UI handler.
+     * @param storage The storage handler.
+     * @throws PatrickException If there is nothing to redo or the tasks cannot be saved.
+     */
+    private static void handleRedo(TaskList tasks, Ui ui, Storage storage) throws PatrickException {
+        ui.showRedone(tasks.redo());
+        storage.save(tasks.snapshot());
+    }
+
+    /**
+     * Handles the clashes command to show the events that overlap a period.
+     *
+     * @param command The lexed command, whose argument is the period
+     * @param tasks The task list to search within
+     * @param ui The UI handler used to display the events
+     * @throws PatrickException If the period is missing or invalid
+     */
+    private static void handleClashes(CommandLexer command, TaskList tasks, Ui ui) throws PatrickException {
+        LocalDateTime[] period = parseClashPeriod(command);
+        ui.showScheduledTasks(CLASHES_HEADER, tasks.findClashes(period[0], period[1]));
+    }
+
+    /**
+     * Parses the period of a clashes command.
+     *
+     * @param command The lexed command
+     * @return The start and end of the period
+     * @throws PatrickException If the period is missing, invalid or ends before it starts
+     */
+    private static LocalDateTime[] parseClashPeriod(CommandLexer command) throws PatrickException {
+        int to = command.indexOf(EVENT_TO_DELIMITER, 0);
+        if (to < 0) {
+            throw new PatrickException("Uhhh... clashes with when? Use 'clashes <start> /to <end>'");
+        }
+        CharSequence input = command.getInput();
+        long fromMinute = DateCodec.parseDateTime(input, command.getArgumentStart(), to);
+        long toMinute = DateCodec.parseDateTime(input, to + EVENT_TO_DELIMITER.length(), input.length());
+        if (fromMinute == DateCodec.NOT_A_DATE || toMinute == DateCodec.NOT_A_DATE) {
+            throw new PatrickException(BAD_DATE_TIME_MESSAGE);
+        }
+        if (toMinute < fromMinute) {
+            throw new PatrickException("Uhhh... that ends before it starts");
+        }
+        return new LocalDateTime[] {DateCodec.fromEpochMinute(fromMinute), DateCodec.fromEpochMinute(toMinute)};
+    }
+
+    /**
+     * Handles the due command to show the deadlines and events on a date.
+     *
+     * @param command The lexed command, whose argument is the date
+     * @param tasks The task list to search within
+     * @param ui The UI handler used to display the tasks
+     * @throws PatrickException If the date is missing or invalid
+     */
+    private static void handleDue(CommandLexer command, TaskList tasks, Ui ui) throws PatrickException {
+        LocalDate date = parseDueDate(command);
+        ui.showScheduledTasks(formatDueHeader(date), tasks.findDueOn(date));
+    }
+
+    /**
+     * Handles the upcoming command to show the deadlines and events in the next few days.
+     *
+     * @param command The lexed command, whose argument is the number of days
+     * @param tasks The task list to search within
+     * @param ui The UI handler used to display the tasks
+     * @throws PatrickException If the number of days is missing or negative
+     */
+    private static void handleUpcoming(CommandLexer command, TaskList tasks, Ui ui) throws PatrickException {
+        int days = parseUpcomingDays(command);
+        ui.showScheduledTasks(formatUpcomingHeader(days), tasks.findUpcoming(LocalDate.now(), days));
+    }
+
+    /**
+     * Handles the overdue command to show unfinished deadlines and events from before today.
+     *
+     * @param tasks The task list to search within
+     * @param ui The UI handler used to display the tasks
+     */
+    private static void handleOverdue(TaskList tasks, Ui ui) {
+        ui.showScheduledTasks(OVERDUE_HEADER, tasks.findOverdue(LocalDate.now()));
+    }
+
+    /**
+     * Parses the date of a due command.
+     *
+     * @param command The lexed command
+     * @return The date to look up
+     * @throws PatrickException If the date is missing or invalid
+     */
+    private static LocalDate parseDueDate(CommandLexer command) throws PatrickException {
+        if (command.isArgumentBlank()) {
+            throw new PatrickException("Uhhh... due when? Give me a date like 2019-10-15");
+        }
+        long day = DateCodec.parseDate(command.getInput(), command.getArgumentStart(), command.getArgumentEnd());
+        if (day == DateCodec.NOT_A_DATE) {
+            throw new PatrickException(BAD_DATE_MESSAGE);
+        }
+        return LocalDate.ofEpochDay(day);
+    }
+
+    /**
+     * Parses the number of days of an upcoming command.
+     *
+     * @param command The lexed command
+     * @return The number of days after today to include
+     * @throws PatrickException If the number of days is missing, not a number or negative
+     */
+    private static int parseUpcomingDays(CommandLexer command) throws PatrickException {
+        requireArgument(command, "Uhhh... how many days ahead should I look?");
+        int days = CommandLexer.parseNumber(command.getInput(), command.getArgumentStart(), command.getArgumentEnd());
+        if (days == CommandLexer.NOT_A_NUMBER) {
+            throw new PatrickException(NOT_A_NUMBER_MESSAGE);
+        }
+        if (days < 0) {
+            throw new PatrickException("Uhhh... I can't look a negative number of days ahead");
+        }
+        return days;
+    }
+
+    private static String formatDueHeader(LocalDate date) {
+        return "Uhh... here's what's on " + DateCodec.formatDisplayDate(date) + ":";
+    }
+
+    private static String formatUpcomingHeader(int days) {
+        return "Uhh... here's what's coming up in the next " + days + " days:";
     }
 
     // ========== GUI-specific methods that return strings ==========
@@ -348,124 +922,152 @@ public class Parser {
     /**
      * Handles the mark command for GUI and returns response string.
      */
-    private static String handleMarkForGui(String[] parts, TaskList tasks, Ui ui, Storage storage)
+    private static String handleMarkForGui(CommandLexer command, TaskList tasks, Ui ui, Storage storage)
             throws PatrickException {
-        validateCommandParts(parts, MIN_PARTS_WITH_ARGUMENT, "Uhhh... which task do I mark?");
-        int taskNum = parseTaskNumber(parts);
-        tasks.markTask(taskNum);
-        storage.save(tasks.getTasks());
-        return ui.formatTaskMarked(tasks.getTask(taskNum));
+        requireArgument(command, "Uhhh... which task do I mark?");
+        if (isOccurrenceSelection(command)) {
+            return ui.formatTaskMarked(setOccurrenceStatus(command, tasks, storage, true));
+        }
+        if (isBulkSelection(command)) {
+            ArrayList<Task> marked = tasks.markTasks(parseTaskSelection(command.getArgument(), tasks));
+            storage.appendMarks(marked);
+            return ui.formatTasksMarked(marked);
+        }
+        int taskNum = parseTaskNumber(command, tasks);
+        Task marked = tasks.markTask(taskNum);
+        storage.appendMark(taskNum, marked);
+        return ui.formatTaskMarked(marked);
     }
 
     /**
      * Handles the unmark command for GUI and returns response string.
      */
-    private static String handleUnmarkForGui(String[] parts, TaskList tasks, Ui ui, Storage storage)
+    private static String handleUnmarkForGui(CommandLexer command, TaskList tasks, Ui ui, Storage storage)
             throws PatrickException {
-        validateCommandParts(parts, MIN_PARTS_WITH_ARGUMENT, "Uhhh... which task do I unmark?");
-        int taskNum = parseTaskNumber(parts);
-        tasks.unmarkTask(taskNum);
-        storage.save(tasks.getTasks());
-        return ui.formatTaskUnmarked(tasks.getTask(taskNum));
+        requireArgument(command, "Uhhh... which task do I unmark?");
+        if (isOccurrenceSelection(command)) {
+            return ui.formatTaskUnmarked(setOccurrenceStatus(command, tasks, storage, false));
+        }
+        if (isBulkSelection(command)) {
+            ArrayList<Task> unmarked = tasks.unmarkTasks(parseTaskSelection(command.getArgument(), tasks));
+            storage.appendUnmarks(unmarked);
+            return ui.formatTasksUnmarked(unmarked);
+        }
+        int taskNum = parseTaskNumber(command, tasks);
+        Task unmarked = tasks.unmarkTask(taskNum);
+        storage.appendUnmark(taskNum, unmarked);
+        return ui.formatTaskUnmarked(unmarked);
     }
 
     /**
      * Handles the delete command for GUI and returns response string.
      */
-    private static String handleDeleteForGui(String[] parts, TaskList tasks, Ui ui, Storage storage)
+    private static String handleDeleteForGui(CommandLexer command, TaskList tasks, Ui ui, Storage storage)
             throws PatrickException {
-        validateCommandParts(parts, MIN_PARTS_WITH_ARGUMENT, "Uhhh... which task do you want me to delete?");
-        int taskNum = parseTaskNumber(parts);
+        requireArgument(command, "Uhhh... which task do you want me to delete?");
+        if (isBulkSelection(command)) {
+            ArrayList<Task> deleted = tasks.deleteTasks(parseDeleteSelection(command, tasks));
+            storage.appendDeletes(deleted);
+            return ui.formatTasksDeleted(deleted, tasks.size());
+        }
+        int taskNum = parseTaskNumber(command, tasks);
         Task deletedTask = tasks.deleteTask(taskNum);
-        storage.save(tasks.getTasks());
+        storage.appendDelete(taskNum, deletedTask);
         return ui.formatTaskDeleted(deletedTask, tasks.size());
     }
 
     /**
      * Handles the todo command for GUI and returns response string.
      */
-    private static String handleTodoForGui(String[] parts, TaskList tasks, Ui ui, Storage storage)
+    private static String handleTodoForGui(CommandLexer command, TaskList tasks, Ui ui, Storage storage)
             throws PatrickException {
-        if (parts.length < MIN_PARTS_WITH_ARGUMENT || parts[1].trim().isEmpty()) {
+        if (command.isArgumentBlank()) {
             throw new PatrickException("Uhhh... What is the name of the ToDo task again?");
         }
-        String description = parts[1];
+        String description = DescriptionPool.shared().dedup(command.getArgument());
         Task task = new ToDo(description);
         tasks.addTask(task);
-        storage.save(tasks.getTasks());
+        storage.appendAdd(task);
         return ui.formatTaskAdded(task, tasks.size());
     }
 
     /**
      * Handles the deadline command for GUI and returns response string.
      */
-    private static String handleDeadlineForGui(String[] parts, TaskList tasks, Ui ui, Storage storage)
+    private static String handleDeadlineForGui(CommandLexer command, TaskList tasks, Ui ui, Storage storage)
             throws PatrickException {
-        if (parts.length < MIN_PARTS_WITH_ARGUMENT || parts[1].trim().isEmpty()) {
-            throw new PatrickException("Uhhh... I need a description for the deadline...");
-        }
-        if (!parts[1].contains("/by")) {
-            throw new PatrickException("Huh? When is the deadline? Use '/by' to tell me");
-        }
-        String[] deadlineParts = parts[1].split(DEADLINE_DELIMITER);
-        if (deadlineParts.length < MIN_PARTS_WITH_ARGUMENT || deadlineParts[0].trim().isEmpty()) {
-            throw new PatrickException("Uhhh... the deadline description can't be empty Yeah");
-        }
-        String description = deadlineParts[0];
-        String byString = deadlineParts[1].trim();
-
-        try {
-            LocalDate by = LocalDate.parse(byString, DateTimeFormatter.ofPattern(DATE_FORMAT));
-            Task task = new Deadline(description, by);
-            tasks.addTask(task);
-            storage.save(tasks.getTasks());
-            return ui.formatTaskAdded(task, tasks.size());
-        } catch (DateTimeParseException e) {
-            throw new PatrickException("Uhhh... I need the date in yyyy-MM-dd format (like 2019-10-15)");
-        }
+        Task task = parseDeadline(command);
+        tasks.addTask(task);
+        storage.appendAdd(task);
+        return ui.formatTaskAdded(task, tasks.size());
     }
 
     /**
      * Handles the event command for GUI and returns response string.
      */
-    private static String handleEventForGui(String[] parts, TaskList tasks, Ui ui, Storage storage)
+    private static String handleEventForGui(CommandLexer command, TaskList tasks, Ui ui, Storage storage)
             throws PatrickException {
-        if (parts.length < MIN_PARTS_WITH_ARGUMENT || parts[1].trim().isEmpty()) {
-            throw new PatrickException("Uhhh... I need a description for the event Yeah");
-        }
-        if (!parts[1].contains("/from") || !parts[1].contains("/to")) {
-            throw new PatrickException("Huh? When is the event? Use '/from' and '/to'");
-        }
-        String[] eventParts = parts[1].split(EVENT_DELIMITER_REGEX);
-        if (eventParts.length < MIN_EVENT_PARTS || eventParts[0].trim().isEmpty()) {
-            throw new PatrickException("Uhhh... the event description can't be empty Yeah");
-        }
-        String description = eventParts[0];
-        String fromString = eventParts[1].trim();
-        String toString = eventParts[2].trim();
+        Event task = parseEvent(command);
+        ArrayList<Task> clashes = tasks.findClashes(task.getFrom(), task.getTo());
+        tasks.addTask(task);
+        storage.appendAdd(task);
+        String response = ui.formatTaskAdded(task, tasks.size());
+        return clashes.isEmpty() ? response : response + "\n" + ui.formatClashWarning(clashes);
+    }
 
-        try {
-            DateTimeFormatter formatter = DateTimeFormatter.ofPattern(DATETIME_FORMAT);
-            LocalDateTime from = LocalDateTime.parse(fromString, formatter);
-            LocalDateTime to = LocalDateTime.parse(toString, formatter);
-            Task task = new Event(description, from, to);
-            tasks.addTask(task);
-            storage.save(tasks.getTasks());
-            return ui.formatTaskAdded(task, tasks.size());
-        } catch (DateTimeParseException e) {
-            throw new PatrickException("Uhhh... I need dates in yyyy-MM-dd HHmm format (like 2019-10-15 1800)");
-        }
+    /**
+     * Handles the undo command for GUI and returns response string.
+     */
+    private static String handleUndoForGui(TaskList tasks, Ui ui, Storage storage) throws PatrickException {
+        String change = tasks.undo();
+        storage.save(tasks.snapshot());
+        return ui.formatUndone(change);
+    }
+
+    /**
+     * Handles the redo command for GUI and returns response string.
+     */
+    private static String handleRedoForGui(TaskList tasks, Ui ui, Storage storage) throws PatrickException {
+        String change = tasks.redo();
+        storage.save(tasks.snapshot());
+        return ui.formatRedone(change);
+    }
+
+    /**
+     * Handles the clashes command for GUI and returns response string.
+     */
+    private static String handleClashesForGui(CommandLexer command, TaskList tasks, Ui ui) throws PatrickException {
+        LocalDateTime[] period = parseClashPeriod(command);
+        return ui.formatScheduledTasks(CLASHES_HEADER, tasks.findClashes(period[0], period[1]));
+    }
+
+    /**
+     * Handles the due command for GUI and returns response string.
+     */
+    private static String handleDueForGui(CommandLexer command, TaskList tasks, Ui ui) throws PatrickException {
+        LocalDate date = parseDueDate(command);
+        return ui.formatScheduledTasks(formatDueHeader(date), tasks.findDueOn(date));
+    }
+
+    /**
+     * Handles the upcoming command for GUI and returns response string.
+     */
+    private static String handleUpcomingForGui(CommandLexer command, TaskList tasks, Ui ui) throws PatrickException {
+        int days = parseUpcomingDays(command);
+        return ui.formatScheduledTasks(formatUpcomingHeader(days), tasks.findUpcoming(LocalDate.now(), days));
+    }
+
+    /**
+     * Handles the overdue command for GUI and returns response string.
+     */
+    private static String handleOverdueForGui(TaskList tasks, Ui ui) {
+        return ui.formatScheduledTasks(OVERDUE_HEADER, tasks.findOverdue(LocalDate.now()));
     }
 
     /**
      * Handles the find command for GUI and returns response string.
      */
-    private static String handleFindForGui(String[] parts, TaskList tasks, Ui ui) throws PatrickException {
-        if (parts.length < MIN_PARTS_WITH_ARGUMENT || parts[1].trim().isEmpty()) {
-            throw new PatrickException("Uhhh... what should I search for?");
-        }
-        String keyword = parts[1].trim();
-        java.util.ArrayList<Task> matchingTasks = tasks.findTasks(keyword);
-        return ui.formatMatchingTasks(matchingTasks);
+    private static String handleFindForGui(CommandLexer command, TaskList tasks, Ui ui) throws PatrickException {
+        return ui.formatMatchingTasks(findMatchingTasks(command, tasks));
     }
 }
@@ -1,12 +1,42 @@
 package patrick;
 
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.function.Consumer;
+
 /**
  * PatrickStar chatbot that manages tasks
  */
 public class PatrickStar {
+    // System properties selecting how eagerly tasks are written to disk
+    private static final String DURABILITY_PROPERTY = "patrick.durability";
+    private static final String FLUSH_DELAY_PROPERTY = "patrick.flushDelayMs";
+    private static final String DEFAULT_DURABILITY = "sync";
+    private static final String DEFAULT_FLUSH_DELAY_MILLIS = "200";
+    // System property setting how many minutes before a deadline or event its reminder fires
+    private static final String REMINDER_LEAD_PROPERTY = "patrick.reminderLeadMinutes";
+    private static final String DEFAULT_REMINDER_LEAD_MINUTES = "15";
+    // System property setting how many commands of a batch run between saves; 0 saves only at the end
+    private static final String CHECKPOINT_PROPERTY = "patrick.batchCheckpoint";
+    private static final String DEFAULT_CHECKPOINT_INTERVAL = "0";
+    // Runs the commands of a file, or of standard input if none is given, as one batch
+    private static final String BATCH_FLAG = "--batch";
+    private static final int OUTPUT_BUFFER_SIZE = 1 << 16;
+
     private Storage storage;
     private TaskList tasks;
     private Ui ui;
+    private ReminderScheduler reminders;
 
     /**
      * Constructor: Creates a new PatrickStar instance and initializes the UI, storage, and task list
@@ -17,24 +47,79 @@ public class PatrickStar {
         assert filePath != null : "File path cannot be null";
 
         ui = new Ui();
-        storage = new Storage(filePath);
+        storage = createStorage(filePath);
         try {
             tasks = new TaskList(storage.load());
         } catch (PatrickException e) {
             ui.showLoadingError();
             tasks = new TaskList();
         }
+        storage.attach(tasks);
+        reminders = createReminders();
+        tasks.addIndex(reminders);
 
         assert ui != null : "UI should be initialized";
         assert storage != null : "Storage should be initialized";
         assert tasks != null : "TaskList should be initialized";
     }
 
+    /**
+     * Creates the reminder scheduler using the lead time given as a system property.
+     *
+     * @return The reminder scheduler, not started yet
+     */
+    private ReminderScheduler createReminders() {
+        try {
+            long leadMinutes = Long.parseLong(
+                    System.getProperty(REMINDER_LEAD_PROPERTY, DEFAULT_REMINDER_LEAD_MINUTES));
+            if (leadMinutes >= 0) {
+                return new ReminderScheduler(Duration.ofMinutes(leadMinutes), Clock.systemDefaultZone());
+            }
+        } catch (NumberFormatException e) {
+            // Falls back to the default below
+        }
+        ui.showError("Uhhh... I don't get that reminder setting, so I'll remind you "
+                + DEFAULT_REMINDER_LEAD_MINUTES + " minutes before.");
+        return new ReminderScheduler(Duration.ofMinutes(Long.parseLong(DEFAULT_REMINDER_LEAD_MINUTES)),
+                Clock.systemDefaultZone());
+    }
+
+    /**
+     * Starts reminding the user of deadlines and events that are coming up.
+     *
+     * @param onReminder Receives each reminder as a message, from a background thread
+     */
+    public void startReminders(Consumer<String> onReminder) {
+        reminders.setListener(task -> onReminder.accept(ui.formatReminder(task)));
+        reminders.start();
+    }
+
+    /**
+     * Creates the storage using the durability settings given as system properties.
+     *
+     * @param filePath The file path to store and load tasks from
+     * @return The storage handler
+     */
+    private Storage createStorage(String filePath) {
+        try {
+            Durability durability = Durability.fromString(
+                    System.getProperty(DURABILITY_PROPERTY, DEFAULT_DURABILITY));
+            long flushDelayMillis = Long.parseLong(
+                    System.getProperty(FLUSH_DELAY_PROPERTY, DEFAULT_FLUSH_DELAY_MILLIS));
+            return new Storage(filePath, durability, flushDelayMillis);
+        } catch (PatrickException | NumberFormatException e) {
+            ui.showError("Uhhh... I don't get those storage settings, so I'll save everything right away.");
+            return new Storage(filePath);
+        }
+    }
+
     /**
      * Runs the main loop of the chatbot, processing user commands until user exits
      */
     public void run() {
         ui.showWelcome();
+        reminders.setListener(ui::showReminder);
+        reminders.start();
         boolean isExit = false;
         while (!isExit) {
             try {
@@ -45,9 +130,107 @@ public class PatrickStar {
             }
         }
         ui.showGoodbye();
+        reminders.stop();
+        try {
+            storage.close();
+        } catch (PatrickException e) {
+            ui.showError(e.getMessage());
+        }
         ui.close();
     }
 
+    /**
+     * Runs a script of commands as one unit of work. Commands are read and run one at a time as the script
+     * streams in, but the tasks are only saved at checkpoints and once at the end, rather than after every
+     * command, and one summary is shown at the end instead of a welcome and goodbye. The script stops early
+     * at bye. Blank lines are skipped.
+     *
+     * @param script The commands, one per line
+     */
+    public void runBatch(BufferedReader script) {
+        int checkpointInterval = readCheckpointInterval();
+        int commandCount = 0;
+        int failureCount = 0;
+        storage.beginBatch();
+        try {
+            boolean isExit = false;
+            String line;
+            while (!isExit && (line = script.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                commandCount++;
+                try {
+                    isExit = Parser.parseCommand(line, tasks, ui, storage);
+                } catch (PatrickException e) {
+                    ui.showError(e.getMessage());
+                    failureCount++;
+                } catch (RuntimeException e) {
+                    // A bug in one command must not stop the rest of the script or skip the final save
+                    ui.showError("Uhhh... something broke while running \"" + line + "\": " + e);
+                    failureCount++;
+                }
+                if (checkpointInterval > 0 && commandCount % checkpointInterval == 0) {
+                    checkpoint();
+                }
+            }
+        } catch (IOException e) {
+            ui.showError("Uhhh... I couldn't read the rest of the commands.");
+        } finally {
+            endBatch();
+            ui.showBatchSummary(commandCount, failureCount, tasks.size());
+            ui.close();
+        }
+    }
+
+    /**
+     * Saves the tasks at the end of a batch and closes the storage. The storage is closed even when the
+     * last save fails, so the background writer never outlives the batch.
+     */
+    private void endBatch() {
+        try {
+            storage.endBatch();
+        } catch (PatrickException e) {
+            ui.showError(e.getMessage());
+        } finally {
+            try {
+                storage.close();
+            } catch (PatrickException e) {
+                ui.showError(e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Saves the tasks partway through a batch. A failure is shown and the batch goes on, since the next
+     * checkpoint saves the same changes again.
+     */
+    private void checkpoint() {
+        try {
+            storage.checkpoint();
+        } catch (PatrickException e) {
+            ui.showError(e.getMessage());
+        }
+    }
+
+    /**
+     * Reads how many commands of a batch run between saves from a system property.
+     *
+     * @return The number of commands, or 0 to save only at the end
+     */
+    private int readCheckpointInterval() {
+        try {
+            int interval = Integer.parseInt(System.getProperty(CHECKPOINT_PROPERTY, DEFAULT_CHECKPOINT_INTERVAL));
+            if (interval >= 0) {
+                return interval;
+            }
+        } catch (NumberFormatException e) {
+            // Falls back to the default below
+        }
+        ui.showError("Uhhh... I don't get that checkpoint setting, so I'll save once at the end.");
+        return Integer.parseInt(DEFAULT_CHECKPOINT_INTERVAL);
+    }
+
     /**
      * Generates a welcome message for the GUI.
      *
@@ -67,7 +250,28 @@ public class PatrickStar {
         return Parser.parseCommandForGui(input, tasks, ui, storage);
     }
 
+    /**
+     * Starts the chatbot on the console, or runs a batch of commands with "--batch [file]".
+     *
+     * @param args The command line arguments
+     */
     public static void main(String[] args) {
-        new PatrickStar("./data/Patrick.txt").run();
+        if (args.length == 0 || !args[0].equals(BATCH_FLAG)) {
+            new PatrickStar("./data/Patrick.txt").run();
+            return;
+        }
+        // Responses are only flushed once the batch is done, not after every line
+        PrintStream out = new PrintStream(new BufferedOutputStream(new FileOutputStream(FileDescriptor.out),
+                OUTPUT_BUFFER_SIZE), false);
+        System.setOut(out);
+        PatrickStar patrick = new PatrickStar("./data/Patrick.txt");
+        try (BufferedReader script = args.length > 1
+                ? Files.newBufferedReader(Paths.get(args[1]), StandardCharsets.UTF_8)
+                : new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8))) {
+            patrick.runBatch(script);
+        } catch (IOException e) {
+            System.out.println("Uhhh... I couldn't open those commands.");
+        }
+        out.flush();
     }
 }
@@ -0,0 +1,273 @@
+package patrick;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import patrick.task.Deadline;
+import patrick.task.Event;
+import patrick.task.RecurringTask;
+import patrick.task.Task;
+
+/**
+ * Turns a {@link TaskQuery} into a plan over the indexes of a task list.
+ *
+ * <p>Every condition an index can answer is an access path: a word uses its posting set in the keyword index,
+ * a date range the date index, and the done status either side of the status index. The date conditions of a
+ * conjunction are first merged into one range. A conjunction uses the cheapest path among its parts, since
+ * every part must hold anyway, and a disjunction uses the union of the paths of its parts when each of them
+ * has one. The planner estimates each path from the sizes of the index entries and picks the one expected to
+ * return the fewest candidates, falling back to a full scan when no index applies. Every candidate is then
+ * checked against the whole query, so the choice of path only affects the cost, never the result.</p>
+ */
+public class QueryPlanner {
+    private final KeywordIndex keywordIndex;
+    private final TemporalIndex temporalIndex;
+    private final StatusIndex statusIndex;
+    private final Supplier<List<Task>> allTasks;
+    private final int taskCount;
+
+    /**
+     * A way of fetching a superset of the matching tasks, with an estimate of how many it returns.
+     */
+    private static class AccessPath {
+        private final String description;
+        private final int estimate;
+        private final Supplier<Collection<Task>> candidates;
+
+        private AccessPath(String description, int estimate, Supplier<Collection<Task>> candidates) {
+            this.description = description;
+            this.estimate = estimate;
+            this.candidates = candidates;
+        }
+    }
+
+    /**
+     * A query together with the access path chosen for it.
+     */
+    public class Plan {
+        private final TaskQuery query;
+        private final AccessPath path;
+
+        private Plan(TaskQuery query, AccessPath path) {
+            this.query = query;
+            this.path = path;
+        }
+
+        /**
+         * Fetches the candidates from the chosen access path and keeps those matching the query.
+         *
+         * @return The matching tasks in the order the access path returns them
+         */
+        public List<Task> execute() {
+            List<Task> result = new ArrayList<>();
+            for (Task task : path.candidates.get()) {
+                if (matches(query.getRoot(), task)) {
+                    result.add(task);
+                }
+            }
+            return result;
+        }
+
+        /**
+         * Describes the plan for the explain command.
+         *
+         * @return The query, the access path, the filter and the estimated cost, one per line
+         */
+        public List<String> describe() {
+            List<String> lines = new ArrayList<>();
+            lines.add("Query: " + query);
+            lines.add(String.format("Access path: %s (~%,d tasks)", path.description, path.estimate));
+            lines.add("Filter: each candidate is checked against the whole query");
+            lines.add(String.format("Cost: ~%,d of %,d tasks checked", path.estimate, taskCount));
+            return lines;
+        }
+    }
+
+    /**
+     * Creates a planner over the indexes of a task list.
+     *
+     * @param keywordIndex The keyword index of the list
+     * @param temporalIndex The date index of the list
+     * @param statusIndex The status index of the list
+     * @param allTasks Supplies every task in list order, for full scans
+     * @param taskCount The number of tasks in the list
+     */
+    public QueryPlanner(KeywordIndex keywordIndex, TemporalIndex temporalIndex, StatusIndex statusIndex,
+            Supplier<List<Task>> allTasks, int taskCount) {
+        this.keywordIndex = keywordIndex;
+        this.temporalIndex = temporalIndex;
+        this.statusIndex = statusIndex;
+        this.allTasks = allTasks;
+        this.taskCount = taskCount;
+    }
+
+    /**
+     * Chooses the cheapest access path for a query.
+     *
+     * @param query The query
+     * @return The plan
+     */
+    public Plan plan(TaskQuery query) {
+        AccessPath path = pathFor(query.getRoot());
+        if (path == null || path.estimate >= taskCount) {
+            path = new AccessPath("full scan", taskCount, allTasks::get);
+        }
+        return new Plan(query, path);
+    }
+
+    /**
+     * Finds the cheapest access path for a condition.
+     *
+     * @return The path, or null if only a full scan can answer the condition
+     */
+    private AccessPath pathFor(TaskQuery.Node node) {
+        if (node instanceof TaskQuery.Word) {
+            String word = ((TaskQuery.Word) node).getWord();
+            Set<Task> tasks = keywordIndex.tasksWith(word);
+            return new AccessPath("keyword index for '" + word + "'", tasks.size(), () -> tasks);
+        } else if (node instanceof TaskQuery.IsDone) {
+            return statusPath(true);
+        } else if (node instanceof TaskQuery.Not && ((TaskQuery.Not) node).getInner() instanceof TaskQuery.IsDone) {
+            return statusPath(false);
+        } else if (node instanceof TaskQuery.DateRange) {
+            TaskQuery.DateRange range = (TaskQuery.DateRange) node;
+            return datePath(range.getFrom(), range.getTo());
+        } else if (node instanceof TaskQuery.And) {
+            return cheapestPath(((TaskQuery.And) node).getParts());
+        } else if (node instanceof TaskQuery.Or) {
+            return unionPath(((TaskQuery.Or) node).getParts());
+        }
+        return null;
+    }
+
+    private AccessPath statusPath(boolean isDone) {
+        Set<Task> tasks = statusIndex.tasksWithStatus(isDone);
+        return new AccessPath("status index for " + (isDone ? "done" : "pending") + " tasks", tasks.size(),
+                () -> tasks);
+    }
+
+    private AccessPath datePath(LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) {
+            return new AccessPath("empty date range", 0, Collections::emptyList);
+        }
+        String description = "date index from " + (from.equals(LocalDate.MIN) ? "the start" : from)
+                + " to " + (to.equals(LocalDate.MAX) ? "the end" : to);
+        return new AccessPath(description, temporalIndex.countBetween(from, to),
+                () -> temporalIndex.findBetween(from, to));
+    }
+
+    private AccessPath cheapestPath(List<TaskQuery.Node> parts) {
+        // All date conditions must hold, so together they are one range from the latest start to the earliest end
+        LocalDate from = LocalDate.MIN;
+        LocalDate to = LocalDate.MAX;
+        boolean hasDateRange = false;
+        AccessPath cheapest = null;
+        for (TaskQuery.Node part : parts) {
+            if (part instanceof TaskQuery.DateRange) {
+                TaskQuery.DateRange range = (TaskQuery.DateRange) part;
+                from = from.isAfter(range.getFrom()) ? from : range.getFrom();
+                to = to.isBefore(range.getTo()) ? to : range.getTo();
+                hasDateRange = true;
+                continue;
+            }
+            cheapest = cheaper(cheapest, pathFor(part));
+        }
+        return hasDateRange ? cheaper(cheapest, datePath(from, to)) : cheapest;
+    }
+
+    private static AccessPath cheaper(AccessPath first, AccessPath second) {
+        if (first == null) {
+            return second;
+        }
+        return second == null || first.estimate <= second.estimate ? first : second;
+    }
+
+    private AccessPath unionPath(List<TaskQuery.Node> parts) {
+        List<AccessPath> paths = new ArrayList<>();
+        List<String> descriptions = new ArrayList<>();
+        int estimate = 0;
+        for (TaskQuery.Node part : parts) {
+            AccessPath path = pathFor(part);
+            if (path == null) {
+                return null;
+            }
+            paths.add(path);
+            descriptions.add(path.description);
+            estimate += path.estimate;
+        }
+        return new AccessPath("union of " + String.join(", ", descriptions), estimate, () -> {
+            Set<Task> union = new LinkedHashSet<>();
+            for (AccessPath path : paths) {
+                union.addAll(path.candidates.get());
+            }
+            return union;
+        });
+    }
+
+    /**
+     * Checks whether a condition holds for a task.
+     */
+    private boolean matches(TaskQuery.Node node, Task task) {
+        if (node instanceof TaskQuery.Word) {
+            return keywordIndex.tasksWith(((TaskQuery.Word) node).getWord()).contains(task);
+        } else if (node instanceof TaskQuery.IsDone) {
+            return task.isDone();
+        } else if (node instanceof TaskQuery.TypeIs) {
+            return typeOf(task) == ((TaskQuery.TypeIs) node).getType();
+        } else if (node instanceof TaskQuery.DateRange) {
+            TaskQuery.DateRange range = (TaskQuery.DateRange) node;
+            if (task instanceof RecurringTask) {
+                return ((RecurringTask) task).getRecurrence().hasOccurrenceBetween(range.getFrom(), range.getTo());
+            }
+            LocalDate date = TemporalIndex.dateOf(task);
+            return date != null && !date.isBefore(range.getFrom()) && !date.isAfter(range.getTo());
+        } else if (node instanceof TaskQuery.Not) {
+            return !matches(((TaskQuery.Not) node).getInner(), task);
+        } else if (node instanceof TaskQuery.And) {
+            return matchesAll(((TaskQuery.And) node).getParts(), task);
+        }
+        assert node instanceof TaskQuery.Or : "Unknown query condition";
+        for (TaskQuery.Node part : ((TaskQuery.Or) node).getParts()) {
+            if (matches(part, task)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks whether every part of a conjunction holds for a task. For a recurring task the date conditions
+     * must all hold for the same occurrence, which is also what the merged range of the date path finds.
+     */
+    private boolean matchesAll(List<TaskQuery.Node> parts, Task task) {
+        LocalDate from = LocalDate.MIN;
+        LocalDate to = LocalDate.MAX;
+        boolean isRecurring = task instanceof RecurringTask;
+        for (TaskQuery.Node part : parts) {
+            if (isRecurring && part instanceof TaskQuery.DateRange) {
+                TaskQuery.DateRange range = (TaskQuery.DateRange) part;
+                from = from.isAfter(range.getFrom()) ? from : range.getFrom();
+                to = to.isBefore(range.getTo()) ? to : range.getTo();
+            } else if (!matches(part, task)) {
+                return false;
+            }
+        }
+        return !isRecurring || !from.isAfter(to)
+                && ((RecurringTask) task).getRecurrence().hasOccurrenceBetween(from, to);
+    }
+
+    private static char typeOf(Task task) {
+        if (task instanceof Deadline) {
+            return 'D';
+        } else if (task instanceof Event) {
+            return 'E';
+        }
+        return 'T';
+    }
+}
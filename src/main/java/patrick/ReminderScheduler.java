@@ -0,0 +1,296 @@
+package patrick;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import patrick.task.Deadline;
+import patrick.task.Event;
+import patrick.task.Recurrence;
+import patrick.task.RecurringTask;
+import patrick.task.Task;
+
+/**
+ * Reminds the user shortly before a deadline is due or an event starts.
+ *
+ * <p>Pending reminders sit in a hierarchical timing wheel with one-second ticks. Each level has 64 slots,
+ * and a slot on level l holds the reminders due within one 64^l-tick span, so five levels reach about
+ * 34 years ahead. Every slot is a doubly linked list and every task maps to its reminder, so scheduling a
+ * reminder and cancelling it when its task is deleted, marked or undone both cost O(1), however many
+ * reminders are pending. A single background thread advances the wheel once a tick: it fires the level 0
+ * slot of that tick and, whenever a higher level's span starts, moves that level's slot one level down.</p>
+ *
+ * <p>Deadlines are due at the start of their day and events when they start. Tasks that are already due
+ * are left to the overdue command. A recurring task only ever has its next pending occurrence scheduled;
+ * when that fires, the one after it is scheduled.</p>
+ *
+ * <p>The scheduler is a {@link TaskIndex}, so the task list keeps it up to date under its write lock. Its
+ * own state is guarded by this, since the wheel is advanced from the background thread.</p>
+ */
+public class ReminderScheduler implements TaskIndex {
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+    private static final int LEVELS = 5;
+    // Reminders further ahead than the wheel reaches are parked in its last slot and placed again later
+    private static final long MAX_DELTA = (1L << (SLOT_BITS * LEVELS)) - 1;
+    private static final long TICK_MILLIS = 1000;
+
+    private final Clock clock;
+    private final long leadMillis;
+    private final Entry[][] wheels = new Entry[LEVELS][SLOTS];
+    private final IdentityHashMap<Task, Entry> entries = new IdentityHashMap<>();
+    // The last tick the wheel was advanced to
+    private long currentTick;
+    private Consumer<Task> listener = task -> { };
+    private ScheduledExecutorService ticker;
+
+    /**
+     * A scheduled reminder, linked into the list of its slot.
+     */
+    private static class Entry {
+        private final Task task;
+        private final LocalDate occurrence;
+        private final long tick;
+        private Entry previous = this;
+        private Entry next = this;
+
+        private Entry(Task task, LocalDate occurrence, long tick) {
+            this.task = task;
+            this.occurrence = occurrence;
+            this.tick = tick;
+        }
+
+        private void unlink() {
+            previous.next = next;
+            next.previous = previous;
+            previous = this;
+            next = this;
+        }
+    }
+
+    /**
+     * Creates a scheduler that reminds the user the given time before a task is due.
+     *
+     * @param lead How long before a task is due its reminder fires
+     * @param clock The clock to read the time from
+     */
+    public ReminderScheduler(Duration lead, Clock clock) {
+        assert !lead.isNegative() : "Reminder lead cannot be negative";
+        this.clock = clock;
+        this.leadMillis = lead.toMillis();
+        this.currentTick = clock.millis() / TICK_MILLIS;
+        for (Entry[] level : wheels) {
+            for (int slot = 0; slot < SLOTS; slot++) {
+                level[slot] = new Entry(null, null, 0);
+            }
+        }
+    }
+
+    /**
+     * Sets what is done with each reminder as it fires, e.g. printing it.
+     *
+     * @param listener Receives the task, or the occurrence of a recurring task, that is coming up
+     */
+    public synchronized void setListener(Consumer<Task> listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Starts advancing the wheel once a tick on a background thread.
+     */
+    public synchronized void start() {
+        if (ticker != null) {
+            return;
+        }
+        ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "patrick-reminders");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ticker.scheduleAtFixedRate(this::fireDueReminders, TICK_MILLIS, TICK_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops the background thread. Reminders stay scheduled but no longer fire.
+     */
+    public synchronized void stop() {
+        if (ticker != null) {
+            ticker.shutdownNow();
+            ticker = null;
+        }
+    }
+
+    /**
+     * Advances the wheel to the current time and fires every reminder that came due on the way, including
+     * ticks missed while the computer was asleep. The listener is called after the wheel is released, so a
+     * slow listener never holds up changes to the task list.
+     */
+    public void fireDueReminders() {
+        List<Task> due = new ArrayList<>();
+        Consumer<Task> target;
+        synchronized (this) {
+            long targetTick = clock.millis() / TICK_MILLIS;
+            while (currentTick < targetTick) {
+                currentTick++;
+                cascade();
+                Entry head = wheels[0][(int) (currentTick & SLOT_MASK)];
+                while (head.next != head) {
+                    Entry entry = head.next;
+                    entry.unlink();
+                    entries.remove(entry.task);
+                    due.add(fire(entry));
+                }
+            }
+            target = listener;
+        }
+        for (Task task : due) {
+            target.accept(task);
+        }
+    }
+
+    /**
+     * Moves the slots of the higher levels whose span starts at the current tick one level down, highest
+     * level first so their reminders can fall through several levels in one tick.
+     */
+    private void cascade() {
+        for (int level = LEVELS - 1; level > 0; level--) {
+            int shift = SLOT_BITS * level;
+            if ((currentTick & ((1L << shift) - 1)) != 0) {
+                continue;
+            }
+            Entry head = wheels[level][(int) ((currentTick >>> shift) & SLOT_MASK)];
+            while (head.next != head) {
+                Entry entry = head.next;
+                entry.unlink();
+                link(entry);
+            }
+        }
+    }
+
+    /**
+     * Returns the task a fired reminder is about, scheduling the next occurrence of a recurring task.
+     */
+    private Task fire(Entry entry) {
+        if (entry.occurrence == null) {
+            return entry.task;
+        }
+        scheduleOccurrence(entry.task, entry.occurrence.plusDays(1));
+        return ((RecurringTask) entry.task).occurrenceOn(entry.occurrence);
+    }
+
+    /**
+     * Links an entry into the slot its tick falls in, given how far ahead of the current tick it is.
+     */
+    private void link(Entry entry) {
+        long delta = Math.max(0, entry.tick - currentTick);
+        long tick = entry.tick;
+        if (delta > MAX_DELTA) {
+            delta = MAX_DELTA;
+            tick = currentTick + MAX_DELTA;
+        }
+        int level = delta == 0 ? 0 : (Long.SIZE - 1 - Long.numberOfLeadingZeros(delta)) / SLOT_BITS;
+        Entry head = wheels[level][(int) ((tick >>> (SLOT_BITS * level)) & SLOT_MASK)];
+        entry.previous = head.previous;
+        entry.next = head;
+        head.previous.next = entry;
+        head.previous = entry;
+    }
+
+    private void schedule(Task task, LocalDate occurrence, LocalDateTime dueAt) {
+        long dueMillis = dueAt.atZone(clock.getZone()).toInstant().toEpochMilli();
+        // The reminder is due in a later tick than the one the wheel has reached, at the earliest the next one
+        long tick = Math.max(currentTick + 1, (dueMillis - leadMillis) / TICK_MILLIS);
+        Entry entry = new Entry(task, occurrence, tick);
+        entries.put(task, entry);
+        link(entry);
+    }
+
+    /**
+     * Schedules the first occurrence of a recurring task on or after the given date that is pending and not
+     * due yet.
+     */
+    private void scheduleOccurrence(Task task, LocalDate from) {
+        RecurringTask recurring = (RecurringTask) task;
+        Recurrence recurrence = recurring.getRecurrence();
+        LocalDateTime now = LocalDateTime.now(clock);
+        LocalDate start = from.isAfter(now.toLocalDate()) ? from : now.toLocalDate();
+        for (LocalDate date : recurrence.occurrencesBetween(start, LocalDate.MAX)) {
+            LocalDateTime dueAt = dueAt(recurring.occurrenceOn(date));
+            if (dueAt.isAfter(now) && !recurrence.isDoneOn(date)) {
+                schedule(task, date, dueAt);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Returns when a task is due, or null for tasks without a date.
+     */
+    private static LocalDateTime dueAt(Task task) {
+        if (task instanceof Deadline) {
+            return ((Deadline) task).getBy().atStartOfDay();
+        } else if (task instanceof Event) {
+            return ((Event) task).getFrom();
+        }
+        return null;
+    }
+
+    @Override
+    public synchronized void add(Task task) {
+        if (task instanceof RecurringTask) {
+            scheduleOccurrence(task, LocalDate.MIN);
+            return;
+        }
+        LocalDateTime dueAt = dueAt(task);
+        if (dueAt == null || task.isDone() || !dueAt.isAfter(LocalDateTime.now(clock))) {
+            return;
+        }
+        schedule(task, null, dueAt);
+    }
+
+    @Override
+    public synchronized void remove(Task task) {
+        Entry entry = entries.remove(task);
+        if (entry != null) {
+            entry.unlink();
+        }
+    }
+
+    @Override
+    public synchronized void updateStatus(Task task) {
+        // Marking a recurring task can move its next pending occurrence, so it is scheduled again too
+        remove(task);
+        add(task);
+    }
+
+    /**
+     * Counts the reminders that have not fired yet.
+     *
+     * @return The number of scheduled reminders
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    @Override
+    public synchronized void clear() {
+        for (Entry entry : entries.values()) {
+            entry.unlink();
+        }
+        entries.clear();
+    }
+
+    @Override
+    public synchronized String describe() {
+        return String.format("Reminder wheel: %,d reminders scheduled", entries.size());
+    }
+}
@@ -0,0 +1,15 @@
+package patrick;
+
+/**
+ * Selects how the find command matches a query against task descriptions.
+ */
+public enum SearchMode {
+    /** Matches tasks whose descriptions contain every word of the query, ignoring case. */
+    WORD,
+
+    /** Matches tasks whose descriptions contain the query exactly, as String.contains does. */
+    SUBSTRING,
+
+    /** Matches tasks whose descriptions contain a word within a few typos of every word of the query. */
+    FUZZY
+}
@@ -0,0 +1,18 @@
+package patrick;
+
+/**
+ * Selects the order in which the list command shows tasks.
+ */
+public enum SortOrder {
+    /** Shows tasks in the order they were created, which is the order of the list. */
+    CREATED,
+
+    /** Shows deadlines by due date and events by start date, then tasks without a date. */
+    DATE,
+
+    /** Shows todos, then deadlines, then events. */
+    TYPE,
+
+    /** Shows the tasks still pending, then the ones that are done. */
+    STATUS
+}
@@ -0,0 +1,123 @@
+package patrick;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.TreeMap;
+
+import patrick.task.Deadline;
+import patrick.task.Event;
+import patrick.task.RecurringTask;
+import patrick.task.Task;
+
+/**
+ * Keeps the tasks of a list sorted in one {@link SortOrder}, so listing them in that order never sorts.
+ *
+ * <p>Tasks are kept in a tree keyed by their sort key, with the task ID breaking ties so tasks with equal
+ * keys stay in list order. The key each task was filed under is remembered, so a task whose key changed,
+ * e.g. one that was just marked as done, can still be found and filed again in O(log n). Listing the view
+ * only walks the tree.</p>
+ */
+public class SortedView implements TaskIndex {
+    private final SortOrder order;
+    private final TreeMap<SortKey, Task> tasks = new TreeMap<>();
+    private final IdentityHashMap<Task, SortKey> keys = new IdentityHashMap<>();
+
+    /**
+     * Position of a task in the view: the value it is sorted by, then its ID.
+     */
+    private static class SortKey implements Comparable<SortKey> {
+        private final long value;
+        private final long id;
+
+        private SortKey(long value, long id) {
+            this.value = value;
+            this.id = id;
+        }
+
+        @Override
+        public int compareTo(SortKey other) {
+            int byValue = Long.compare(value, other.value);
+            return byValue != 0 ? byValue : Long.compare(id, other.id);
+        }
+
+        private boolean isSameAs(SortKey other) {
+            return value == other.value && id == other.id;
+        }
+    }
+
+    /**
+     * Creates an empty view.
+     *
+     * @param order The order to keep tasks in
+     */
+    public SortedView(SortOrder order) {
+        this.order = order;
+    }
+
+    private SortKey keyOf(Task task) {
+        return new SortKey(valueOf(task), task.getId());
+    }
+
+    private long valueOf(Task task) {
+        switch (order) {
+        case DATE:
+            // A recurring task sorts by its next pending occurrence, so marking one moves it along
+            LocalDate date = task instanceof RecurringTask
+                    ? ((RecurringTask) task).getRecurrence().nextPending()
+                    : TemporalIndex.dateOf(task);
+            return date == null ? Long.MAX_VALUE : date.toEpochDay();
+        case TYPE:
+            return task instanceof Event ? 2 : task instanceof Deadline ? 1 : 0;
+        case STATUS:
+            return task.isDone() ? 1 : 0;
+        default:
+            return 0;
+        }
+    }
+
+    @Override
+    public void add(Task task) {
+        SortKey key = keyOf(task);
+        keys.put(task, key);
+        tasks.put(key, task);
+    }
+
+    @Override
+    public void remove(Task task) {
+        SortKey key = keys.remove(task);
+        if (key != null) {
+            tasks.remove(key);
+        }
+    }
+
+    @Override
+    public void updateStatus(Task task) {
+        SortKey oldKey = keys.get(task);
+        if (oldKey == null || oldKey.isSameAs(keyOf(task))) {
+            return;
+        }
+        remove(task);
+        add(task);
+    }
+
+    /**
+     * Lists the tasks in the order of the view.
+     *
+     * @return A new ArrayList of the tasks
+     */
+    public ArrayList<Task> toList() {
+        return new ArrayList<>(tasks.values());
+    }
+
+    @Override
+    public void clear() {
+        tasks.clear();
+        keys.clear();
+    }
+
+    @Override
+    public String describe() {
+        return String.format("Sorted view by %s: %,d tasks", order.name().toLowerCase(), tasks.size());
+    }
+}
@@ -0,0 +1,54 @@
+package patrick;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import patrick.task.Task;
+
+/**
+ * Splits the tasks into those that are done and those that are not, so queries on the done status
+ * can start from the smaller side instead of walking the whole list.
+ */
+public class StatusIndex implements TaskIndex {
+    private final Set<Task> doneTasks = new LinkedHashSet<>();
+    private final Set<Task> pendingTasks = new LinkedHashSet<>();
+
+    @Override
+    public void add(Task task) {
+        (task.isDone() ? doneTasks : pendingTasks).add(task);
+    }
+
+    @Override
+    public void remove(Task task) {
+        doneTasks.remove(task);
+        pendingTasks.remove(task);
+    }
+
+    @Override
+    public void updateStatus(Task task) {
+        remove(task);
+        add(task);
+    }
+
+    /**
+     * Returns the tasks with the given done status.
+     *
+     * @param isDone Whether to return the done tasks or the ones still pending
+     * @return A read-only view of the tasks
+     */
+    public Set<Task> tasksWithStatus(boolean isDone) {
+        return Collections.unmodifiableSet(isDone ? doneTasks : pendingTasks);
+    }
+
+    @Override
+    public void clear() {
+        doneTasks.clear();
+        pendingTasks.clear();
+    }
+
+    @Override
+    public String describe() {
+        return String.format("Status index: %,d done, %,d pending", doneTasks.size(), pendingTasks.size());
+    }
+}
@@ -1,131 +1,876 @@
 package patrick;
 
+import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileNotFoundException;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.time.LocalDate;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Scanner;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
-import patrick.task.Deadline;
-import patrick.task.Event;
+import patrick.task.Recurrence;
+import patrick.task.RecurringTask;
 import patrick.task.Task;
-import patrick.task.ToDo;
 
 
 /**
- * Handles loading tasks from file and saving tasks to file
+ * Handles loading tasks from file and saving tasks to file.
+ * Individual mutations are appended to a journal next to the data file so that a single command
+ * costs a write proportional to the change, not to the size of the list.
+ * How soon a mutation reaches the disk is controlled by its {@link Durability}; full snapshots are
+ * always written atomically (temp file, fsync, rename) so a crash never truncates the data file.
+ *
+ * <p>Marking or unmarking a task that is stored in the data file only flips its one-byte done field,
+ * so Storage keeps the offset of that byte for every such task and overwrites it in place instead of
+ * journaling the change. Status changes of tasks added since the last snapshot are journaled, so the
+ * journal never holds a status change for a task whose status lives in the data file. Recurring tasks have
+ * no such byte, so marking or unmarking one occurrence journals just that date.</p>
+ *
+ * <p>Records are written with each task's stable ID, and journal records refer to tasks by ID, so
+ * replaying the journal does not depend on positions.</p>
+ *
+ * <p>While a batch runs, nothing is written per mutation at all: each {@link #checkpoint()} writes one
+ * snapshot of the attached list instead, so a script of many commands costs a few snapshots rather than a
+ * forced write per command.</p>
  */
 public class Storage {
+    // Journal file sits next to the data file
+    private static final String JOURNAL_SUFFIX = ".journal";
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final int WRITE_BUFFER_SIZE = 1 << 16;
+
+    // Done field values of the text format
+    private static final byte TEXT_DONE = '1';
+    private static final byte TEXT_NOT_DONE = '0';
+
+    // Default time a background write waits to coalesce a burst of mutations
+    private static final long DEFAULT_FLUSH_DELAY_MILLIS = 200;
+
+    // Journal record operations
+    private static final String OP_ADD = "add";
+    private static final String OP_DELETE = "delete";
+    private static final String OP_MARK = "mark";
+    private static final String OP_UNMARK = "unmark";
+    private static final String OP_DONE_ON = "done-on";
+    private static final String OP_UNDONE_ON = "undone-on";
+
+    private static final String FIELD_SEPARATOR = " | ";
+    private static final int JOURNAL_SPLIT_LIMIT = 2;
+
+    private static final String SAVE_ERROR_MESSAGE = "Uhhh... I couldn't save the tasks. Sorry!";
+
     private String filePath;
+    private String journalPath;
+    private Durability durability;
+    private long flushDelayMillis;
+
+    // Write-behind state, guarded by this
+    private TaskList attachedTasks;
+    private StringBuilder pendingJournal = new StringBuilder();
+    private boolean isFlushScheduled;
+    private PatrickException pendingError;
+    private ScheduledExecutorService writer;
+    // Set between beginBatch and endBatch, when mutations wait for the next checkpoint
+    private boolean isBatching;
 
+    // Offsets of the done byte of every task stored in the data file by task ID, rebuilt on load and save.
+    // Keyed by ID rather than by task, since snapshots hand over copies of the tasks in the list.
+    private HashMap<Long, Long> statusOffsets = new HashMap<>();
+    private boolean isDataFileBinary;
+    private FileChannel statusChannel;
+    private boolean isStatusChannelDirty;
+
+    /**
+     * Creates a storage backed by the given data file and its journal that makes every mutation
+     * durable before returning.
+     *
+     * @param filePath The path of the data file
+     */
     public Storage(String filePath) {
+        this(filePath, Durability.SYNC, DEFAULT_FLUSH_DELAY_MILLIS);
+    }
+
+    /**
+     * Creates a storage backed by the given data file and its journal.
+     *
+     * @param filePath The path of the data file
+     * @param durability How eagerly mutations are written to disk
+     * @param flushDelayMillis How long background writes wait to coalesce a burst of mutations
+     */
+    public Storage(String filePath, Durability durability, long flushDelayMillis) {
+        assert durability != null : "Durability cannot be null";
+        assert flushDelayMillis >= 0 : "Flush delay cannot be negative";
+
         this.filePath = filePath;
+        this.journalPath = filePath + JOURNAL_SUFFIX;
+        this.durability = durability;
+        this.flushDelayMillis = flushDelayMillis;
     }
 
     /**
-     * Loads tasks from the file.
+     * Attaches the task list that background snapshots are taken from.
+     * Required before mutating the list when running with {@link Durability#ASYNC}.
+     *
+     * @param tasks The task list kept by the application
+     */
+    public synchronized void attach(TaskList tasks) {
+        assert tasks != null : "Attached task list cannot be null";
+        this.attachedTasks = tasks;
+    }
+
+    /**
+     * Loads tasks from the file and replays any journaled mutations on top of it.
+     * If the journal held records, they are compacted into a fresh data file.
      * @return ArrayList of tasks loaded from file
      * @throws PatrickException if there's an error loading the file
      */
-    public ArrayList<Task> load() throws PatrickException {
+    public synchronized ArrayList<Task> load() throws PatrickException {
         ArrayList<Task> tasks = new ArrayList<>();
         File file = new File(filePath);
+        IdentityHashMap<Task, Long> loadedStatusOffsets = new IdentityHashMap<>();
+
+        if (file.exists()) {
+            loadBaseFile(file, tasks, loadedStatusOffsets);
+        }
+        // Tasks from files written before IDs existed get the same IDs on every load until saved
+        TaskList.assignMissingIds(tasks);
+        statusOffsets = byTaskId(loadedStatusOffsets);
 
-        // If file doesn't exist, return empty list
-        if (!file.exists()) {
-            assert tasks != null : "Tasks list should not be null";
-            return tasks;
+        File journal = new File(journalPath);
+        if (journal.exists()) {
+            replayJournal(journal, tasks);
+            // Fold the journal into the data file so it does not grow across sessions
+            save(tasks);
         }
 
+        assert tasks != null : "Loaded tasks list should not be null";
+        return tasks;
+    }
+
+    /**
+     * Reads every task in the data file into the given list.
+     * @param file The data file
+     * @param tasks The list to fill
+     * @param loadedStatusOffsets The map to fill with the offset of each task's done byte
+     * @throws PatrickException if the file cannot be read
+     */
+    private void loadBaseFile(File file, ArrayList<Task> tasks, IdentityHashMap<Task, Long> loadedStatusOffsets)
+            throws PatrickException {
         try {
-            Scanner fileScanner = new Scanner(file);
-            while (fileScanner.hasNextLine()) {
-                String line = fileScanner.nextLine();
+            isDataFileBinary = BinaryTaskFormat.hasMagic(file.toPath());
+            if (isDataFileBinary) {
+                BinaryTaskFormat.read(file.toPath(), tasks, loadedStatusOffsets);
+            } else {
+                TaskFileReader.read(file.toPath(), tasks, loadedStatusOffsets);
+            }
+        } catch (IOException e) {
+            throw new PatrickException("Uhhh... I couldn't find the file to load tasks.");
+        }
+    }
+
+    /**
+     * Keys the offsets of done bytes by task ID. Tasks without an ID have no offset, so their changes are
+     * journaled, and neither do recurring tasks, whose done byte says nothing about their occurrences.
+     */
+    private static HashMap<Long, Long> byTaskId(Map<Task, Long> offsets) {
+        HashMap<Long, Long> offsetsById = new HashMap<>();
+        for (Map.Entry<Task, Long> entry : offsets.entrySet()) {
+            if (entry.getKey().getId() > 0 && !(entry.getKey() instanceof RecurringTask)) {
+                offsetsById.put(entry.getKey().getId(), entry.getValue());
+            }
+        }
+        return offsetsById;
+    }
+
+    /**
+     * Applies the journaled mutations, in order, to the tasks read from the data file.
+     * @param journal The journal file
+     * @param tasks The list to apply the mutations to
+     * @throws PatrickException if the journal cannot be read
+     */
+    private void replayJournal(File journal, ArrayList<Task> tasks) throws PatrickException {
+        HashMap<Long, Task> tasksById = new HashMap<>();
+        for (Task task : tasks) {
+            tasksById.put(task.getId(), task);
+        }
+        // Deletions by ID are applied in one pass at the end instead of shifting the list for each
+        Set<Task> deleted = Collections.newSetFromMap(new IdentityHashMap<>());
+        try {
+            Scanner journalScanner = new Scanner(journal);
+            while (journalScanner.hasNextLine()) {
+                String record = journalScanner.nextLine();
                 try {
-                    Task task = parseTaskFromFile(line);
-                    if (task != null) {
-                        tasks.add(task);
-                    }
+                    applyJournalRecord(record, tasks, tasksById, deleted);
                 } catch (Exception e) {
-                    // Skip corrupted lines
-                    System.out.println("Skipping corrupted line: " + line);
+                    // Skip corrupted records, e.g. a half-written last line
+                    System.out.println("Skipping corrupted journal record: " + record);
                 }
             }
-            fileScanner.close();
+            journalScanner.close();
         } catch (FileNotFoundException e) {
-            throw new PatrickException("Uhhh... I couldn't find the file to load tasks.");
+            throw new PatrickException("Uhhh... I couldn't find the journal to load tasks.");
         }
+        removeDeleted(tasks, deleted);
+    }
 
-        assert tasks != null : "Loaded tasks list should not be null";
-        return tasks;
+    /**
+     * Applies a single journal record to the list of tasks.
+     * @param record The journal record
+     * @param tasks The list to apply the record to
+     * @param tasksById The tasks of the list by ID, kept up to date with the list
+     * @param deleted The tasks deleted but not yet removed from the list
+     */
+    private void applyJournalRecord(String record, ArrayList<Task> tasks, HashMap<Long, Task> tasksById,
+            Set<Task> deleted) {
+        String[] parts = record.split(" \\| ", JOURNAL_SPLIT_LIMIT);
+        String op = parts[0];
+        String argument = parts[1];
+        String doneDates = "";
+        boolean isOccurrenceRecord = op.equals(OP_DONE_ON) || op.equals(OP_UNDONE_ON);
+        if (isOccurrenceRecord) {
+            String[] referenceAndDates = argument.split(" \\| ", JOURNAL_SPLIT_LIMIT);
+            argument = referenceAndDates[0];
+            doneDates = referenceAndDates.length < JOURNAL_SPLIT_LIMIT ? "" : referenceAndDates[1];
+        }
+
+        if (op.equals(OP_ADD)) {
+            Task task = TaskFileReader.parseLine(argument);
+            if (task == null) {
+                throw new IllegalArgumentException("Invalid task in journal");
+            }
+            if (task.getId() > 0 && tasksById.containsKey(task.getId())) {
+                // A crash after a snapshot replaced the data file but before the journal was deleted leaves
+                // the journaled adds in both; like mark and unmark, replaying an add must change nothing then
+                return;
+            }
+            tasks.add(task);
+            tasksById.put(task.getId(), task);
+            return;
+        }
+
+        Task task = findJournaledTask(argument, tasks, tasksById, deleted);
+        switch (op) {
+        case OP_DELETE:
+            deleted.add(task);
+            tasksById.remove(task.getId());
+            break;
+        case OP_MARK:
+            task.markAsDone();
+            break;
+        case OP_UNMARK:
+            task.markAsNotDone();
+            break;
+        case OP_DONE_ON:
+        case OP_UNDONE_ON:
+            // Setting a date to a given status is idempotent, so replaying the record twice changes nothing
+            Recurrence recurrence = ((RecurringTask) task).getRecurrence();
+            for (String date : doneDates.split(",")) {
+                recurrence.setDoneOn(LocalDate.parse(date.strip()), op.equals(OP_DONE_ON));
+            }
+            break;
+        default:
+            throw new IllegalArgumentException("Unknown journal operation");
+        }
     }
 
     /**
-     * Saves tasks to the file.
-     * @param tasks The list of tasks to save
-     * @throws PatrickException if there's an error saving the file
+     * Finds the task a journal record refers to, either by ID or, for records of tasks without an ID,
+     * by position.
+     */
+    private Task findJournaledTask(String reference, ArrayList<Task> tasks, HashMap<Long, Task> tasksById,
+            Set<Task> deleted) {
+        if (!reference.startsWith("#")) {
+            // Positions count only the tasks still in the list
+            removeDeleted(tasks, deleted);
+            return tasks.get(Integer.parseInt(reference));
+        }
+        Task task = tasksById.get(Task.parseId(reference));
+        if (task == null) {
+            throw new IllegalArgumentException("Unknown task in journal");
+        }
+        return task;
+    }
+
+    private static void removeDeleted(ArrayList<Task> tasks, Set<Task> deleted) {
+        if (!deleted.isEmpty()) {
+            tasks.removeIf(deleted::contains);
+            deleted.clear();
+        }
+    }
+
+    /**
+     * Formats a task as one record of the text format, with its ID in front when it has one.
+     * @param task The task
+     * @return The record without a line terminator
+     */
+    private static String toRecord(Task task) {
+        String record = task.toFileFormat();
+        return task.getId() > 0 ? Task.formatId(task.getId()) + FIELD_SEPARATOR + record : record;
+    }
+
+    /**
+     * Formats how a journal record refers to a task: by ID, or by position for a task without one.
      */
-    public void save(ArrayList<Task> tasks) throws PatrickException {
+    private static String toReference(int index, Task task) {
+        return task.getId() > 0 ? toReference(task) : String.valueOf(index);
+    }
+
+    private static String toReference(Task task) {
+        assert task.getId() > 0 : "Bulk changes need task IDs";
+        return Task.formatId(task.getId());
+    }
+
+    /**
+     * Formats the journal operation for one occurrence of a recurring task that was marked or unmarked.
+     */
+    private static String toOccurrenceOp(Task occurrence) {
+        return occurrence.isDone() ? OP_DONE_ON : OP_UNDONE_ON;
+    }
+
+    /**
+     * Formats the date of one occurrence of a recurring task after the reference to the task.
+     */
+    private static String toOccurrenceRecord(String reference, Task occurrence) {
+        return reference + FIELD_SEPARATOR + TemporalIndex.dateOf(occurrence);
+    }
+
+    /**
+     * Records that one occurrence of a recurring task was marked or unmarked.
+     * @param index The index of the recurring task (0-based)
+     * @param occurrence The occurrence with its new status
+     * @throws PatrickException if the change cannot be written
+     */
+    public void appendOccurrenceStatus(int index, Task occurrence) throws PatrickException {
+        assert occurrence.isOccurrence() : "Only occurrences of recurring tasks are journaled by date";
+        recordStatusChange(toOccurrenceOp(occurrence), index, occurrence);
+    }
+
+    /**
+     * Records that a task was appended to the end of the list.
+     * @param task The task that was added
+     * @throws PatrickException if the journal cannot be written
+     */
+    public void appendAdd(Task task) throws PatrickException {
+        assert task != null : "Journaled task cannot be null";
+        appendJournalRecord(OP_ADD, toRecord(task));
+    }
+
+    /**
+     * Records that the task at the given index was deleted.
+     * @param index The index of the deleted task (0-based)
+     * @param task The task that was deleted
+     * @throws PatrickException if the journal cannot be written
+     */
+    public synchronized void appendDelete(int index, Task task) throws PatrickException {
+        statusOffsets.remove(task.getId());
+        appendJournalRecord(OP_DELETE, toReference(index, task));
+    }
+
+    /**
+     * Records that several tasks were deleted, with a single journal write.
+     * @param tasks The deleted tasks, each with an ID
+     * @throws PatrickException if the journal cannot be written
+     */
+    public synchronized void appendDeletes(List<Task> tasks) throws PatrickException {
+        StringBuilder records = new StringBuilder();
+        for (Task task : tasks) {
+            statusOffsets.remove(task.getId());
+            appendRecord(records, OP_DELETE, toReference(task));
+        }
+        appendJournalRecords(records);
+    }
+
+    /**
+     * Records that the task at the given index was marked as done.
+     * @param index The index of the marked task (0-based)
+     * @param task The task that was marked
+     * @throws PatrickException if the change cannot be written
+     */
+    public void appendMark(int index, Task task) throws PatrickException {
+        recordStatusChange(OP_MARK, index, task);
+    }
+
+    /**
+     * Records that the task at the given index was marked as not done.
+     * @param index The index of the unmarked task (0-based)
+     * @param task The task that was unmarked
+     * @throws PatrickException if the change cannot be written
+     */
+    public void appendUnmark(int index, Task task) throws PatrickException {
+        recordStatusChange(OP_UNMARK, index, task);
+    }
+
+    /**
+     * Records that several tasks were marked as done, with one write to each file it touches.
+     * @param tasks The marked tasks, each with an ID
+     * @throws PatrickException if the changes cannot be written
+     */
+    public void appendMarks(List<Task> tasks) throws PatrickException {
+        recordStatusChanges(OP_MARK, tasks);
+    }
+
+    /**
+     * Records that several tasks were marked as not done, with one write to each file it touches.
+     * @param tasks The unmarked tasks, each with an ID
+     * @throws PatrickException if the changes cannot be written
+     */
+    public void appendUnmarks(List<Task> tasks) throws PatrickException {
+        recordStatusChanges(OP_UNMARK, tasks);
+    }
+
+    /**
+     * Writes a status change in place when the task's done byte is in the data file, journaling it otherwise.
+     * @param op The journal operation used when the change cannot be written in place
+     * @param index The index of the task (0-based)
+     * @param task The task whose status changed
+     * @throws PatrickException if the change cannot be written
+     */
+    private synchronized void recordStatusChange(String op, int index, Task task) throws PatrickException {
+        assert task != null : "Task whose status changed cannot be null";
+
+        if (isBatching || task instanceof RecurringTask) {
+            // A recurring task itself is only passed when no occurrence changed, e.g. unmarking with none done
+            return;
+        }
+        if (task.isOccurrence()) {
+            appendJournalRecord(toOccurrenceOp(task), toOccurrenceRecord(toReference(index, task), task));
+            return;
+        }
+        Long offset = statusOffsets.get(task.getId());
+        if (offset == null || durability == Durability.ASYNC) {
+            appendJournalRecord(op, toReference(index, task));
+            return;
+        }
+
+        throwPendingError();
         try {
-            // Create directory if it doesn't exist
-            Path path = Paths.get(filePath);
-            Files.createDirectories(path.getParent());
+            writeStatusByte(offset, task.isDone());
+            commitStatusWrites();
+        } catch (IOException e) {
+            throw new PatrickException(SAVE_ERROR_MESSAGE);
+        }
+    }
 
-            FileWriter writer = new FileWriter(filePath);
+    /**
+     * Writes status changes of several tasks: in place for those whose done byte is in the data file,
+     * journaled in one write for the rest. The data file is forced at most once.
+     * @param op The journal operation used for changes that cannot be written in place
+     * @param tasks The tasks whose status changed, each with an ID
+     * @throws PatrickException if the changes cannot be written
+     */
+    private synchronized void recordStatusChanges(String op, List<Task> tasks) throws PatrickException {
+        if (isBatching) {
+            return;
+        }
+        throwPendingError();
+        StringBuilder records = new StringBuilder();
+        boolean hasInPlaceWrites = false;
+        try {
             for (Task task : tasks) {
-                writer.write(task.toFileFormat() + "\n");
+                if (task instanceof RecurringTask) {
+                    // No occurrence of it changed
+                    continue;
+                }
+                Long offset = durability == Durability.ASYNC ? null : statusOffsets.get(task.getId());
+                if (task.isOccurrence()) {
+                    appendRecord(records, toOccurrenceOp(task), toOccurrenceRecord(toReference(task), task));
+                } else if (offset == null) {
+                    appendRecord(records, op, toReference(task));
+                } else {
+                    writeStatusByte(offset, task.isDone());
+                    hasInPlaceWrites = true;
+                }
+            }
+            if (hasInPlaceWrites) {
+                commitStatusWrites();
             }
-            writer.close();
         } catch (IOException e) {
-            throw new PatrickException("Uhhh... I couldn't save the tasks. Sorry!");
+            throw new PatrickException(SAVE_ERROR_MESSAGE);
+        }
+        if (records.length() > 0 || durability == Durability.ASYNC) {
+            appendJournalRecords(records);
         }
     }
 
     /**
-     * Parses a task from file format.
-     * @param line The line from the file to parse
-     * @return The parsed Task object
+     * Overwrites one done byte in the data file with a single positional write.
+     * The write is not durable until {@link #commitStatusWrites()} is called.
+     * @param offset The offset of the done byte
+     * @param isDone The new status
+     * @throws IOException if the data file cannot be written
      */
-    private Task parseTaskFromFile(String line) {
-        String[] parts = line.split(" \\| ");
-        if (parts.length < 3) {
-            return null; // Invalid format
+    private void writeStatusByte(long offset, boolean isDone) throws IOException {
+        if (statusChannel == null) {
+            statusChannel = FileChannel.open(Paths.get(filePath), StandardOpenOption.WRITE);
+        }
+        byte status;
+        if (isDataFileBinary) {
+            status = isDone ? BinaryTaskFormat.DONE_FLAGS : BinaryTaskFormat.NOT_DONE_FLAGS;
+        } else {
+            status = isDone ? TEXT_DONE : TEXT_NOT_DONE;
         }
+        statusChannel.write(ByteBuffer.wrap(new byte[] {status}), offset);
+    }
 
-        String type = parts[0];
-        boolean isDone = parts[1].equals("1");
-        String description = parts[2];
+    /**
+     * Makes in-place status writes durable according to the configured durability.
+     * @throws IOException if the data file cannot be forced
+     */
+    private void commitStatusWrites() throws IOException {
+        if (durability == Durability.SYNC) {
+            statusChannel.force(false);
+        } else {
+            isStatusChannelDirty = true;
+            scheduleFlush();
+        }
+    }
 
-        Task task = null;
+    /**
+     * Forces in-place status writes to disk and closes the channel used for them.
+     * @throws IOException if the channel cannot be forced
+     */
+    private void closeStatusChannel() throws IOException {
+        if (statusChannel == null) {
+            return;
+        }
+        try {
+            if (isStatusChannelDirty) {
+                statusChannel.force(false);
+                isStatusChannelDirty = false;
+            }
+        } finally {
+            statusChannel.close();
+            statusChannel = null;
+        }
+    }
+
+    /**
+     * Makes one journal record durable according to the configured durability.
+     * @param op The journal operation
+     * @param argument The operation's argument
+     * @throws PatrickException if the journal cannot be written
+     */
+    private synchronized void appendJournalRecord(String op, String argument) throws PatrickException {
+        StringBuilder record = new StringBuilder();
+        appendRecord(record, op, argument);
+        appendJournalRecords(record);
+    }
 
+    private static void appendRecord(StringBuilder records, String op, String argument) {
+        records.append(op).append(FIELD_SEPARATOR).append(argument).append('\n');
+    }
+
+    /**
+     * Makes journal records durable according to the configured durability, with at most one write.
+     * @param records One or more newline-terminated journal records
+     * @throws PatrickException if the journal cannot be written
+     */
+    private synchronized void appendJournalRecords(CharSequence records) throws PatrickException {
+        if (isBatching) {
+            return;
+        }
+        throwPendingError();
+
+        switch (durability) {
+        case SYNC:
+            writeJournal(records.toString());
+            break;
+        case GROUP_COMMIT:
+            pendingJournal.append(records);
+            scheduleFlush();
+            break;
+        case ASYNC:
+            assert attachedTasks != null : "A task list must be attached for async durability";
+            scheduleFlush();
+            break;
+        default:
+            assert false : "Unknown durability " + durability;
+        }
+    }
+
+    /**
+     * Appends the given records to the journal and forces them to disk.
+     * @param records One or more newline-terminated journal records
+     * @throws PatrickException if the journal cannot be written
+     */
+    private void writeJournal(String records) throws PatrickException {
         try {
-            if (type.equals("T")) {
-                task = new ToDo(description);
-            } else if (type.equals("D") && parts.length >= 4) {
-                LocalDate by = LocalDate.parse(parts[3], DateTimeFormatter.ISO_LOCAL_DATE);
-                task = new Deadline(description, by);
-            } else if (type.equals("E") && parts.length >= 5) {
-                LocalDateTime from = LocalDateTime.parse(parts[3], DateTimeFormatter.ISO_LOCAL_DATE_TIME);
-                LocalDateTime to = LocalDateTime.parse(parts[4], DateTimeFormatter.ISO_LOCAL_DATE_TIME);
-                task = new Event(description, from, to);
+            createParentDirectories();
+            FileChannel channel = FileChannel.open(Paths.get(journalPath),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            ByteBuffer buffer = ByteBuffer.wrap(records.getBytes(StandardCharsets.UTF_8));
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
             }
-        } catch (DateTimeParseException e) {
-            System.out.println("Uhhh... Theres a error parsing date from file: " + line);
-            return null;
+            channel.force(false);
+            channel.close();
+        } catch (IOException e) {
+            throw new PatrickException(SAVE_ERROR_MESSAGE);
         }
+    }
 
-        if (task != null && isDone) {
-            task.markAsDone();
+    /**
+     * Schedules a background flush unless one is already waiting, so bursts share one write.
+     */
+    private void scheduleFlush() {
+        if (isFlushScheduled) {
+            return;
         }
+        if (writer == null) {
+            writer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "patrick-storage-writer");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        isFlushScheduled = true;
+        writer.schedule(this::flushInBackground, flushDelayMillis, TimeUnit.MILLISECONDS);
+    }
 
-        return task;
+    /**
+     * Runs a scheduled flush. Failures are kept and reported on the next command or explicit flush.
+     */
+    private synchronized void flushInBackground() {
+        try {
+            flushPending();
+        } catch (PatrickException e) {
+            pendingError = e;
+        }
+    }
+
+    /**
+     * Writes everything that has not reached the disk yet.
+     * @throws PatrickException if the pending data cannot be written
+     */
+    private void flushPending() throws PatrickException {
+        isFlushScheduled = false;
+        if (pendingJournal.length() > 0) {
+            writeJournal(pendingJournal.toString());
+            pendingJournal.setLength(0);
+        }
+        if (isStatusChannelDirty) {
+            try {
+                statusChannel.force(false);
+                isStatusChannelDirty = false;
+            } catch (IOException e) {
+                throw new PatrickException(SAVE_ERROR_MESSAGE);
+            }
+        }
+        // Only async mode relies on snapshots; the other modes already hold every change in the files.
+        // During a batch the checkpoint writes the snapshot instead.
+        if (durability == Durability.ASYNC && !isBatching && attachedTasks != null && attachedTasks.isDirty()) {
+            // Clear first so mutations made while writing mark the list dirty again
+            attachedTasks.clearDirty();
+            try {
+                save(attachedTasks.snapshot());
+            } catch (PatrickException e) {
+                attachedTasks.markDirty();
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Rethrows the failure of the last background write, if any.
+     * @throws PatrickException if the last background write failed
+     */
+    private void throwPendingError() throws PatrickException {
+        if (pendingError != null) {
+            PatrickException error = pendingError;
+            pendingError = null;
+            throw error;
+        }
+    }
+
+    /**
+     * Writes every pending mutation to disk before returning.
+     * @throws PatrickException if the pending mutations cannot be written
+     */
+    public synchronized void flush() throws PatrickException {
+        throwPendingError();
+        flushPending();
+    }
+
+    /**
+     * Starts a batch: until {@link #endBatch()}, mutations are not written to disk when they happen but
+     * only at each {@link #checkpoint()}. A crash in between loses the mutations since the last checkpoint.
+     */
+    public synchronized void beginBatch() {
+        assert attachedTasks != null : "A task list must be attached to run a batch";
+        isBatching = true;
+    }
+
+    /**
+     * Writes everything pending to disk, then one snapshot of the attached list if a batch is running.
+     * @throws PatrickException if the tasks cannot be written
+     */
+    public synchronized void checkpoint() throws PatrickException {
+        flush();
+        if (!isBatching || !attachedTasks.isDirty()) {
+            return;
+        }
+        // Clear first so mutations made while writing mark the list dirty again
+        attachedTasks.clearDirty();
+        try {
+            writeSnapshot(attachedTasks.snapshot());
+        } catch (PatrickException e) {
+            attachedTasks.markDirty();
+            throw e;
+        }
+    }
+
+    /**
+     * Ends a batch with a last checkpoint, after which mutations are written as they happen again. The
+     * batch ends even if the checkpoint fails, so a later flush or close can still write the tasks.
+     * @throws PatrickException if the tasks cannot be written
+     */
+    public synchronized void endBatch() throws PatrickException {
+        try {
+            checkpoint();
+        } finally {
+            isBatching = false;
+        }
+    }
+
+    /**
+     * Flushes pending mutations and stops the background writer.
+     * @throws PatrickException if the pending mutations cannot be written
+     */
+    public synchronized void close() throws PatrickException {
+        try {
+            flush();
+            closeStatusChannel();
+        } catch (IOException e) {
+            throw new PatrickException(SAVE_ERROR_MESSAGE);
+        } finally {
+            if (writer != null) {
+                writer.shutdownNow();
+                writer = null;
+            }
+        }
+    }
+
+    /**
+     * Creates the directory holding the data file if it doesn't exist.
+     * @throws IOException if the directory cannot be created
+     */
+    private void createParentDirectories() throws IOException {
+        Path parent = Paths.get(filePath).toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+    }
+
+    /**
+     * Saves tasks to the file and clears the journal, since the file now holds every mutation.
+     * The snapshot is written to a temp file, forced to disk and renamed over the data file, so
+     * the data file is either the old or the new version, never a truncated one.
+     * Data files with the {@link BinaryTaskFormat#EXTENSION} extension are written in the binary format.
+     * @param tasks The list of tasks to save
+     * @throws PatrickException if there's an error saving the file
+     */
+    public synchronized void save(ArrayList<Task> tasks) throws PatrickException {
+        if (isBatching) {
+            // The next checkpoint snapshots the attached list, which holds the same tasks
+            return;
+        }
+        writeSnapshot(tasks);
+    }
+
+    /**
+     * Writes a snapshot of the tasks over the data file and clears the journal.
+     * @param tasks The list of tasks to save
+     * @throws PatrickException if there's an error saving the file
+     */
+    private void writeSnapshot(ArrayList<Task> tasks) throws PatrickException {
+        try {
+            // Create directory if it doesn't exist
+            createParentDirectories();
+
+            Path target = Paths.get(filePath);
+            Path temp = Paths.get(filePath + TEMP_SUFFIX);
+            FileChannel channel = FileChannel.open(temp,
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            OutputStream out = Channels.newOutputStream(channel);
+            IdentityHashMap<Task, Long> newStatusOffsets = new IdentityHashMap<>();
+            boolean isBinary = BinaryTaskFormat.isBinaryPath(filePath);
+            if (isBinary) {
+                BinaryTaskFormat.write(out, tasks, newStatusOffsets);
+            } else {
+                writeText(out, tasks, newStatusOffsets);
+            }
+            channel.force(true);
+            out.close();
+
+            // In-place writes must not land in the file that is about to be replaced
+            closeStatusChannel();
+            moveAtomically(temp, target);
+            statusOffsets = byTaskId(newStatusOffsets);
+            isDataFileBinary = isBinary;
+
+            // Journaled records not yet on disk are already part of the snapshot
+            pendingJournal.setLength(0);
+            Files.deleteIfExists(Paths.get(journalPath));
+        } catch (IOException e) {
+            throw new PatrickException(SAVE_ERROR_MESSAGE);
+        }
+    }
+
+    /**
+     * Writes the tasks in the pipe-delimited text format.
+     * @param out The stream to write to; it is flushed but not closed
+     * @param tasks The tasks to write
+     * @param newStatusOffsets The map to fill with the offset of each task's done byte
+     * @throws IOException if the stream cannot be written
+     */
+    private void writeText(OutputStream out, ArrayList<Task> tasks, IdentityHashMap<Task, Long> newStatusOffsets)
+            throws IOException {
+        BufferedOutputStream buffered = new BufferedOutputStream(out, WRITE_BUFFER_SIZE);
+        long position = 0;
+        for (Task task : tasks) {
+            byte[] line = toRecord(task).getBytes(StandardCharsets.UTF_8);
+            int statusIndex = TaskFileReader.findStatusOffset(line, 0, line.length);
+            if (statusIndex >= 0) {
+                newStatusOffsets.put(task, position + statusIndex);
+            }
+            buffered.write(line);
+            buffered.write('\n');
+            position += line.length + 1;
+        }
+        buffered.flush();
+    }
+
+    /**
+     * Renames the source file over the target, atomically where the file system supports it.
+     * @param source The file to move
+     * @param target The file to replace
+     * @throws IOException if the file cannot be moved
+     */
+    private void moveAtomically(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
     }
 }
@@ -0,0 +1,50 @@
+package patrick;
+
+import java.util.ArrayList;
+
+import patrick.task.Task;
+
+/**
+ * Offline converter between the text and binary task file formats.
+ * The input format is detected from the file header and the output format from the output file extension,
+ * e.g. {@code java -cp patrick.jar patrick.TaskFileConverter data/patrick.txt data/patrick.ptb}.
+ */
+public class TaskFileConverter {
+    private static final int EXPECTED_ARGUMENTS = 2;
+
+    private TaskFileConverter() {
+        // Utility class
+    }
+
+    /**
+     * Converts the tasks in one data file into another data file.
+     *
+     * @param inputPath The file to read, in either format
+     * @param outputPath The file to write; binary if it ends with {@link BinaryTaskFormat#EXTENSION}
+     * @return The number of tasks converted
+     * @throws PatrickException if either file cannot be accessed
+     */
+    public static int convert(String inputPath, String outputPath) throws PatrickException {
+        assert inputPath != null : "Input path cannot be null";
+        assert outputPath != null : "Output path cannot be null";
+
+        ArrayList<Task> tasks = new Storage(inputPath).load();
+        new Storage(outputPath).save(tasks);
+        return tasks.size();
+    }
+
+    public static void main(String[] args) {
+        if (args.length != EXPECTED_ARGUMENTS) {
+            System.out.println("Usage: TaskFileConverter <input file> <output file>");
+            System.out.println("Output ending in " + BinaryTaskFormat.EXTENSION + " is binary, anything else is text.");
+            System.exit(1);
+        }
+        try {
+            int count = convert(args[0], args[1]);
+            System.out.println("Converted " + count + " tasks from " + args[0] + " to " + args[1]);
+        } catch (PatrickException e) {
+            System.out.println(e.getMessage());
+            System.exit(1);
+        }
+    }
+}
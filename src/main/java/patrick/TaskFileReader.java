@@ -0,0 +1,444 @@
+package patrick;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import patrick.task.DateCodec;
+import patrick.task.Deadline;
+import patrick.task.Event;
+import patrick.task.Recurrence;
+import patrick.task.RecurringDeadline;
+import patrick.task.RecurringEvent;
+import patrick.task.RecurringTask;
+import patrick.task.Task;
+import patrick.task.ToDo;
+
+/**
+ * Reads tasks in the pipe-delimited file format ("#1f | T | 0 | desc | date"), where the leading task ID
+ * is optional so files written before tasks had IDs still load. Recurring deadlines and events carry two
+ * more fields, their rule ("every 1d") and the dates of their done occurrences.
+ * Each record is tokenized by hand straight from the bytes, with its ISO dates read by {@link DateCodec},
+ * instead of going through Scanner, a regex split and a formatter. Large files are split on newline boundaries into
+ * chunks that are parsed in parallel and then concatenated in file order.
+ * Repeated descriptions share one String through the {@link DescriptionPool}.
+ */
+public class TaskFileReader {
+    // Files smaller than this are parsed as a single chunk on the calling thread
+    private static final long PARALLEL_THRESHOLD = 4L << 20;
+    // Upper bound on the bytes of one chunk, which must fit in a single array
+    private static final long MAX_CHUNK_SIZE = 64L << 20;
+    private static final int BOUNDARY_PROBE_SIZE = 4096;
+
+    private static final byte NEWLINE = '\n';
+    private static final byte CARRIAGE_RETURN = '\r';
+    private static final byte PIPE = '|';
+    private static final byte SPACE = ' ';
+    private static final byte ID_MARKER = '#';
+    private static final int SEPARATOR_LENGTH = 3; // " | "
+
+    // Maximum number of fields any record type uses: a recurring event adds its rule and done dates
+    private static final int MAX_FIELDS = 7;
+    private static final String RECURRENCE_PREFIX = "every ";
+    private static final int DEADLINE_FIELDS = 4;
+    private static final int EVENT_FIELDS = 5;
+
+    private TaskFileReader() {
+        // Utility class
+    }
+
+    /**
+     * Tasks and problems found in one newline-aligned range of the file.
+     * Line numbers of problems are relative to the start of the chunk until the chunks are joined.
+     */
+    private static class Chunk {
+        private final long fileOffset;
+        private final ArrayList<Task> tasks = new ArrayList<>();
+        private long[] statusOffsets = new long[16];
+        private final ArrayList<String> problemLines = new ArrayList<>();
+        private final ArrayList<Integer> problemLineNumbers = new ArrayList<>();
+        private final ArrayList<Boolean> isDateProblem = new ArrayList<>();
+        private int lineCount;
+
+        private Chunk(long fileOffset) {
+            this.fileOffset = fileOffset;
+        }
+
+        private void addTask(Task task, long statusOffset) {
+            if (tasks.size() == statusOffsets.length) {
+                statusOffsets = Arrays.copyOf(statusOffsets, statusOffsets.length * 2);
+            }
+            statusOffsets[tasks.size()] = statusOffset;
+            tasks.add(task);
+        }
+
+        private void addProblem(int lineNumber, String line, boolean isDate) {
+            problemLineNumbers.add(lineNumber);
+            problemLines.add(line);
+            isDateProblem.add(isDate);
+        }
+    }
+
+    /**
+     * Reads every task in the file into the given list, skipping and reporting corrupted lines.
+     * Tasks keep their file order regardless of how the file was split up.
+     *
+     * @param path The data file
+     * @param tasks The list to fill
+     * @throws IOException if the file cannot be read
+     */
+    public static void read(Path path, ArrayList<Task> tasks) throws IOException {
+        read(path, tasks, null);
+    }
+
+    /**
+     * Reads every task in the file into the given list and records where each task's done flag is stored,
+     * so a status change can later be written in place.
+     *
+     * @param path The data file
+     * @param tasks The list to fill
+     * @param statusOffsets The map to fill with the file offset of each task's one-byte done field, or null
+     * @throws IOException if the file cannot be read
+     */
+    public static void read(Path path, ArrayList<Task> tasks, Map<Task, Long> statusOffsets) throws IOException {
+        List<Chunk> chunks;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long[] boundaries = findChunkBoundaries(channel);
+            int chunkCount = boundaries.length - 1;
+            IntStream chunkIndexes = IntStream.range(0, chunkCount);
+            if (chunkCount > 1) {
+                chunkIndexes = chunkIndexes.parallel();
+            }
+            chunks = chunkIndexes
+                    .mapToObj(i -> readChunk(channel, boundaries[i], boundaries[i + 1]))
+                    .collect(Collectors.toList());
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        int linesBefore = 0;
+        tasks.ensureCapacity(tasks.size() + chunks.stream().mapToInt(chunk -> chunk.tasks.size()).sum());
+        for (Chunk chunk : chunks) {
+            tasks.addAll(chunk.tasks);
+            if (statusOffsets != null) {
+                addStatusOffsets(chunk, statusOffsets);
+            }
+            reportProblems(chunk, linesBefore);
+            linesBefore += chunk.lineCount;
+        }
+    }
+
+    private static void addStatusOffsets(Chunk chunk, Map<Task, Long> statusOffsets) {
+        for (int i = 0; i < chunk.tasks.size(); i++) {
+            if (chunk.statusOffsets[i] >= 0) {
+                statusOffsets.put(chunk.tasks.get(i), chunk.fileOffset + chunk.statusOffsets[i]);
+            }
+        }
+    }
+
+    /**
+     * Splits the file into ranges that each start at the beginning of a line.
+     *
+     * @return The start offset of every chunk followed by the file size
+     */
+    private static long[] findChunkBoundaries(FileChannel channel) throws IOException {
+        long size = channel.size();
+        if (size < PARALLEL_THRESHOLD) {
+            return new long[] {0, size};
+        }
+
+        int parallelism = ForkJoinPool.getCommonPoolParallelism();
+        long chunkSize = Math.min(MAX_CHUNK_SIZE, Math.max(PARALLEL_THRESHOLD / 4, size / (parallelism * 4L)));
+        ArrayList<Long> boundaries = new ArrayList<>();
+        boundaries.add(0L);
+        long position = chunkSize;
+        while (position < size) {
+            long lineStart = findNextLineStart(channel, position, size);
+            if (lineStart >= size) {
+                break;
+            }
+            if (lineStart - boundaries.get(boundaries.size() - 1) > Integer.MAX_VALUE - BOUNDARY_PROBE_SIZE) {
+                throw new IOException("Line too long to load");
+            }
+            boundaries.add(lineStart);
+            position = lineStart + chunkSize;
+        }
+        boundaries.add(size);
+        return boundaries.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    /**
+     * Returns the offset just past the first newline at or after the given position.
+     */
+    private static long findNextLineStart(FileChannel channel, long position, long size) throws IOException {
+        ByteBuffer probe = ByteBuffer.allocate(BOUNDARY_PROBE_SIZE);
+        while (position < size) {
+            probe.clear();
+            int read = channel.read(probe, position);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (probe.get(i) == NEWLINE) {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+        return size;
+    }
+
+    /**
+     * Reads one chunk with positional reads, so chunks can be read concurrently from one channel.
+     */
+    private static Chunk readChunk(FileChannel channel, long start, long end) {
+        byte[] data = new byte[(int) (end - start)];
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        try {
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, start + buffer.position()) < 0) {
+                    break;
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return parseChunk(data, buffer.position(), start);
+    }
+
+    private static Chunk parseChunk(byte[] data, int end, long fileOffset) {
+        Chunk chunk = new Chunk(fileOffset);
+        int lineStart = 0;
+        for (int i = 0; i < end; i++) {
+            if (data[i] == NEWLINE) {
+                parseChunkLine(chunk, data, lineStart, i);
+                lineStart = i + 1;
+            }
+        }
+        if (lineStart < end) {
+            parseChunkLine(chunk, data, lineStart, end);
+        }
+        return chunk;
+    }
+
+    private static void parseChunkLine(Chunk chunk, byte[] data, int start, int end) {
+        chunk.lineCount++;
+        if (end > start && data[end - 1] == CARRIAGE_RETURN) {
+            end--;
+        }
+        try {
+            Task task = parseLine(data, start, end);
+            if (task != null) {
+                chunk.addTask(task, findStatusOffset(data, start, end));
+            }
+        } catch (DateTimeException e) {
+            chunk.addProblem(chunk.lineCount, decode(data, start, end), true);
+        } catch (RuntimeException e) {
+            chunk.addProblem(chunk.lineCount, decode(data, start, end), false);
+        }
+    }
+
+    /**
+     * Returns the index of the done field when it is the single byte after a single-letter type,
+     * as written by {@link Task#toFileFormat()}, or -1 if the field cannot be overwritten in place.
+     */
+    static int findStatusOffset(byte[] data, int start, int end) {
+        start += idFieldLength(data, start, end);
+        int status = start + 1 + SEPARATOR_LENGTH;
+        boolean isSingleByteField = status + SEPARATOR_LENGTH < end
+                && data[start + 1] == SPACE && data[start + 2] == PIPE && data[start + 3] == SPACE
+                && data[status + 1] == SPACE && data[status + 2] == PIPE && data[status + 3] == SPACE;
+        return isSingleByteField ? status : -1;
+    }
+
+    /**
+     * Prints the problems of a chunk with their line numbers in the whole file.
+     */
+    private static void reportProblems(Chunk chunk, int linesBefore) {
+        for (int i = 0; i < chunk.problemLines.size(); i++) {
+            int lineNumber = linesBefore + chunk.problemLineNumbers.get(i);
+            String line = chunk.problemLines.get(i);
+            if (chunk.isDateProblem.get(i)) {
+                System.out.println("Uhhh... Theres a error parsing date from file (line " + lineNumber + "): " + line);
+            } else {
+                System.out.println("Skipping corrupted line " + lineNumber + ": " + line);
+            }
+        }
+    }
+
+    /**
+     * Parses one record from its string form, e.g. a journaled task.
+     *
+     * @param line The record without its line terminator
+     * @return The parsed task, or null if the record is not a task
+     * @throws DateTimeException if the record holds an invalid date
+     */
+    public static Task parseLine(String line) {
+        byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+        return parseLine(bytes, 0, bytes.length);
+    }
+
+    /**
+     * Parses one record stored in the given byte range.
+     *
+     * @param data The bytes holding the record
+     * @param start The index of the first byte of the record
+     * @param end The index just past the last byte of the record
+     * @return The parsed task, or null if the record is not a task
+     * @throws DateTimeException if the record holds an invalid date
+     */
+    public static Task parseLine(byte[] data, int start, int end) {
+        int idLength = idFieldLength(data, start, end);
+        long id = idLength > 0 ? parseId(data, start + 1, start + idLength - SEPARATOR_LENGTH) : 0;
+        start += idLength;
+
+        int[] fieldStarts = new int[MAX_FIELDS];
+        int[] fieldEnds = new int[MAX_FIELDS];
+        int fieldCount = splitFields(data, start, end, fieldStarts, fieldEnds);
+        if (fieldCount < 3) {
+            return null; // Invalid format
+        }
+
+        boolean isDone = fieldEnds[1] - fieldStarts[1] == 1 && data[fieldStarts[1]] == '1';
+        String description = decode(data, fieldStarts[2], fieldEnds[2]);
+        boolean isSingleLetterType = fieldEnds[0] - fieldStarts[0] == 1;
+        byte type = data[fieldStarts[0]];
+
+        Task task = null;
+        if (isSingleLetterType && type == 'T') {
+            task = new ToDo(description);
+        } else if (isSingleLetterType && type == 'D' && fieldCount >= DEADLINE_FIELDS) {
+            LocalDate by = DateCodec.readIsoDate(data, fieldStarts[3], fieldEnds[3]);
+            task = fieldCount > DEADLINE_FIELDS
+                    ? new RecurringDeadline(description, by, parseInterval(data, fieldStarts[4], fieldEnds[4]))
+                    : new Deadline(description, by);
+        } else if (isSingleLetterType && type == 'E' && fieldCount >= EVENT_FIELDS) {
+            LocalDateTime from = DateCodec.readIsoDateTime(data, fieldStarts[3], fieldEnds[3]);
+            LocalDateTime to = DateCodec.readIsoDateTime(data, fieldStarts[4], fieldEnds[4]);
+            task = fieldCount > EVENT_FIELDS
+                    ? new RecurringEvent(description, from, to, parseInterval(data, fieldStarts[5], fieldEnds[5]))
+                    : new Event(description, from, to);
+        }
+        if (task instanceof RecurringTask) {
+            int doneField = task instanceof Deadline ? DEADLINE_FIELDS + 1 : EVENT_FIELDS + 1;
+            if (fieldCount > doneField) {
+                int length = fieldEnds[doneField] - fieldStarts[doneField];
+                String doneDates = new String(data, fieldStarts[doneField], length, StandardCharsets.US_ASCII);
+                ((RecurringTask) task).getRecurrence().parseDoneDates(doneDates);
+            }
+        }
+
+        if (task != null && isDone) {
+            task.markAsDone();
+        }
+        if (task != null && id > 0) {
+            task.setId(id);
+        }
+        return task;
+    }
+
+    /**
+     * Parses the rule field of a recurring task, e.g. "every 1d".
+     *
+     * @throws IllegalArgumentException if the field is not a valid rule
+     */
+    private static int parseInterval(byte[] data, int start, int end) {
+        String rule = new String(data, start, end - start, StandardCharsets.US_ASCII);
+        if (!rule.startsWith(RECURRENCE_PREFIX)) {
+            throw new IllegalArgumentException("Invalid recurrence");
+        }
+        return Recurrence.parseInterval(rule.substring(RECURRENCE_PREFIX.length()));
+    }
+
+    /**
+     * Returns the length of the leading "#id | " field, or 0 if the record has no ID.
+     */
+    private static int idFieldLength(byte[] data, int start, int end) {
+        if (start >= end || data[start] != ID_MARKER) {
+            return 0;
+        }
+        int separator = findSeparator(data, start, end);
+        return separator == end ? 0 : separator - start + SEPARATOR_LENGTH;
+    }
+
+    /**
+     * Parses a positive hex ID directly from bytes.
+     *
+     * @throws IllegalArgumentException if the bytes are not a valid ID
+     */
+    private static long parseId(byte[] data, int start, int end) {
+        if (end <= start || end - start > Long.BYTES * 2 - 1) {
+            throw new IllegalArgumentException("Invalid task ID");
+        }
+        long id = 0;
+        for (int i = start; i < end; i++) {
+            int digit = Character.digit(data[i], 16);
+            if (digit < 0) {
+                throw new IllegalArgumentException("Invalid task ID");
+            }
+            id = (id << 4) | digit;
+        }
+        if (id == 0) {
+            throw new IllegalArgumentException("Invalid task ID");
+        }
+        return id;
+    }
+
+    /**
+     * Splits a record on " | " into at most MAX_FIELDS fields, dropping trailing empty fields.
+     *
+     * @return The number of fields found
+     */
+    private static int splitFields(byte[] data, int start, int end, int[] fieldStarts, int[] fieldEnds) {
+        int count = 0;
+        int fieldStart = start;
+        int i = start;
+        while (i + SEPARATOR_LENGTH <= end && count < MAX_FIELDS - 1) {
+            if (data[i] == SPACE && data[i + 1] == PIPE && data[i + 2] == SPACE) {
+                fieldStarts[count] = fieldStart;
+                fieldEnds[count] = i;
+                count++;
+                i += SEPARATOR_LENGTH;
+                fieldStart = i;
+            } else {
+                i++;
+            }
+        }
+        int lastEnd = count == MAX_FIELDS - 1 ? findSeparator(data, fieldStart, end) : end;
+        fieldStarts[count] = fieldStart;
+        fieldEnds[count] = lastEnd;
+        count++;
+
+        while (count > 0 && fieldStarts[count - 1] == fieldEnds[count - 1]) {
+            count--;
+        }
+        return count;
+    }
+
+    private static String decode(byte[] data, int start, int end) {
+        return DescriptionPool.shared().dedup(data, start, end);
+    }
+
+    private static int findSeparator(byte[] data, int from, int end) {
+        for (int i = from; i + SEPARATOR_LENGTH <= end; i++) {
+            if (data[i] == SPACE && data[i + 1] == PIPE && data[i + 2] == SPACE) {
+                return i;
+            }
+        }
+        return end;
+    }
+}
@@ -0,0 +1,497 @@
+package patrick;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+import patrick.task.Recurrence;
+import patrick.task.RecurringTask;
+import patrick.task.Task;
+
+/**
+ * Keeps recent versions of a task list for undo and redo.
+ *
+ * <p>Each version is the root of a persistent treap keyed by task ID that holds every task together with
+ * its done status at that version, and for a recurring task which of its occurrences are done. A change
+ * copies only the O(log n) nodes on the path to the changed task and shares the rest with the previous
+ * version, so keeping N versions costs memory proportional to the changes made rather than N copies of
+ * the list. Node priorities are derived from the ID, so the same
+ * set of tasks always has the same shape. Each version also records which IDs it changed, so stepping
+ * between neighbouring versions only touches those tasks.</p>
+ *
+ * <p>Because versions are immutable, the current one can also be handed to other threads as a
+ * {@link Snapshot} that stays consistent however the list changes afterwards.</p>
+ */
+public class TaskHistory {
+    // Number of versions kept, including the current one
+    private static final int MAX_VERSIONS = 101;
+
+    private final ArrayList<Version> versions = new ArrayList<>();
+    private int current;
+    private Node workingRoot;
+    private int workingSize;
+    private final LinkedHashSet<Long> workingChanges = new LinkedHashSet<>();
+
+    /**
+     * Immutable treap node.
+     */
+    private static class Node {
+        private final long id;
+        private final Task task;
+        private final boolean isDone;
+        // Done occurrences of a recurring task, null for other tasks
+        private final Recurrence.DoneOccurrences done;
+        private final Node left;
+        private final Node right;
+
+        private Node(long id, Task task, boolean isDone, Recurrence.DoneOccurrences done, Node left, Node right) {
+            this.id = id;
+            this.task = task;
+            this.isDone = isDone;
+            this.done = done;
+            this.left = left;
+            this.right = right;
+        }
+
+        private Node withChildren(Node newLeft, Node newRight) {
+            return new Node(id, task, isDone, done, newLeft, newRight);
+        }
+    }
+
+    /**
+     * One committed version of the list.
+     */
+    private static class Version {
+        private final Node root;
+        private final int size;
+        private final long[] changedIds;
+        private final String description;
+
+        private Version(Node root, int size, long[] changedIds, String description) {
+            this.root = root;
+            this.size = size;
+            this.changedIds = changedIds;
+            this.description = description;
+        }
+    }
+
+    /**
+     * The state of one task in the version being stepped to.
+     */
+    public static class Change {
+        private final long id;
+        private final Task task;
+        private final boolean isDone;
+        private final Recurrence.DoneOccurrences done;
+
+        private Change(long id, Task task, boolean isDone, Recurrence.DoneOccurrences done) {
+            this.id = id;
+            this.task = task;
+            this.isDone = isDone;
+            this.done = done;
+        }
+
+        /**
+         * Returns the ID of the changed task.
+         *
+         * @return The task ID
+         */
+        public long getId() {
+            return id;
+        }
+
+        /**
+         * Returns the task, or null if it is not in the list in this version.
+         *
+         * @return The task or null
+         */
+        public Task getTask() {
+            return task;
+        }
+
+        /**
+         * Returns whether the task is done in this version.
+         *
+         * @return true if the task is done
+         */
+        public boolean isDone() {
+            return isDone;
+        }
+
+        /**
+         * Checks whether the task already has the status it has in this version, including which
+         * occurrences are done for a recurring task.
+         *
+         * @param task The task, which must be the one this change is about
+         * @return true if restoring the status would change nothing
+         */
+        public boolean hasStatusOf(Task task) {
+            if (task instanceof RecurringTask) {
+                return done.equals(((RecurringTask) task).getRecurrence().getDone());
+            }
+            return task.isDone() == isDone;
+        }
+
+        /**
+         * Gives the task the status it has in this version.
+         *
+         * @param task The task, which must be the one this change is about
+         */
+        public void restoreStatus(Task task) {
+            setStatus(task, isDone, done);
+        }
+    }
+
+    /**
+     * Gives a task the done status, or for a recurring task the done occurrences, kept in a node or change.
+     */
+    private static void setStatus(Task task, boolean isDone, Recurrence.DoneOccurrences done) {
+        if (task instanceof RecurringTask) {
+            ((RecurringTask) task).getRecurrence().setDone(done);
+        } else if (isDone) {
+            task.markAsDone();
+        } else {
+            task.markAsNotDone();
+        }
+    }
+
+    /**
+     * The tasks of one committed version, in ID order. Nothing in it ever changes, so it can be read from
+     * any thread without locking. The list holds copies of the tasks with their status in this version,
+     * so it shows every change of a version or none of it, even while a later change is being made.
+     */
+    public static class Snapshot {
+        private final Node root;
+        private final int size;
+
+        private Snapshot(Node root, int size) {
+            this.root = root;
+            this.size = size;
+        }
+
+        /**
+         * Returns the number of tasks in the version.
+         *
+         * @return The number of tasks
+         */
+        public int size() {
+            return size;
+        }
+
+        /**
+         * Copies the tasks of the version, with their status in the version, into a list in O(n).
+         *
+         * @return A new ArrayList of copies of the tasks in ID order
+         */
+        public ArrayList<Task> toList() {
+            ArrayList<Task> tasks = new ArrayList<>(size);
+            ArrayDeque<Node> path = new ArrayDeque<>();
+            Node node = root;
+            while (node != null || !path.isEmpty()) {
+                while (node != null) {
+                    path.push(node);
+                    node = node.left;
+                }
+                node = path.pop();
+                Task task = node.task.copy();
+                setStatus(task, node.isDone, node.done);
+                tasks.add(task);
+                node = node.right;
+            }
+            return tasks;
+        }
+    }
+
+    /**
+     * Starts the history with the given tasks as the oldest version.
+     *
+     * @param tasks The tasks in increasing ID order
+     */
+    public TaskHistory(List<Task> tasks) {
+        workingRoot = build(tasks);
+        workingSize = tasks.size();
+        versions.add(new Version(workingRoot, workingSize, new long[0], "start"));
+    }
+
+    /**
+     * Builds a treap from tasks sorted by ID in O(n) by keeping the right spine on a stack.
+     */
+    private static Node build(List<Task> tasks) {
+        ArrayList<Node> spine = new ArrayList<>();
+        long previousId = 0;
+        for (Task task : tasks) {
+            if (task.getId() <= previousId) {
+                // Not sorted by ID, so fall back to inserting one at a time
+                return buildByInsertion(tasks);
+            }
+            previousId = task.getId();
+
+            Node node = new Node(task.getId(), task, task.isDone(), doneOf(task), null, null);
+            Node lastPopped = null;
+            while (!spine.isEmpty() && priority(spine.get(spine.size() - 1).id) < priority(node.id)) {
+                Node popped = spine.remove(spine.size() - 1);
+                lastPopped = popped.withChildren(popped.left, lastPopped);
+            }
+            node = node.withChildren(lastPopped, null);
+            spine.add(node);
+        }
+
+        Node child = null;
+        for (int i = spine.size() - 1; i >= 0; i--) {
+            Node node = spine.get(i);
+            child = node.withChildren(node.left, child);
+        }
+        return child;
+    }
+
+    private static Node buildByInsertion(List<Task> tasks) {
+        Node root = null;
+        for (Task task : tasks) {
+            long id = task.getId();
+            root = put(root, id, task, task.isDone(), doneOf(task), get(root, id) != null);
+        }
+        return root;
+    }
+
+    /**
+     * Mixes the bits of an ID into a well-spread priority.
+     */
+    private static long priority(long id) {
+        long mixed = id * 0x9E3779B97F4A7C15L;
+        mixed ^= mixed >>> 32;
+        mixed *= 0xBF58476D1CE4E5B9L;
+        return mixed ^ (mixed >>> 29);
+    }
+
+    private static Node get(Node node, long id) {
+        while (node != null && node.id != id) {
+            node = id < node.id ? node.left : node.right;
+        }
+        return node;
+    }
+
+    /**
+     * Returns a treap that maps the ID to the task, copying only the nodes on the path to it. Whether the ID
+     * is already in the treap is looked up once by the caller: a new ID is split in where its priority puts
+     * it, while an existing one is only ever replaced in place.
+     */
+    private static Node put(Node node, long id, Task task, boolean isDone, Recurrence.DoneOccurrences done,
+            boolean isPresent) {
+        if (node == null) {
+            return new Node(id, task, isDone, done, null, null);
+        }
+        if (node.id == id) {
+            return new Node(id, task, isDone, done, node.left, node.right);
+        }
+        if (!isPresent && priority(id) > priority(node.id)) {
+            Node[] halves = split(node, id);
+            return new Node(id, task, isDone, done, halves[0], halves[1]);
+        }
+        if (id < node.id) {
+            return node.withChildren(put(node.left, id, task, isDone, done, isPresent), node.right);
+        }
+        return node.withChildren(node.left, put(node.right, id, task, isDone, done, isPresent));
+    }
+
+    /**
+     * Returns the done occurrences of a recurring task, which are replaced rather than changed and so can
+     * be kept as they are, or null for other tasks.
+     */
+    private static Recurrence.DoneOccurrences doneOf(Task task) {
+        return task instanceof RecurringTask ? ((RecurringTask) task).getRecurrence().getDone() : null;
+    }
+
+    /**
+     * Splits a treap that does not hold the ID into the nodes below it and the nodes above it.
+     */
+    private static Node[] split(Node node, long id) {
+        if (node == null) {
+            return new Node[] {null, null};
+        }
+        if (node.id < id) {
+            Node[] halves = split(node.right, id);
+            return new Node[] {node.withChildren(node.left, halves[0]), halves[1]};
+        }
+        Node[] halves = split(node.left, id);
+        return new Node[] {halves[0], node.withChildren(halves[1], node.right)};
+    }
+
+    private static Node remove(Node node, long id) {
+        if (node == null) {
+            return null;
+        }
+        if (node.id == id) {
+            return merge(node.left, node.right);
+        }
+        if (id < node.id) {
+            return node.withChildren(remove(node.left, id), node.right);
+        }
+        return node.withChildren(node.left, remove(node.right, id));
+    }
+
+    /**
+     * Joins two treaps where every ID on the left is below every ID on the right.
+     */
+    private static Node merge(Node left, Node right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (priority(left.id) > priority(right.id)) {
+            return left.withChildren(left.left, merge(left.right, right));
+        }
+        return right.withChildren(merge(left, right.left), right.right);
+    }
+
+    /**
+     * Records that a task was added or its status changed in the version being built.
+     *
+     * @param task The task as it is now
+     */
+    public void recordPut(Task task) {
+        boolean isPresent = get(workingRoot, task.getId()) != null;
+        if (!isPresent) {
+            workingSize++;
+        }
+        workingRoot = put(workingRoot, task.getId(), task, task.isDone(), doneOf(task), isPresent);
+        workingChanges.add(task.getId());
+    }
+
+    /**
+     * Records that a task was deleted in the version being built.
+     *
+     * @param task The deleted task
+     */
+    public void recordRemove(Task task) {
+        if (get(workingRoot, task.getId()) != null) {
+            workingSize--;
+        }
+        workingRoot = remove(workingRoot, task.getId());
+        workingChanges.add(task.getId());
+    }
+
+    /**
+     * Ends the version being built, dropping any versions that could have been redone.
+     *
+     * @param description What the change did, e.g. "delete 3 tasks"
+     */
+    public void commit(String description) {
+        if (workingChanges.isEmpty()) {
+            return;
+        }
+        long[] changedIds = workingChanges.stream().mapToLong(Long::longValue).toArray();
+        workingChanges.clear();
+
+        versions.subList(current + 1, versions.size()).clear();
+        versions.add(new Version(workingRoot, workingSize, changedIds, description));
+        if (versions.size() > MAX_VERSIONS) {
+            // Older roots become unreachable; nodes still shared with newer versions stay alive
+            versions.remove(0);
+        }
+        current = versions.size() - 1;
+    }
+
+    /**
+     * Returns the current version as a snapshot that later changes do not affect.
+     *
+     * @return The committed tasks of the current version
+     */
+    public Snapshot getSnapshot() {
+        Version version = versions.get(current);
+        return new Snapshot(version.root, version.size);
+    }
+
+    /**
+     * Checks whether there is a version to go back to.
+     *
+     * @return true if undo is possible
+     */
+    public boolean canUndo() {
+        return current > 0;
+    }
+
+    /**
+     * Checks whether there is an undone version to go forward to.
+     *
+     * @return true if redo is possible
+     */
+    public boolean canRedo() {
+        return current < versions.size() - 1;
+    }
+
+    /**
+     * Describes the change that undo would revert.
+     *
+     * @return What the undone change did
+     */
+    public String getUndoDescription() {
+        assert canUndo() : "Nothing to undo";
+        return versions.get(current).description;
+    }
+
+    /**
+     * Describes the change that redo would apply again.
+     *
+     * @return What the redone change does
+     */
+    public String getRedoDescription() {
+        assert canRedo() : "Nothing to redo";
+        return versions.get(current + 1).description;
+    }
+
+    /**
+     * Steps back one version.
+     *
+     * @return The previous state of every task the undone change touched
+     */
+    public List<Change> undo() {
+        assert canUndo() : "Nothing to undo";
+        assert workingChanges.isEmpty() : "Uncommitted changes";
+        Version undone = versions.get(current);
+        current--;
+        return stepTo(versions.get(current), undone.changedIds);
+    }
+
+    /**
+     * Steps forward one version.
+     *
+     * @return The new state of every task the redone change touched
+     */
+    public List<Change> redo() {
+        assert canRedo() : "Nothing to redo";
+        assert workingChanges.isEmpty() : "Uncommitted changes";
+        current++;
+        Version redone = versions.get(current);
+        return stepTo(redone, redone.changedIds);
+    }
+
+    private List<Change> stepTo(Version target, long[] changedIds) {
+        workingRoot = target.root;
+        workingSize = target.size;
+        List<Change> changes = new ArrayList<>(changedIds.length);
+        for (long id : changedIds) {
+            Node node = get(target.root, id);
+            changes.add(node == null
+                    ? new Change(id, null, false, null)
+                    : new Change(id, node.task, node.isDone, node.done));
+        }
+        return changes;
+    }
+
+    /**
+     * Describes how much history is kept.
+     *
+     * @return One line with the number of undo and redo steps and the changes they cover
+     */
+    public String describe() {
+        long changeCount = 0;
+        for (Version version : versions) {
+            changeCount += version.changedIds.length;
+        }
+        return String.format("Undo history: %,d undo and %,d redo steps covering %,d task changes",
+                current, versions.size() - 1 - current, changeCount);
+    }
+}
@@ -0,0 +1,44 @@
+package patrick;
+
+import patrick.task.Task;
+
+/**
+ * A secondary index over the tasks of a TaskList, kept up to date as tasks are added, deleted,
+ * marked and unmarked.
+ */
+public interface TaskIndex {
+    /**
+     * Adds a task that was appended to the list.
+     *
+     * @param task The task to index
+     */
+    void add(Task task);
+
+    /**
+     * Removes a task that was deleted from the list.
+     *
+     * @param task The task to remove
+     */
+    void remove(Task task);
+
+    /**
+     * Updates a task whose done status changed. Indexes that ignore the status need not override this.
+     *
+     * @param task The task that was marked or unmarked
+     */
+    default void updateStatus(Task task) {
+        // Most indexes do not depend on the done status
+    }
+
+    /**
+     * Removes every task from the index.
+     */
+    void clear();
+
+    /**
+     * Describes the size of the index for the stats command.
+     *
+     * @return A one-line summary of the index
+     */
+    String describe();
+}
@@ -1,30 +1,326 @@
 package patrick;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Supplier;
 
+import patrick.task.Recurrence;
+import patrick.task.RecurringTask;
 import patrick.task.Task;
 
 /**
- * Contains the task list and operations to add/delete tasks in the list
+ * Contains the task list and operations to add/delete tasks in the list.
+ * Every task has a stable ID that can be looked up in O(1). Tasks sit in append-only slots, with
+ * deleted slots left empty, and a Fenwick tree counting the live tasks lets positions be mapped to
+ * slots and back in O(log n), so deleting by position does not shift the rest of the list.
+ * Every mutating call is recorded as one version in a {@link TaskHistory} for undo and redo.
+ * Mutations mark the list dirty so a background writer knows a new snapshot is needed.
+ *
+ * <p>One instance can be shared by the CLI, the GUI and the background saver. Mutations take the write
+ * lock of a {@link StampedLock} and queries that walk the indexes take its read lock, so queries run in
+ * parallel with each other but never see an index halfway through a change. After every change the list
+ * publishes the committed history version as an immutable {@link TaskHistory.Snapshot}; {@link #snapshot},
+ * {@link #getTasks} and {@link #size} read that without locking, so listing and saving never block, or
+ * are blocked by, a writer. A snapshot holds copies of the tasks with the status they had in that version,
+ * so it never shows part of a change, such as half of a bulk mark.</p>
+ * Secondary indexes over the tasks, such as the keyword and trigram indexes used by find and the
+ * date index used by due, upcoming and overdue, are kept up to date as the list changes.
+ * Events are also kept in an interval tree so clashes can be found without a scan, and a status index
+ * splits done from pending tasks for structured queries.
  */
 public class TaskList {
-    private ArrayList<Task> tasks;
+    private static final int INITIAL_CAPACITY = 16;
+    // Compact once at least this many deleted slots make up half of the slots
+    private static final int MIN_FREE_SLOTS_TO_COMPACT = 1024;
+
+    // Tasks in list order with null for deleted tasks; fenwick counts the live tasks in each range of slots
+    private Task[] slots = new Task[INITIAL_CAPACITY];
+    private int[] fenwick = new int[INITIAL_CAPACITY + 1];
+    private int slotCount;
+    private int size;
+    private HashMap<Long, Integer> slotsById = new HashMap<>();
+    private long nextId = 1;
+
+    private final StampedLock lock = new StampedLock();
+    private volatile boolean isDirty;
+    private KeywordIndex keywordIndex = new KeywordIndex();
+    private TrigramIndex trigramIndex = new TrigramIndex();
+    private TemporalIndex temporalIndex = new TemporalIndex();
+    private EventIntervalTree eventIntervalTree = new EventIntervalTree();
+    private StatusIndex statusIndex = new StatusIndex();
+    // Sorted views are built on first use and then join the indexes, so only the orders in use cost memory
+    private EnumMap<SortOrder, SortedView> sortedViews = new EnumMap<>(SortOrder.class);
+    private List<TaskIndex> indexes = new ArrayList<>(List.of(keywordIndex, trigramIndex, temporalIndex,
+            eventIntervalTree, statusIndex));
+    private TaskHistory history = new TaskHistory(List.of());
+    private volatile TaskHistory.Snapshot published = history.getSnapshot();
 
     public TaskList() {
-        this.tasks = new ArrayList<>();
     }
 
+    /**
+     * Creates a task list holding the given tasks, e.g. the ones loaded from storage, and indexes them.
+     * Tasks without an ID are given one. The list keeps its tasks in ID order, so tasks whose IDs are out
+     * of order, e.g. after a hand edit, are sorted by ID and a task number always names the task listed
+     * at that position.
+     * @param tasks The tasks, in list order once sorted by ID
+     */
     public TaskList(ArrayList<Task> tasks) {
-        this.tasks = tasks;
+        nextId = assignMissingIds(tasks);
+        tasks = inListOrder(tasks);
+        fillSlots(tasks);
+        for (Task task : tasks) {
+            addToIndexes(task);
+        }
+        history = new TaskHistory(tasks);
+        published = history.getSnapshot();
+    }
+
+    /**
+     * Replaces the slots with the given tasks, one per slot, without touching the indexes.
+     * @param tasks The tasks in list order
+     */
+    private void fillSlots(List<Task> tasks) {
+        slots = new Task[Math.max(INITIAL_CAPACITY, tasks.size() * 2)];
+        slotsById.clear();
+        slotCount = 0;
+        for (Task task : tasks) {
+            slotsById.put(task.getId(), slotCount);
+            slots[slotCount++] = task;
+        }
+        size = slotCount;
+        rebuildFenwick();
+    }
+
+    /**
+     * Gives every task without an ID the next unused one, in list order, so loading the same tasks
+     * always assigns the same IDs.
+     * @param tasks The tasks in list order
+     * @return The ID after the largest one in use
+     */
+    static long assignMissingIds(List<Task> tasks) {
+        long nextId = 1;
+        for (Task task : tasks) {
+            nextId = Math.max(nextId, task.getId() + 1);
+        }
+        for (Task task : tasks) {
+            if (task.getId() == 0) {
+                task.setId(nextId++);
+            }
+        }
+        return nextId;
+    }
+
+    private void addToIndexes(Task task) {
+        for (TaskIndex index : indexes) {
+            index.add(task);
+        }
+    }
+
+    private void removeFromIndexes(Task task) {
+        for (TaskIndex index : indexes) {
+            index.remove(task);
+        }
+    }
+
+    private void updateStatusInIndexes(Task task) {
+        for (TaskIndex index : indexes) {
+            index.updateStatus(task);
+        }
+    }
+
+    /**
+     * Rebuilds the Fenwick tree over the first slotCount slots in O(n).
+     */
+    private void rebuildFenwick() {
+        fenwick = new int[slots.length + 1];
+        for (int i = 1; i <= slotCount; i++) {
+            fenwick[i] += slots[i - 1] == null ? 0 : 1;
+            int parent = i + (i & -i);
+            if (parent <= slotCount) {
+                fenwick[parent] += fenwick[i];
+            }
+        }
+    }
+
+    private void updateFenwick(int slot, int delta) {
+        for (int i = slot + 1; i <= slotCount; i += i & -i) {
+            fenwick[i] += delta;
+        }
+    }
+
+    /**
+     * Counts the live tasks in the slots before the given one.
+     */
+    private int countBefore(int slot) {
+        int count = 0;
+        for (int i = slot; i > 0; i -= i & -i) {
+            count += fenwick[i];
+        }
+        return count;
+    }
+
+    /**
+     * Finds the slot of the task at the given position by descending the Fenwick tree.
+     * @param index The position of a live task (0-based)
+     * @return The slot holding it
+     */
+    private int findSlot(int index) {
+        int slot = 0;
+        int remaining = index + 1;
+        for (int step = Integer.highestOneBit(slotCount); step > 0; step >>= 1) {
+            int next = slot + step;
+            if (next <= slotCount && fenwick[next] < remaining) {
+                slot = next;
+                remaining -= fenwick[next];
+            }
+        }
+        return slot;
+    }
+
+    /**
+     * Drops deleted slots once they make up half of the slots, so memory and lookups stay proportional
+     * to the live tasks.
+     */
+    private void compactIfSparse() {
+        int freeSlots = slotCount - size;
+        if (freeSlots < MIN_FREE_SLOTS_TO_COMPACT || freeSlots * 2 < slotCount) {
+            return;
+        }
+        fillSlots(liveTasks());
+    }
+
+    /**
+     * Puts a task in a new slot after every other slot.
+     */
+    private void appendSlot(Task task) {
+        if (slotCount == slots.length) {
+            slots = Arrays.copyOf(slots, slots.length * 2);
+            slots[slotCount++] = task;
+            rebuildFenwick();
+        } else {
+            slots[slotCount++] = task;
+            // The new last node covers the slots below it, all already counted in the tree
+            int lowBit = slotCount & -slotCount;
+            fenwick[slotCount] = 1 + countBefore(slotCount - 1) - countBefore(slotCount - lowBit);
+        }
+        slotsById.put(task.getId(), slotCount - 1);
+        size++;
+    }
+
+    /**
+     * Empties a slot and forgets its task. The caller compacts the slots once it is done removing.
+     * @return The removed task
+     */
+    private Task removeSlot(int slot) {
+        Task task = slots[slot];
+        assert task != null : "Removed slot must hold a task";
+        slots[slot] = null;
+        updateFenwick(slot, -1);
+        slotsById.remove(task.getId());
+        size--;
+        removeFromIndexes(task);
+        return task;
+    }
+
+    /**
+     * Puts a task back at the position its ID gives it. Tasks are appended with increasing IDs, so list
+     * order is ID order. The task reuses an empty slot between its neighbours when there is one, which is
+     * always the case unless the slots were compacted since it was deleted.
+     */
+    private void insertInIdOrder(Task task) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (slots[findSlot(middle)].getId() < task.getId()) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+
+        if (low == size) {
+            appendSlot(task);
+        } else {
+            int nextSlot = findSlot(low);
+            int previousSlot = low == 0 ? -1 : findSlot(low - 1);
+            if (nextSlot - previousSlot > 1) {
+                slots[nextSlot - 1] = task;
+                updateFenwick(nextSlot - 1, 1);
+                slotsById.put(task.getId(), nextSlot - 1);
+                size++;
+            } else {
+                ArrayList<Task> reordered = liveTasks();
+                reordered.add(low, task);
+                fillSlots(reordered);
+            }
+        }
+        addToIndexes(task);
+    }
+
+    /**
+     * Makes the committed version visible to lock-free readers, then marks the list dirty. Publishing
+     * first means a saver that clears the flag and then takes a snapshot cannot miss the change.
+     */
+    private void publishChange() {
+        published = history.getSnapshot();
+        isDirty = true;
+    }
+
+    /**
+     * Marks a task as done or not done. A recurring task has its earliest pending occurrence marked, or its
+     * latest done one unmarked, and the occurrence is returned so callers can show and journal that one day.
+     * @return The task, or the occurrence of a recurring task that changed
+     */
+    private Task setTaskStatus(Task task, boolean isDone) {
+        Task changed = task;
+        if (task instanceof RecurringTask) {
+            Recurrence recurrence = ((RecurringTask) task).getRecurrence();
+            LocalDate date = isDone ? recurrence.nextPending() : recurrence.lastDone();
+            if (date == null) {
+                // Nothing is done yet, so there is nothing to unmark
+                return task;
+            }
+            recurrence.setDoneOn(date, isDone);
+            changed = ((RecurringTask) task).occurrenceOn(date);
+        } else {
+            setStatusWithoutIndexes(task, isDone);
+        }
+        updateStatusInIndexes(task);
+        history.recordPut(task);
+        return changed;
     }
 
     /**
-     * Adds a task to the list
+     * Adds a task to the list, giving it an ID if it has none.
      * @param task The task to add
      */
     public void addTask(Task task) {
         assert task != null : "Task to be added cannot be null";
-        tasks.add(task);
+        long stamp = lock.writeLock();
+        try {
+            if (task.getId() == 0) {
+                task.setId(nextId);
+            }
+            nextId = Math.max(nextId, task.getId() + 1);
+            assert !slotsById.containsKey(task.getId()) : "Task IDs must be unique";
+
+            appendSlot(task);
+            addToIndexes(task);
+            history.recordPut(task);
+            history.commit("adding " + task);
+            publishChange();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
     }
 
     /**
@@ -33,34 +329,74 @@ public class TaskList {
      * @throws PatrickException if the index is invalid
      */
     private void validateTaskIndex(int index) throws PatrickException {
-        if (index < 0 || index >= tasks.size()) {
+        if (index < 0 || index >= size) {
             throw new PatrickException("Huh? That task doesn't exist...");
         }
     }
 
     /**
-     * Deletes a task from the list
+     * Finds the position of the task with the given ID.
+     * @param id The task ID
+     * @return The index of the task (0-based)
+     * @throws PatrickException if no task has that ID
+     */
+    public int indexOfId(long id) throws PatrickException {
+        long stamp = lock.readLock();
+        try {
+            Integer slot = slotsById.get(id);
+            if (slot == null) {
+                throw new PatrickException("Huh? There's no task " + Task.formatId(id) + "...");
+            }
+            return countBefore(slot);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Deletes a task from the list in O(log n), plus the cost of updating the search indexes.
      * @param index The index of the task to delete (0-based)
      * @return The deleted task
      * @throws PatrickException if the index is invalid
      */
     public Task deleteTask(int index) throws PatrickException {
-        validateTaskIndex(index);
+        long stamp = lock.writeLock();
+        try {
+            validateTaskIndex(index);
 
-        Task deletedTask = tasks.remove(index);
-        assert deletedTask != null : "Deleted task should not be null";
-        return deletedTask;
+            Task deletedTask = removeSlot(findSlot(index));
+            compactIfSparse();
+            history.recordRemove(deletedTask);
+            history.commit("deleting " + deletedTask);
+            publishChange();
+            assert deletedTask != null : "Deleted task should not be null";
+            return deletedTask;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
     }
 
     /**
-     * Gets a task from the list
+     * Gets a task from the list in O(log n).
      * @param index The index of the task (0-based)
      * @return The task at the specified index
      * @throws PatrickException if the index is invalid
      */
     public Task getTask(int index) throws PatrickException {
+        long stamp = lock.readLock();
+        try {
+            return taskAt(index);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Gets a task for a caller that already holds the lock. StampedLock is not reentrant.
+     */
+    private Task taskAt(int index) throws PatrickException {
         validateTaskIndex(index);
-        Task task = tasks.get(index);
+        Task task = slots[findSlot(index)];
         assert task != null : "Retrieved task should not be null for valid index";
         return task;
     }
@@ -68,37 +404,369 @@ public class TaskList {
     /**
      * Marks a task as done.
      * @param index The index of the task to mark (0-based)
+     * @return The task whose status changed, or for a recurring task the occurrence that changed
      * @throws PatrickException if the index is invalid
      */
-    public void markTask(int index) throws PatrickException {
-        validateTaskIndex(index);
-        tasks.get(index).markAsDone();
+    public Task markTask(int index) throws PatrickException {
+        long stamp = lock.writeLock();
+        try {
+            Task changed = setTaskStatus(taskAt(index), true);
+            history.commit("marking " + changed);
+            publishChange();
+            return changed;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
     }
 
     /**
      * Unmarks a task (marks as not done)
      * @param index The index of the task to unmark (0-based)
+     * @return The task whose status changed, or for a recurring task the occurrence that changed
      * @throws PatrickException if the index is invalid
      */
-    public void unmarkTask(int index) throws PatrickException {
-        validateTaskIndex(index);
-        tasks.get(index).markAsNotDone();
+    public Task unmarkTask(int index) throws PatrickException {
+        long stamp = lock.writeLock();
+        try {
+            Task changed = setTaskStatus(taskAt(index), false);
+            history.commit("unmarking " + changed);
+            publishChange();
+            return changed;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Marks one occurrence of a recurring task as done or not done.
+     * @param index The index of the recurring task (0-based)
+     * @param date The date of the occurrence
+     * @param isDone The new status of the occurrence
+     * @return The occurrence with its new status
+     * @throws PatrickException if the index is invalid, the task does not repeat or does not occur on the date
+     */
+    public Task setOccurrenceStatus(int index, LocalDate date, boolean isDone) throws PatrickException {
+        long stamp = lock.writeLock();
+        try {
+            Task task = taskAt(index);
+            if (!(task instanceof RecurringTask)) {
+                throw new PatrickException("Uhhh... that task doesn't repeat");
+            }
+            Recurrence recurrence = ((RecurringTask) task).getRecurrence();
+            if (!recurrence.isOccurrence(date)) {
+                throw new PatrickException("Uhhh... that task doesn't happen on that day");
+            }
+            recurrence.setDoneOn(date, isDone);
+            updateStatusInIndexes(task);
+            history.recordPut(task);
+            Task occurrence = ((RecurringTask) task).occurrenceOn(date);
+            history.commit((isDone ? "marking " : "unmarking ") + occurrence);
+            publishChange();
+            return occurrence;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Checks every index of a bulk operation before any task is touched, so a bad index changes nothing.
+     * @param indexes The indexes to validate (0-based)
+     * @throws PatrickException if any index is invalid
+     */
+    private void validateTaskIndexes(int[] indexes) throws PatrickException {
+        for (int index : indexes) {
+            validateTaskIndex(index);
+        }
+    }
+
+    /**
+     * Marks several tasks as done in one pass.
+     * @param indexes The indexes of the tasks to mark (0-based)
+     * @return The marked tasks in the order of the indexes, with the marked occurrence of a recurring task
+     * @throws PatrickException if any index is invalid, in which case no task is marked
+     */
+    public ArrayList<Task> markTasks(int[] indexes) throws PatrickException {
+        return setStatus(indexes, true);
+    }
+
+    /**
+     * Marks several tasks as not done in one pass.
+     * @param indexes The indexes of the tasks to unmark (0-based)
+     * @return The unmarked tasks in the order of the indexes, with the unmarked occurrence of a recurring task
+     * @throws PatrickException if any index is invalid, in which case no task is unmarked
+     */
+    public ArrayList<Task> unmarkTasks(int[] indexes) throws PatrickException {
+        return setStatus(indexes, false);
+    }
+
+    private ArrayList<Task> setStatus(int[] indexes, boolean isDone) throws PatrickException {
+        long stamp = lock.writeLock();
+        try {
+            validateTaskIndexes(indexes);
+            ArrayList<Task> changed = new ArrayList<>(indexes.length);
+            for (int index : indexes) {
+                changed.add(setTaskStatus(slots[findSlot(index)], isDone));
+            }
+            history.commit((isDone ? "marking " : "unmarking ") + changed.size() + " tasks");
+            publishChange();
+            return changed;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
     }
 
     /**
-     * Gets the number of tasks in the list
+     * Deletes several tasks at once. Every index refers to the list as it was before the call, so
+     * removing one task does not shift the others.
+     * @param indexes The distinct indexes of the tasks to delete (0-based)
+     * @return The deleted tasks in the order of the indexes
+     * @throws PatrickException if any index is invalid, in which case no task is deleted
+     */
+    public ArrayList<Task> deleteTasks(int[] indexes) throws PatrickException {
+        long stamp = lock.writeLock();
+        try {
+            validateTaskIndexes(indexes);
+            int[] deletedSlots = new int[indexes.length];
+            for (int i = 0; i < indexes.length; i++) {
+                deletedSlots[i] = findSlot(indexes[i]);
+            }
+
+            ArrayList<Task> deleted = new ArrayList<>(indexes.length);
+            for (int slot : deletedSlots) {
+                Task task = removeSlot(slot);
+                history.recordRemove(task);
+                deleted.add(task);
+            }
+            compactIfSparse();
+            history.commit("deleting " + deleted.size() + " tasks");
+            publishChange();
+            return deleted;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Reverts the most recent change that has not been undone yet.
+     * @return What the undone change did
+     * @throws PatrickException if there is nothing to undo
+     */
+    public String undo() throws PatrickException {
+        long stamp = lock.writeLock();
+        try {
+            if (!history.canUndo()) {
+                throw new PatrickException("Uhhh... there's nothing to undo");
+            }
+            String description = history.getUndoDescription();
+            applyChanges(history.undo());
+            return description;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Applies the most recently undone change again.
+     * @return What the redone change does
+     * @throws PatrickException if there is nothing to redo
+     */
+    public String redo() throws PatrickException {
+        long stamp = lock.writeLock();
+        try {
+            if (!history.canRedo()) {
+                throw new PatrickException("Uhhh... there's nothing to redo");
+            }
+            String description = history.getRedoDescription();
+            applyChanges(history.redo());
+            return description;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Brings the tasks a version change touched to their state in that version.
+     */
+    private void applyChanges(List<TaskHistory.Change> changes) {
+        for (TaskHistory.Change change : changes) {
+            Integer slot = slotsById.get(change.getId());
+            Task target = change.getTask();
+            if (target == null) {
+                if (slot != null) {
+                    removeSlot(slot);
+                }
+                continue;
+            }
+            if (slot == null) {
+                change.restoreStatus(target);
+                insertInIdOrder(target);
+            } else if (!change.hasStatusOf(target)) {
+                change.restoreStatus(target);
+                updateStatusInIndexes(target);
+            }
+        }
+        compactIfSparse();
+        publishChange();
+    }
+
+    private static void setStatusWithoutIndexes(Task task, boolean isDone) {
+        if (isDone) {
+            task.markAsDone();
+        } else {
+            task.markAsNotDone();
+        }
+    }
+
+    /**
+     * Finds the positions of every task that is done.
+     * @return The indexes of the done tasks in increasing order (0-based)
+     */
+    public int[] findDoneIndexes() {
+        long stamp = lock.readLock();
+        try {
+            int[] done = new int[size];
+            int count = 0;
+            int index = 0;
+            for (int slot = 0; slot < slotCount; slot++) {
+                if (slots[slot] == null) {
+                    continue;
+                }
+                if (slots[slot].isDone()) {
+                    done[count++] = index;
+                }
+                index++;
+            }
+            return Arrays.copyOf(done, count);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Gets the number of tasks in the list as of the last completed change, without locking.
      * @return The number of tasks
      */
     public int size() {
-        return tasks.size();
+        return published.size();
     }
 
     /**
-     * Gets the ArrayList of tasks
-     * @return The ArrayList of tasks
+     * Gets the tasks in list order
+     * @return A new ArrayList of copies of the tasks
      */
     public ArrayList<Task> getTasks() {
-        return tasks;
+        return snapshot();
+    }
+
+    /**
+     * Returns a copy of the tasks as of the last completed change. It is built from the published history
+     * version without locking, so it never waits for a writer and is safe to read while the list keeps
+     * changing. The tasks are copies, so marking a task afterwards does not change them.
+     * @return Copies of the tasks in list order
+     */
+    public ArrayList<Task> snapshot() {
+        return published.toList();
+    }
+
+    /**
+     * Gets the tasks in the given order. Orders other than list order come from a sorted view that is
+     * built the first time the order is asked for and then kept up to date as the list changes, so
+     * listing in the same order again only copies the view. The tasks are copied under the lock, so like a
+     * snapshot they show no part of a later change.
+     * @param order The order to list the tasks in
+     * @return A new ArrayList of copies of the tasks in that order
+     */
+    public ArrayList<Task> getTasks(SortOrder order) {
+        if (order == SortOrder.CREATED) {
+            return snapshot();
+        }
+        long stamp = lock.readLock();
+        try {
+            SortedView view = sortedViews.get(order);
+            if (view == null) {
+                long writeStamp = lock.tryConvertToWriteLock(stamp);
+                if (writeStamp == 0) {
+                    lock.unlockRead(stamp);
+                    writeStamp = lock.writeLock();
+                }
+                stamp = writeStamp;
+                view = sortedViews.computeIfAbsent(order, this::buildSortedView);
+            }
+            ArrayList<Task> tasks = view.toList();
+            tasks.replaceAll(Task::copy);
+            return tasks;
+        } finally {
+            lock.unlock(stamp);
+        }
+    }
+
+    /**
+     * Builds a sorted view of the current tasks and registers it so later changes keep it up to date.
+     * The caller must hold the write lock.
+     */
+    private SortedView buildSortedView(SortOrder order) {
+        SortedView view = new SortedView(order);
+        for (int slot = 0; slot < slotCount; slot++) {
+            if (slots[slot] != null) {
+                view.add(slots[slot]);
+            }
+        }
+        indexes.add(view);
+        return view;
+    }
+
+    /**
+     * Registers an index kept outside the list, such as the reminder scheduler, and fills it with the
+     * current tasks so later changes keep it up to date.
+     * @param index The empty index
+     */
+    public void addIndex(TaskIndex index) {
+        long stamp = lock.writeLock();
+        try {
+            for (int slot = 0; slot < slotCount; slot++) {
+                if (slots[slot] != null) {
+                    index.add(slots[slot]);
+                }
+            }
+            indexes.add(index);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Copies the tasks in the slots, for callers that hold the write lock mid-change.
+     */
+    private ArrayList<Task> liveTasks() {
+        ArrayList<Task> copy = new ArrayList<>(size);
+        for (int slot = 0; slot < slotCount; slot++) {
+            if (slots[slot] != null) {
+                copy.add(slots[slot]);
+            }
+        }
+        return copy;
+    }
+
+    /**
+     * Checks whether the list changed since it was last saved.
+     * @return true if there are unsaved changes
+     */
+    public boolean isDirty() {
+        return isDirty;
+    }
+
+    /**
+     * Marks the list as changed since it was last saved.
+     */
+    public void markDirty() {
+        isDirty = true;
+    }
+
+    /**
+     * Marks the list as saved.
+     */
+    public void clearDirty() {
+        isDirty = false;
     }
 
     /**
@@ -107,12 +775,141 @@ public class TaskList {
      * @return ArrayList of tasks that match the keyword
      */
     public ArrayList<Task> findTasks(String keyword) {
-        ArrayList<Task> matchingTasks = new ArrayList<>();
-        for (Task task : tasks) {
-            if (task.getDescription().contains(keyword)) {
-                matchingTasks.add(task);
+        return findTasks(keyword, SearchMode.SUBSTRING);
+    }
+
+    /**
+     * Finds tasks matching the query in the given mode.
+     * Word and fuzzy queries are answered from the keyword index and substring queries from the trigram index.
+     * @param query The text to search for
+     * @param mode How the query is matched against descriptions
+     * @return ArrayList of matching tasks in list order
+     */
+    public ArrayList<Task> findTasks(String query, SearchMode mode) {
+        return underReadLock(() -> {
+            switch (mode) {
+            case WORD:
+                return inListOrder(keywordIndex.find(query));
+            case FUZZY:
+                return inListOrder(keywordIndex.findFuzzy(query));
+            default:
+                return inListOrder(trigramIndex.find(query));
             }
+        });
+    }
+
+    /**
+     * Finds the tasks most relevant to the query, ranked by BM25 over the keyword index.
+     * @param query The words to search for
+     * @param limit The number of tasks to return at most
+     * @return ArrayList of at most limit tasks, most relevant first
+     */
+    public ArrayList<Task> findTopTasks(String query, int limit) {
+        return underReadLock(() -> new ArrayList<>(keywordIndex.findTop(query, limit)));
+    }
+
+    /**
+     * Finds the tasks matching a structured query, starting from the most selective index the planner finds.
+     * @param query The parsed query
+     * @return ArrayList of matching tasks in list order
+     */
+    public ArrayList<Task> query(TaskQuery query) {
+        return underReadLock(() -> inListOrder(planQuery(query).execute()));
+    }
+
+    /**
+     * Describes how a structured query would be answered, without running it.
+     * @param query The parsed query
+     * @return The lines of the plan, ending with its estimated cost
+     */
+    public List<String> explain(TaskQuery query) {
+        return underReadLock(() -> planQuery(query).describe());
+    }
+
+    private QueryPlanner.Plan planQuery(TaskQuery query) {
+        return new QueryPlanner(keywordIndex, temporalIndex, statusIndex, this::liveTasks, size).plan(query);
+    }
+
+    /**
+     * Finds the deadlines due and the events starting on the given date.
+     * @param date The date
+     * @return ArrayList of the tasks on that date in list order
+     */
+    public ArrayList<Task> findDueOn(LocalDate date) {
+        return underReadLock(() -> inListOrder(temporalIndex.findOn(date)));
+    }
+
+    /**
+     * Finds the deadlines due and the events starting within the given number of days.
+     * @param today The first day of the range
+     * @param days The number of days after today to include
+     * @return ArrayList of the tasks in the range ordered by date
+     */
+    public ArrayList<Task> findUpcoming(LocalDate today, int days) {
+        assert days >= 0 : "Number of days cannot be negative";
+        return underReadLock(() -> new ArrayList<>(temporalIndex.findOccurrencesBetween(today, today.plusDays(days))));
+    }
+
+    /**
+     * Finds the deadlines and events before the given date that are not done yet.
+     * @param today The date, usually today
+     * @return ArrayList of the overdue tasks ordered by date
+     */
+    public ArrayList<Task> findOverdue(LocalDate today) {
+        return underReadLock(() -> new ArrayList<>(temporalIndex.findPendingBefore(today)));
+    }
+
+    /**
+     * Finds the events that overlap the given period. Events that only touch it at either end do not count.
+     * @param from The start of the period
+     * @param to The end of the period
+     * @return ArrayList of the clashing events ordered by start time
+     */
+    public ArrayList<Task> findClashes(LocalDateTime from, LocalDateTime to) {
+        return underReadLock(() -> new ArrayList<>(eventIntervalTree.findOverlapping(from, to)));
+    }
+
+    /**
+     * Runs a query over the indexes while holding the read lock, so it sees no change halfway done.
+     */
+    private <T> T underReadLock(Supplier<T> query) {
+        long stamp = lock.readLock();
+        try {
+            return query.get();
+        } finally {
+            lock.unlockRead(stamp);
         }
-        return matchingTasks;
+    }
+
+    /**
+     * Copies index results, which come out in the order tasks were indexed, into list order. The two only
+     * differ after undo or redo put a task back into the middle of the list.
+     */
+    private static ArrayList<Task> inListOrder(List<Task> tasks) {
+        ArrayList<Task> ordered = new ArrayList<>(tasks);
+        for (int i = 1; i < ordered.size(); i++) {
+            if (ordered.get(i - 1).getId() > ordered.get(i).getId()) {
+                ordered.sort(Comparator.comparingLong(Task::getId));
+                break;
+            }
+        }
+        return ordered;
+    }
+
+    /**
+     * Describes the size of the list and of each of its indexes.
+     * @return One line per index, after a line with the number of tasks
+     */
+    public List<String> getStats() {
+        return underReadLock(() -> {
+            List<String> lines = new ArrayList<>();
+            lines.add(String.format("Tasks: %,d (%,d slots, next ID %s)", size, slotCount, Task.formatId(nextId)));
+            for (TaskIndex index : indexes) {
+                lines.add(index.describe());
+            }
+            lines.add(history.describe());
+            lines.add(DescriptionPool.shared().describe());
+            return lines;
+        });
     }
 }
@@ -0,0 +1,348 @@
+package patrick;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import patrick.task.DateCodec;
+
+/**
+ * A parsed find query such as "book type:D -done after:2019-10-01 before:2019-11-01".
+ *
+ * <p>Terms next to each other must all hold. A term is one of:</p>
+ * <ul>
+ *   <li>a word, matched against the words of the description like the keyword index does</li>
+ *   <li>{@code done}, for tasks that are done</li>
+ *   <li>{@code type:T}, {@code type:D} or {@code type:E} (or {@code todo}, {@code deadline}, {@code event})</li>
+ *   <li>{@code before:yyyy-MM-dd}, {@code after:yyyy-MM-dd} or {@code on:yyyy-MM-dd}, for deadlines due and
+ *       events starting strictly before, strictly after or on the date</li>
+ * </ul>
+ * <p>Terms can be combined with {@code AND}, {@code OR} and {@code NOT} (or a leading {@code -}), written in
+ * capitals, and grouped with parentheses. NOT binds tightest, then AND, then OR.</p>
+ */
+public class TaskQuery {
+    private static final String OR = "OR";
+    private static final String AND = "AND";
+    private static final String NOT = "NOT";
+    private static final String NEGATION_PREFIX = "-";
+    private static final String OPEN = "(";
+    private static final String CLOSE = ")";
+    private static final String DONE = "done";
+    private static final String TYPE_PREFIX = "type:";
+    private static final String BEFORE_PREFIX = "before:";
+    private static final String AFTER_PREFIX = "after:";
+    private static final String ON_PREFIX = "on:";
+
+    private final Node root;
+    private final List<String> tokens;
+    private int position;
+
+    /**
+     * A condition on tasks. The planner decides how each kind is answered.
+     */
+    public abstract static class Node {
+    }
+
+    /**
+     * Holds for tasks whose description contains the word.
+     */
+    public static class Word extends Node {
+        private final String word;
+
+        private Word(String word) {
+            this.word = word;
+        }
+
+        public String getWord() {
+            return word;
+        }
+
+        @Override
+        public String toString() {
+            return word;
+        }
+    }
+
+    /**
+     * Holds for tasks that are done.
+     */
+    public static class IsDone extends Node {
+        @Override
+        public String toString() {
+            return DONE;
+        }
+    }
+
+    /**
+     * Holds for tasks of one type, given by the letter used in the file format.
+     */
+    public static class TypeIs extends Node {
+        private final char type;
+
+        private TypeIs(char type) {
+            this.type = type;
+        }
+
+        public char getType() {
+            return type;
+        }
+
+        @Override
+        public String toString() {
+            return TYPE_PREFIX + type;
+        }
+    }
+
+    /**
+     * Holds for deadlines and events dated from one day to another, both inclusive.
+     */
+    public static class DateRange extends Node {
+        private final LocalDate from;
+        private final LocalDate to;
+        private final String text;
+
+        private DateRange(LocalDate from, LocalDate to, String text) {
+            this.from = from;
+            this.to = to;
+            this.text = text;
+        }
+
+        public LocalDate getFrom() {
+            return from;
+        }
+
+        public LocalDate getTo() {
+            return to;
+        }
+
+        @Override
+        public String toString() {
+            return text;
+        }
+    }
+
+    /**
+     * Holds for tasks the inner condition does not hold for.
+     */
+    public static class Not extends Node {
+        private final Node inner;
+
+        private Not(Node inner) {
+            this.inner = inner;
+        }
+
+        public Node getInner() {
+            return inner;
+        }
+
+        @Override
+        public String toString() {
+            return NOT + " " + inner;
+        }
+    }
+
+    /**
+     * Holds for tasks every part holds for.
+     */
+    public static class And extends Node {
+        private final List<Node> parts;
+
+        private And(List<Node> parts) {
+            this.parts = parts;
+        }
+
+        public List<Node> getParts() {
+            return parts;
+        }
+
+        @Override
+        public String toString() {
+            return join(parts, " " + AND + " ");
+        }
+    }
+
+    /**
+     * Holds for tasks any part holds for.
+     */
+    public static class Or extends Node {
+        private final List<Node> parts;
+
+        private Or(List<Node> parts) {
+            this.parts = parts;
+        }
+
+        public List<Node> getParts() {
+            return parts;
+        }
+
+        @Override
+        public String toString() {
+            return join(parts, " " + OR + " ");
+        }
+    }
+
+    private static String join(List<Node> parts, String separator) {
+        List<String> texts = new ArrayList<>();
+        for (Node part : parts) {
+            boolean needsParentheses = part instanceof And || part instanceof Or;
+            texts.add(needsParentheses ? OPEN + part + CLOSE : part.toString());
+        }
+        return String.join(separator, texts);
+    }
+
+    private TaskQuery(String text) throws PatrickException {
+        tokens = new ArrayList<>();
+        for (String token : text.replace(OPEN, " " + OPEN + " ").replace(CLOSE, " " + CLOSE + " ").split("\\s+")) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        if (tokens.isEmpty()) {
+            throw new PatrickException("Uhhh... what should I search for?");
+        }
+        root = parseOr();
+        if (position < tokens.size()) {
+            throw new PatrickException("Uhhh... there's a " + CLOSE + " without a " + OPEN + " in that search");
+        }
+    }
+
+    /**
+     * Parses a query.
+     *
+     * @param text The query, e.g. "book type:D -done"
+     * @return The parsed query
+     * @throws PatrickException if the query is empty or malformed
+     */
+    public static TaskQuery parse(String text) throws PatrickException {
+        return new TaskQuery(text);
+    }
+
+    /**
+     * Returns the condition at the top of the query.
+     *
+     * @return The root condition
+     */
+    public Node getRoot() {
+        return root;
+    }
+
+    @Override
+    public String toString() {
+        return root.toString();
+    }
+
+    private boolean isAtEnd() {
+        return position == tokens.size();
+    }
+
+    private String peek() {
+        return tokens.get(position);
+    }
+
+    private Node parseOr() throws PatrickException {
+        List<Node> parts = new ArrayList<>();
+        parts.add(parseAnd());
+        while (!isAtEnd() && peek().equals(OR)) {
+            position++;
+            parts.add(parseAnd());
+        }
+        return parts.size() == 1 ? parts.get(0) : new Or(parts);
+    }
+
+    private Node parseAnd() throws PatrickException {
+        List<Node> parts = new ArrayList<>();
+        do {
+            if (!isAtEnd() && peek().equals(AND)) {
+                position++;
+            }
+            addFlattened(parts, parseUnary());
+        } while (!isAtEnd() && !peek().equals(OR) && !peek().equals(CLOSE));
+        return parts.size() == 1 ? parts.get(0) : new And(parts);
+    }
+
+    private static void addFlattened(List<Node> parts, Node part) {
+        if (part instanceof And) {
+            parts.addAll(((And) part).getParts());
+        } else {
+            parts.add(part);
+        }
+    }
+
+    private Node parseUnary() throws PatrickException {
+        if (isAtEnd() || peek().equals(OR) || peek().equals(AND) || peek().equals(CLOSE)) {
+            throw new PatrickException("Uhhh... something's missing in that search");
+        }
+        String token = tokens.get(position++);
+        if (token.equals(NOT)) {
+            return new Not(parseUnary());
+        }
+        if (token.equals(OPEN)) {
+            Node inner = parseOr();
+            if (isAtEnd() || !peek().equals(CLOSE)) {
+                throw new PatrickException("Uhhh... there's a " + OPEN + " without a " + CLOSE + " in that search");
+            }
+            position++;
+            return inner;
+        }
+        if (token.startsWith(NEGATION_PREFIX) && token.length() > NEGATION_PREFIX.length()) {
+            return new Not(parseTerm(token.substring(NEGATION_PREFIX.length())));
+        }
+        return parseTerm(token);
+    }
+
+    private static Node parseTerm(String token) throws PatrickException {
+        String lower = token.toLowerCase(Locale.ROOT);
+        if (lower.equals(DONE)) {
+            return new IsDone();
+        }
+        if (lower.startsWith(TYPE_PREFIX)) {
+            return parseType(lower.substring(TYPE_PREFIX.length()));
+        }
+        if (lower.startsWith(BEFORE_PREFIX)) {
+            LocalDate date = parseDate(lower.substring(BEFORE_PREFIX.length()));
+            return new DateRange(LocalDate.MIN, date.minusDays(1), lower);
+        }
+        if (lower.startsWith(AFTER_PREFIX)) {
+            LocalDate date = parseDate(lower.substring(AFTER_PREFIX.length()));
+            return new DateRange(date.plusDays(1), LocalDate.MAX, lower);
+        }
+        if (lower.startsWith(ON_PREFIX)) {
+            LocalDate date = parseDate(lower.substring(ON_PREFIX.length()));
+            return new DateRange(date, date, lower);
+        }
+
+        List<Node> words = new ArrayList<>();
+        for (String word : KeywordIndex.tokenize(token)) {
+            words.add(new Word(word));
+        }
+        if (words.isEmpty()) {
+            throw new PatrickException("Uhhh... I don't get '" + token + "' in that search");
+        }
+        return words.size() == 1 ? words.get(0) : new And(words);
+    }
+
+    private static Node parseType(String type) throws PatrickException {
+        switch (type) {
+        case "t":
+        case "todo":
+            return new TypeIs('T');
+        case "d":
+        case "deadline":
+            return new TypeIs('D');
+        case "e":
+        case "event":
+            return new TypeIs('E');
+        default:
+            throw new PatrickException("Uhhh... the type should be T, D or E");
+        }
+    }
+
+    private static LocalDate parseDate(String text) throws PatrickException {
+        long day = DateCodec.parseIsoDate(text, 0, text.length());
+        if (day == DateCodec.NOT_A_DATE) {
+            throw new PatrickException("Uhhh... dates in a search should look like 2019-10-15");
+        }
+        return LocalDate.ofEpochDay(day);
+    }
+}
@@ -0,0 +1,299 @@
+package patrick;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+import patrick.task.Deadline;
+import patrick.task.Event;
+import patrick.task.Recurrence;
+import patrick.task.RecurringTask;
+import patrick.task.Task;
+
+/**
+ * Orders deadlines by their due date and events by the date they start.
+ * Tasks that are not done are also kept in a second map so overdue queries never walk finished tasks.
+ * Range queries cost O(log n + k) for k results.
+ *
+ * <p>A recurring task is filed in the pending map under its next pending occurrence, and moved when that
+ * occurrence is marked, so overdue queries reach only the series that are behind. For date queries,
+ * recurring tasks are grouped by interval and by the remainder of their first day modulo the interval: a
+ * series occurs on a day exactly when the day has the same remainder and is not before the first one. A
+ * query then looks up one group per interval and day instead of testing every series.</p>
+ */
+public class TemporalIndex implements TaskIndex {
+    private final NavigableMap<LocalDate, Set<Task>> allTasks = new TreeMap<>();
+    private final NavigableMap<LocalDate, Set<Task>> pendingTasks = new TreeMap<>();
+    // Recurring tasks by interval in days, then by the remainder of their epoch days modulo the interval
+    private final NavigableMap<Integer, Map<Integer, Set<Task>>> recurringByPhase = new TreeMap<>();
+    // The date each recurring task is filed under in pendingTasks, needed to move it when it is marked
+    private final Map<Task, LocalDate> pendingKeys = new IdentityHashMap<>();
+    private int size;
+
+    /**
+     * Returns the date a task is scheduled on, or null for tasks without a date.
+     *
+     * @param task The task
+     * @return The due date of a deadline, the start date of an event, or null
+     */
+    public static LocalDate dateOf(Task task) {
+        if (task instanceof Deadline) {
+            return ((Deadline) task).getBy();
+        } else if (task instanceof Event) {
+            return ((Event) task).getFrom().toLocalDate();
+        }
+        return null;
+    }
+
+    @Override
+    public void add(Task task) {
+        if (task instanceof RecurringTask) {
+            Recurrence recurrence = ((RecurringTask) task).getRecurrence();
+            recurringByPhase.computeIfAbsent(recurrence.getIntervalDays(), key -> new TreeMap<>())
+                    .computeIfAbsent(phaseOf(recurrence), key -> new LinkedHashSet<>())
+                    .add(task);
+            fileByNextPending(task);
+            size++;
+            return;
+        }
+        LocalDate date = dateOf(task);
+        if (date == null) {
+            return;
+        }
+        put(allTasks, date, task);
+        if (!task.isDone()) {
+            put(pendingTasks, date, task);
+        }
+        size++;
+    }
+
+    @Override
+    public void remove(Task task) {
+        if (task instanceof RecurringTask) {
+            LocalDate pendingKey = pendingKeys.remove(task);
+            if (pendingKey == null) {
+                return;
+            }
+            take(pendingTasks, pendingKey, task);
+            Recurrence recurrence = ((RecurringTask) task).getRecurrence();
+            Map<Integer, Set<Task>> phases = recurringByPhase.get(recurrence.getIntervalDays());
+            Set<Task> tasks = phases.get(phaseOf(recurrence));
+            tasks.remove(task);
+            if (tasks.isEmpty()) {
+                phases.remove(phaseOf(recurrence));
+                if (phases.isEmpty()) {
+                    recurringByPhase.remove(recurrence.getIntervalDays());
+                }
+            }
+            size--;
+            return;
+        }
+        LocalDate date = dateOf(task);
+        if (date == null) {
+            return;
+        }
+        if (take(allTasks, date, task)) {
+            size--;
+        }
+        take(pendingTasks, date, task);
+    }
+
+    @Override
+    public void updateStatus(Task task) {
+        if (task instanceof RecurringTask) {
+            LocalDate pendingKey = pendingKeys.get(task);
+            if (pendingKey != null) {
+                take(pendingTasks, pendingKey, task);
+                fileByNextPending(task);
+            }
+            return;
+        }
+        LocalDate date = dateOf(task);
+        if (date == null) {
+            return;
+        }
+        if (task.isDone()) {
+            take(pendingTasks, date, task);
+        } else {
+            put(pendingTasks, date, task);
+        }
+    }
+
+    private void fileByNextPending(Task task) {
+        LocalDate nextPending = ((RecurringTask) task).getRecurrence().nextPending();
+        put(pendingTasks, nextPending, task);
+        pendingKeys.put(task, nextPending);
+    }
+
+    private static int phaseOf(Recurrence recurrence) {
+        return Math.floorMod(recurrence.getFirst().toEpochDay(), recurrence.getIntervalDays());
+    }
+
+    /**
+     * Finds the recurring tasks with an occurrence from one date to another, both inclusive. An interval no
+     * longer than the range has every series of that interval occur in it once it has started; a longer one
+     * is looked up once for each day of the range.
+     */
+    private List<Task> findRecurringBetween(LocalDate from, LocalDate to) {
+        List<Task> result = new ArrayList<>();
+        long fromDay = from.toEpochDay();
+        long days = to.toEpochDay() - fromDay + 1;
+        for (Map.Entry<Integer, Map<Integer, Set<Task>>> entry : recurringByPhase.entrySet()) {
+            int interval = entry.getKey();
+            Map<Integer, Set<Task>> phases = entry.getValue();
+            if (days >= interval) {
+                for (Set<Task> tasks : phases.values()) {
+                    addStartedBy(result, tasks, to);
+                }
+                continue;
+            }
+            for (long day = fromDay; day < fromDay + days; day++) {
+                Set<Task> tasks = phases.get(Math.floorMod(day, interval));
+                if (tasks != null) {
+                    addStartedBy(result, tasks, to);
+                }
+            }
+        }
+        return result;
+    }
+
+    private static void addStartedBy(List<Task> result, Set<Task> tasks, LocalDate to) {
+        for (Task task : tasks) {
+            if (!((RecurringTask) task).getRecurrence().getFirst().isAfter(to)) {
+                result.add(task);
+            }
+        }
+    }
+
+    private static void put(NavigableMap<LocalDate, Set<Task>> map, LocalDate date, Task task) {
+        map.computeIfAbsent(date, key -> new LinkedHashSet<>()).add(task);
+    }
+
+    private static boolean take(NavigableMap<LocalDate, Set<Task>> map, LocalDate date, Task task) {
+        Set<Task> tasks = map.get(date);
+        if (tasks == null || !tasks.remove(task)) {
+            return false;
+        }
+        if (tasks.isEmpty()) {
+            map.remove(date);
+        }
+        return true;
+    }
+
+    /**
+     * Finds the tasks scheduled on the given date.
+     *
+     * @param date The date
+     * @return The tasks on that date in list order
+     */
+    public List<Task> findOn(LocalDate date) {
+        Set<Task> tasks = allTasks.get(date);
+        List<Task> result = tasks == null ? new ArrayList<>() : new ArrayList<>(tasks);
+        for (Task task : findRecurringBetween(date, date)) {
+            result.add(((RecurringTask) task).occurrenceOn(date));
+        }
+        return result;
+    }
+
+    /**
+     * Finds the tasks scheduled from one date to another, both inclusive. A recurring task is returned
+     * itself, once, if any of its occurrences falls in the range.
+     *
+     * @param from The first date
+     * @param to The last date
+     * @return The tasks ordered by date, followed by the recurring tasks
+     */
+    public List<Task> findBetween(LocalDate from, LocalDate to) {
+        List<Task> result = flatten(allTasks.subMap(from, true, to, true));
+        result.addAll(findRecurringBetween(from, to));
+        return result;
+    }
+
+    /**
+     * Finds the tasks and the occurrences of recurring tasks scheduled from one date to another, both
+     * inclusive.
+     *
+     * @param from The first date
+     * @param to The last date
+     * @return The tasks and occurrences ordered by date
+     */
+    public List<Task> findOccurrencesBetween(LocalDate from, LocalDate to) {
+        List<Task> result = flatten(allTasks.subMap(from, true, to, true));
+        boolean isAdded = false;
+        for (Task task : findRecurringBetween(from, to)) {
+            RecurringTask recurring = (RecurringTask) task;
+            for (LocalDate date : recurring.getRecurrence().occurrencesBetween(from, to)) {
+                result.add(recurring.occurrenceOn(date));
+                isAdded = true;
+            }
+        }
+        return isAdded ? sortedByDate(result) : result;
+    }
+
+    private static List<Task> sortedByDate(List<Task> tasks) {
+        tasks.sort(Comparator.comparing(TemporalIndex::dateOf));
+        return tasks;
+    }
+
+    /**
+     * Counts the tasks scheduled from one date to another, both inclusive, without collecting them.
+     *
+     * @param from The first date
+     * @param to The last date
+     * @return The number of tasks in the range
+     */
+    public int countBetween(LocalDate from, LocalDate to) {
+        int count = 0;
+        for (Set<Task> tasks : allTasks.subMap(from, true, to, true).values()) {
+            count += tasks.size();
+        }
+        return count + findRecurringBetween(from, to).size();
+    }
+
+    /**
+     * Finds the tasks that are not done and were scheduled before the given date. A recurring task that is
+     * behind is returned once, as its earliest pending occurrence, however many occurrences it missed.
+     *
+     * @param date The date, usually today
+     * @return The tasks and occurrences ordered by date
+     */
+    public List<Task> findPendingBefore(LocalDate date) {
+        List<Task> result = flatten(pendingTasks.headMap(date, false));
+        for (int i = 0; i < result.size(); i++) {
+            Task task = result.get(i);
+            if (task instanceof RecurringTask) {
+                result.set(i, ((RecurringTask) task).occurrenceOn(pendingKeys.get(task)));
+            }
+        }
+        return result;
+    }
+
+    private static List<Task> flatten(NavigableMap<LocalDate, Set<Task>> range) {
+        List<Task> result = new ArrayList<>();
+        for (Set<Task> tasks : range.values()) {
+            result.addAll(tasks);
+        }
+        return result;
+    }
+
+    @Override
+    public void clear() {
+        allTasks.clear();
+        recurringByPhase.clear();
+        pendingKeys.clear();
+        pendingTasks.clear();
+        size = 0;
+    }
+
+    @Override
+    public String describe() {
+        return String.format("Date index: %,d dated tasks on %,d dates", size, allTasks.size());
+    }
+}
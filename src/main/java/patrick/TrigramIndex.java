@@ -0,0 +1,205 @@
+package patrick;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+import patrick.task.Task;
+
+/**
+ * Trigram index over task descriptions for exact, case-sensitive substring search.
+ *
+ * <p>Every task gets a sequence number in list order and each trigram of its description maps to a
+ * sorted array of those numbers. A query intersects the posting arrays of its trigrams to get candidates
+ * and confirms each one with {@link String#contains}, so results are exactly those of a full scan.
+ * Deleted tasks are only tombstoned; their stale postings are dropped when the index is compacted, which
+ * keeps memory proportional to the live descriptions. A query shorter than a trigram has nothing to look up,
+ * so it checks every task; the stats line counts how often that happened.</p>
+ */
+public class TrigramIndex implements TaskIndex {
+    private static final int GRAM_LENGTH = 3;
+    private static final int INITIAL_POSTING_CAPACITY = 4;
+    // Compact once at least this many tombstones make up half of the sequence numbers
+    private static final int MIN_TOMBSTONES_TO_COMPACT = 1024;
+    // Rough per-entry costs used to report memory use
+    private static final int BYTES_PER_POSTING = Integer.BYTES;
+    private static final int BYTES_PER_TRIGRAM = 64;
+    private static final int BYTES_PER_TASK = 48;
+
+    private final HashMap<Long, Posting> postings = new HashMap<>();
+    private final IdentityHashMap<Task, Integer> sequenceNumbers = new IdentityHashMap<>();
+    // Queries run under the task list's read lock, so several threads may count at once
+    private final LongAdder shortQueryScans = new LongAdder();
+    private Task[] tasksBySequence = new Task[16];
+    private int nextSequence;
+    private int tombstones;
+
+    /**
+     * Sorted, growable array of sequence numbers.
+     */
+    private static class Posting {
+        private int[] sequences = new int[INITIAL_POSTING_CAPACITY];
+        private int size;
+
+        private void append(int sequence) {
+            if (size == sequences.length) {
+                sequences = Arrays.copyOf(sequences, size * 2);
+            }
+            sequences[size++] = sequence;
+        }
+    }
+
+    @Override
+    public void add(Task task) {
+        int sequence = nextSequence++;
+        if (sequence == tasksBySequence.length) {
+            tasksBySequence = Arrays.copyOf(tasksBySequence, sequence * 2);
+        }
+        tasksBySequence[sequence] = task;
+        sequenceNumbers.put(task, sequence);
+
+        String description = task.getDescription();
+        for (int i = 0; i + GRAM_LENGTH <= description.length(); i++) {
+            Posting posting = postings.computeIfAbsent(trigramAt(description, i), key -> new Posting());
+            // A trigram repeated within one description is only recorded once
+            if (posting.size == 0 || posting.sequences[posting.size - 1] != sequence) {
+                posting.append(sequence);
+            }
+        }
+    }
+
+    @Override
+    public void remove(Task task) {
+        Integer sequence = sequenceNumbers.remove(task);
+        if (sequence == null) {
+            return;
+        }
+        tasksBySequence[sequence] = null;
+        tombstones++;
+        if (tombstones >= MIN_TOMBSTONES_TO_COMPACT && tombstones * 2 >= nextSequence) {
+            compact();
+        }
+    }
+
+    /**
+     * Finds the tasks whose descriptions contain the query, exactly as String.contains would.
+     *
+     * @param query The text to look for
+     * @return The matching tasks in list order
+     */
+    public List<Task> find(String query) {
+        List<Task> result = new ArrayList<>();
+        if (query.length() < GRAM_LENGTH) {
+            // Too short to have a trigram, so every task is a candidate
+            shortQueryScans.increment();
+            for (int sequence = 0; sequence < nextSequence; sequence++) {
+                addIfContains(result, sequence, query);
+            }
+            return result;
+        }
+
+        List<Posting> queryPostings = new ArrayList<>();
+        for (int i = 0; i + GRAM_LENGTH <= query.length(); i++) {
+            Posting posting = postings.get(trigramAt(query, i));
+            if (posting == null) {
+                return result;
+            }
+            queryPostings.add(posting);
+        }
+        queryPostings.sort((first, second) -> first.size - second.size);
+
+        Posting shortest = queryPostings.get(0);
+        int[] cursors = new int[queryPostings.size()];
+        for (int i = 0; i < shortest.size; i++) {
+            int sequence = shortest.sequences[i];
+            if (isInAll(queryPostings, cursors, sequence)) {
+                addIfContains(result, sequence, query);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Checks whether every posting holds the sequence number. Candidates arrive in increasing order,
+     * so each posting is searched only from where the previous candidate was found.
+     */
+    private static boolean isInAll(List<Posting> queryPostings, int[] cursors, int sequence) {
+        for (int p = 1; p < queryPostings.size(); p++) {
+            Posting posting = queryPostings.get(p);
+            int found = Arrays.binarySearch(posting.sequences, cursors[p], posting.size, sequence);
+            if (found < 0) {
+                cursors[p] = -found - 1;
+                return false;
+            }
+            cursors[p] = found + 1;
+        }
+        return true;
+    }
+
+    private void addIfContains(List<Task> result, int sequence, String query) {
+        Task task = tasksBySequence[sequence];
+        if (task != null && task.getDescription().contains(query)) {
+            result.add(task);
+        }
+    }
+
+    /**
+     * Rebuilds the index from the live tasks, renumbering them in list order.
+     */
+    private void compact() {
+        Task[] live = new Task[nextSequence - tombstones];
+        int count = 0;
+        for (int sequence = 0; sequence < nextSequence; sequence++) {
+            if (tasksBySequence[sequence] != null) {
+                live[count++] = tasksBySequence[sequence];
+            }
+        }
+        clear();
+        for (Task task : live) {
+            add(task);
+        }
+    }
+
+    private static long trigramAt(String text, int index) {
+        return ((long) text.charAt(index) << (2 * Character.SIZE))
+                | ((long) text.charAt(index + 1) << Character.SIZE)
+                | text.charAt(index + 2);
+    }
+
+    @Override
+    public void clear() {
+        postings.clear();
+        sequenceNumbers.clear();
+        tasksBySequence = new Task[16];
+        nextSequence = 0;
+        tombstones = 0;
+    }
+
+    /**
+     * Estimates the heap used by the index.
+     *
+     * @return The approximate size of the index in bytes
+     */
+    public long estimateBytes() {
+        long postingBytes = 0;
+        for (Posting posting : postings.values()) {
+            postingBytes += (long) posting.sequences.length * BYTES_PER_POSTING;
+        }
+        return postingBytes + (long) postings.size() * BYTES_PER_TRIGRAM
+                + (long) tasksBySequence.length * BYTES_PER_TASK;
+    }
+
+    @Override
+    public String describe() {
+        long postingCount = 0;
+        for (Posting posting : postings.values()) {
+            postingCount += posting.size;
+        }
+        return String.format("Trigram index: %,d trigrams, %,d postings, %,d deleted, ~%,d KB, "
+                + "%,d queries under %d characters scanned every task", postings.size(), postingCount, tombstones,
+                estimateBytes() / 1024, shortQueryScans.sum(), GRAM_LENGTH);
+    }
+}
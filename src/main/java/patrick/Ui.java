@@ -11,6 +11,8 @@ public class Ui {
     // Constants for index conversion and formatting
     private static final int DISPLAY_INDEX_OFFSET = 1; // Convert 0-indexed to 1-indexed for display
     private static final String TASK_NUMBER_SEPARATOR = ".";
+    // Bulk changes list at most this many of the tasks they touched
+    private static final int MAX_PREVIEW_TASKS = 5;
 
     // Message templates
     private static final String TASK_COUNT_MESSAGE = "Now you have %d tasks in the list.";
@@ -76,9 +78,25 @@ public class Ui {
     private void printTaskList(java.util.ArrayList<Task> tasks) {
         assert tasks != null : "Tasks list cannot be null";
 
+        StringBuilder sb = new StringBuilder();
         for (int i = 0; i < tasks.size(); i++) {
-            System.out.println(getDisplayIndex(i) + TASK_NUMBER_SEPARATOR + tasks.get(i));
+            appendTaskLine(sb, i, tasks.get(i)).append(System.lineSeparator());
         }
+        System.out.print(sb);
+    }
+
+    /**
+     * Appends one numbered line of a task list, followed by the task's ID when it has one.
+     * IDs let tasks listed out of order, e.g. by find, be addressed directly.
+     *
+     * @param sb The builder to append to
+     * @param index The 0-indexed position of the task in the displayed list
+     * @param task The task to format
+     * @return The builder
+     */
+    private StringBuilder appendTaskLine(StringBuilder sb, int index, Task task) {
+        task.appendTo(sb.append(getDisplayIndex(index)).append(TASK_NUMBER_SEPARATOR));
+        return task.getId() > 0 ? sb.append(' ').append(Task.formatId(task.getId())) : sb;
     }
 
     /**
@@ -93,10 +111,7 @@ public class Ui {
 
         StringBuilder sb = new StringBuilder();
         for (int i = 0; i < tasks.size(); i++) {
-            sb.append(getDisplayIndex(i))
-                    .append(TASK_NUMBER_SEPARATOR)
-                    .append(tasks.get(i).toString())
-                    .append("\n");
+            appendTaskLine(sb, i, tasks.get(i)).append("\n");
         }
         return sb.toString().trim();
     }
@@ -145,6 +160,73 @@ public class Ui {
         printTaskList(tasks);
     }
 
+    /**
+     * Shows tasks found by a date query such as due, upcoming or overdue.
+     * @param header The line describing the query
+     * @param tasks The tasks to display
+     */
+    public void showScheduledTasks(String header, java.util.ArrayList<Task> tasks) {
+        System.out.println(formatScheduledTasks(header, tasks));
+    }
+
+    /**
+     * Warns that a newly added event clashes with existing events.
+     * @param clashes The existing events that overlap the new one
+     */
+    public void showClashWarning(java.util.ArrayList<Task> clashes) {
+        System.out.println(formatClashWarning(clashes));
+    }
+
+    /**
+     * Reminds the user of a task that is coming up.
+     * @param task The deadline or event that is almost due
+     */
+    public void showReminder(Task task) {
+        System.out.println(formatReminder(task));
+    }
+
+    /**
+     * Shows how a batch of commands went, once it has run.
+     * @param commandCount The number of commands run
+     * @param failureCount The number of commands that failed
+     * @param taskCount The number of tasks afterwards
+     */
+    public void showBatchSummary(int commandCount, int failureCount, int taskCount) {
+        System.out.println(formatBatchSummary(commandCount, failureCount, taskCount));
+    }
+
+    /**
+     * Shows which change was undone
+     * @param change What the undone change did
+     */
+    public void showUndone(String change) {
+        System.out.println(formatUndone(change));
+    }
+
+    /**
+     * Shows which change was redone
+     * @param change What the redone change does
+     */
+    public void showRedone(String change) {
+        System.out.println(formatRedone(change));
+    }
+
+    /**
+     * Shows how a find query would be answered
+     * @param lines The plan, one step per line
+     */
+    public void showQueryPlan(java.util.List<String> lines) {
+        System.out.println(formatQueryPlan(lines));
+    }
+
+    /**
+     * Shows statistics about the task list and its indexes
+     * @param lines The statistics, one per line
+     */
+    public void showStats(java.util.List<String> lines) {
+        System.out.println(formatStats(lines));
+    }
+
     /**
      * Shows a task that was marked as done
      * @param task The task that was marked
@@ -181,6 +263,31 @@ public class Ui {
         System.out.println(formatTaskCountMessage(remainingTasks));
     }
 
+    /**
+     * Shows a summary of tasks that were marked as done together
+     * @param tasks The tasks that were marked
+     */
+    public void showTasksMarked(java.util.List<Task> tasks) {
+        System.out.println(formatTasksMarked(tasks));
+    }
+
+    /**
+     * Shows a summary of tasks that were unmarked together
+     * @param tasks The tasks that were unmarked
+     */
+    public void showTasksUnmarked(java.util.List<Task> tasks) {
+        System.out.println(formatTasksUnmarked(tasks));
+    }
+
+    /**
+     * Shows a summary of tasks that were deleted together
+     * @param tasks The tasks that were deleted
+     * @param remainingTasks The number of tasks remaining
+     */
+    public void showTasksDeleted(java.util.List<Task> tasks, int remainingTasks) {
+        System.out.println(formatTasksDeleted(tasks, remainingTasks));
+    }
+
     /**
      * Shows a task that was added
      * @param task The task that was added
@@ -282,6 +389,106 @@ public class Ui {
         return result;
     }
 
+    /**
+     * Formats tasks found by a date query such as due, upcoming or overdue.
+     *
+     * @param header The line describing the query
+     * @param tasks The tasks to format
+     * @return The formatted tasks
+     */
+    public String formatScheduledTasks(String header, java.util.ArrayList<Task> tasks) {
+        assert tasks != null : "Tasks list cannot be null";
+
+        if (tasks.isEmpty()) {
+            return "Uhh... nothing there. Is that good?";
+        }
+        return header + "\n" + formatTaskListString(tasks);
+    }
+
+    /**
+     * Formats a warning that a newly added event clashes with existing events.
+     *
+     * @param clashes The existing events that overlap the new one
+     * @return The formatted warning
+     */
+    public String formatClashWarning(java.util.ArrayList<Task> clashes) {
+        assert clashes != null && !clashes.isEmpty() : "Clash warning needs at least one clashing event";
+
+        return "Uhhh... wait. That clashes with:\n" + formatTaskListString(clashes);
+    }
+
+    /**
+     * Formats a reminder of a task that is coming up.
+     *
+     * @param task The deadline or event that is almost due
+     * @return The formatted reminder
+     */
+    public String formatReminder(Task task) {
+        assert task != null : "Reminder needs a task";
+
+        return "Uhh... don't forget, this is coming up:\n" + task;
+    }
+
+    /**
+     * Formats how a batch of commands went.
+     *
+     * @param commandCount The number of commands run
+     * @param failureCount The number of commands that failed
+     * @param taskCount The number of tasks afterwards
+     * @return The formatted summary
+     */
+    public String formatBatchSummary(int commandCount, int failureCount, int taskCount) {
+        assert failureCount <= commandCount : "More commands failed than ran";
+
+        String result = String.format("Phew... I ran %d commands and %d of them didn't work out.", commandCount,
+                failureCount);
+        return result + "\n" + formatTaskCountMessage(taskCount);
+    }
+
+    /**
+     * Formats which change was undone.
+     *
+     * @param change What the undone change did
+     * @return The formatted message
+     */
+    public String formatUndone(String change) {
+        return "Uhh... okay, forget about " + change;
+    }
+
+    /**
+     * Formats which change was redone.
+     *
+     * @param change What the redone change does
+     * @return The formatted message
+     */
+    public String formatRedone(String change) {
+        return "Oh wait, I remember now. Back to " + change;
+    }
+
+    /**
+     * Formats how a find query would be answered.
+     *
+     * @param lines The plan, one step per line
+     * @return The formatted plan
+     */
+    public String formatQueryPlan(java.util.List<String> lines) {
+        assert lines != null : "Plan lines cannot be null";
+
+        return "Uhh... here's how I'd look for that:\n" + String.join("\n", lines);
+    }
+
+    /**
+     * Formats statistics about the task list and its indexes.
+     *
+     * @param lines The statistics, one per line
+     * @return The formatted statistics
+     */
+    public String formatStats(java.util.List<String> lines) {
+        assert lines != null : "Stats lines cannot be null";
+
+        return "Uhh... here's what I'm keeping track of:\n" + String.join("\n", lines);
+    }
+
     /**
      * Formats a task marked message for GUI.
      *
@@ -327,6 +534,63 @@ public class Ui {
         return result;
     }
 
+    /**
+     * Formats a summary of tasks that were marked as done together.
+     *
+     * @param tasks The tasks that were marked
+     * @return The formatted message
+     */
+    public String formatTasksMarked(java.util.List<Task> tasks) {
+        assert tasks != null && !tasks.isEmpty() : "Marked tasks cannot be empty";
+
+        return "Alright, yeah. I've marked " + tasks.size() + " tasks as done:\n" + formatTaskPreview(tasks);
+    }
+
+    /**
+     * Formats a summary of tasks that were unmarked together.
+     *
+     * @param tasks The tasks that were unmarked
+     * @return The formatted message
+     */
+    public String formatTasksUnmarked(java.util.List<Task> tasks) {
+        assert tasks != null && !tasks.isEmpty() : "Unmarked tasks cannot be empty";
+
+        return "Alright I will unmark these " + tasks.size() + " tasks:\n" + formatTaskPreview(tasks);
+    }
+
+    /**
+     * Formats a summary of tasks that were deleted together.
+     *
+     * @param tasks The tasks that were deleted
+     * @param remainingTasks The number of tasks remaining
+     * @return The formatted message
+     */
+    public String formatTasksDeleted(java.util.List<Task> tasks, int remainingTasks) {
+        assert tasks != null && !tasks.isEmpty() : "Deleted tasks cannot be empty";
+        assert remainingTasks >= 0 : "Remaining tasks count must be non-negative";
+
+        return "Alright yeah. I will remove these " + tasks.size() + " tasks:\n" + formatTaskPreview(tasks)
+                + "\n" + formatTaskCountMessage(remainingTasks);
+    }
+
+    /**
+     * Formats the first few of many tasks, one per line, so a bulk change doesn't flood the screen.
+     *
+     * @param tasks The tasks to preview
+     * @return The formatted preview
+     */
+    private String formatTaskPreview(java.util.List<Task> tasks) {
+        StringBuilder sb = new StringBuilder();
+        int shown = Math.min(tasks.size(), MAX_PREVIEW_TASKS);
+        for (int i = 0; i < shown; i++) {
+            sb.append("  ").append(tasks.get(i)).append("\n");
+        }
+        if (tasks.size() > shown) {
+            sb.append("  ...and ").append(tasks.size() - shown).append(" more\n");
+        }
+        return sb.toString().stripTrailing();
+    }
+
     /**
      * Formats a task added message for GUI.
      *
@@ -350,13 +614,29 @@ public class Ui {
     public void showHelp() {
         System.out.println("Uhhh... Here are the commands that I know of:");
         System.out.println("• list - Shows all your tasks");
+        System.out.println("• list sort:<by|type|status|created> - Shows all your tasks in that order");
         System.out.println("• todo <description> - Adds a new todo task");
         System.out.println("• deadline <description> /by <yyyy-MM-dd> - Adds a deadline");
         System.out.println("• event <description> /from <yyyy-MM-dd HHmm> /to <yyyy-MM-dd HHmm> - Adds an event");
-        System.out.println("• mark <task number> - Marks a task as done");
-        System.out.println("• unmark <task number> - Marks a task as not done");
-        System.out.println("• delete <task number> - Deletes a task");
-        System.out.println("• find <keyword> - Searches for tasks containing the keyword");
+        System.out.println("• mark <tasks> - Marks tasks as done, e.g. mark 3, mark #a7f3, mark 1-5,8");
+        System.out.println("• unmark <tasks> - Marks tasks as not done");
+        System.out.println("  /every <1d|2w> repeats a deadline or event; mark <task> /on <yyyy-MM-dd> ticks one day");
+        System.out.println("• delete <tasks> - Deletes tasks; delete done removes every finished task");
+        System.out.println("• find <text> - Searches for tasks containing the exact text, e.g. boo in borrow book");
+        System.out.println("  Text under 3 characters is too short for the search index, so every task is checked");
+        System.out.println("• find /words <words> - Searches for tasks containing all the words, in any order or case");
+        System.out.println("• find /query <query> - Searches with a query of words and the terms below");
+        System.out.println("  done, type:T/D/E, before:, after: and on:<yyyy-MM-dd>, -term, OR, NOT, ( )");
+        System.out.println("• find ~<words> - Searches for tasks with words like these, even with typos");
+        System.out.println("• find /top [k] <words> - Shows the k (default 10) tasks that best match the words");
+        System.out.println("• clashes <yyyy-MM-dd HHmm> /to <yyyy-MM-dd HHmm> - Shows events in that period");
+        System.out.println("• due <yyyy-MM-dd> - Shows deadlines and events on that date");
+        System.out.println("• upcoming <days> - Shows deadlines and events in the next few days");
+        System.out.println("• overdue - Shows unfinished deadlines and events from before today");
+        System.out.println("• undo - Reverts your last change");
+        System.out.println("• redo - Applies the last undone change again");
+        System.out.println("• explain <query> - Shows how find /query would look up that query and what it costs");
+        System.out.println("• stats - Shows the size of the task list and its search indexes");
         System.out.println("• help - Shows this help message");
         System.out.println("• bye - Exits the application");
     }
@@ -369,13 +649,29 @@ public class Ui {
     public String formatHelp() {
         return "Uhhh... Here are the commands that I know of:\n\n"
                 + "• list - Shows all your tasks\n"
+                + "• list sort:<by|type|status|created> - Shows all your tasks in that order\n"
                 + "• todo <description> - Adds a new todo task\n"
                 + "• deadline <description> /by <yyyy-MM-dd> - Adds a deadline\n"
                 + "• event <description> /from <yyyy-MM-dd HHmm> /to <yyyy-MM-dd HHmm> - Adds an event\n"
-                + "• mark <task number> - Marks a task as done\n"
-                + "• unmark <task number> - Marks a task as not done\n"
-                + "• delete <task number> - Deletes a task\n"
-                + "• find <keyword> - Searches for tasks containing the keyword\n"
+                + "• mark <tasks> - Marks tasks as done, e.g. mark 3, mark #a7f3, mark 1-5,8\n"
+                + "• unmark <tasks> - Marks tasks as not done\n"
+                + "  /every <1d|2w> repeats a deadline or event; mark <task> /on <yyyy-MM-dd> ticks one day\n"
+                + "• delete <tasks> - Deletes tasks; delete done removes every finished task\n"
+                + "• find <text> - Searches for tasks containing the exact text, e.g. boo in borrow book\n"
+                + "  Text under 3 characters is too short for the search index, so every task is checked\n"
+                + "• find /words <words> - Searches for tasks containing all the words, in any order or case\n"
+                + "• find /query <query> - Searches with a query of words and the terms below\n"
+                + "  done, type:T/D/E, before:, after: and on:<yyyy-MM-dd>, -term, OR, NOT, ( )\n"
+                + "• find ~<words> - Searches for tasks with words like these, even with typos\n"
+                + "• find /top [k] <words> - Shows the k (default 10) tasks that best match the words\n"
+                + "• clashes <yyyy-MM-dd HHmm> /to <yyyy-MM-dd HHmm> - Shows events in that period\n"
+                + "• due <yyyy-MM-dd> - Shows deadlines and events on that date\n"
+                + "• upcoming <days> - Shows deadlines and events in the next few days\n"
+                + "• overdue - Shows unfinished deadlines and events from before today\n"
+                + "• undo - Reverts your last change\n"
+                + "• redo - Applies the last undone change again\n"
+                + "• explain <query> - Shows how find /query would look up that query and what it costs\n"
+                + "• stats - Shows the size of the task list and its search indexes\n"
                 + "• help - Shows this help message\n"
                 + "• bye - Exits the application";
     }
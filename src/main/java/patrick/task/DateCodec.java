@@ -0,0 +1,315 @@
+package patrick.task;
+
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+
+/**
+ * Reads and writes every date Patrick handles: the yyyy-MM-dd and yyyy-MM-dd HHmm forms users type, the ISO
+ * forms of the data file, the epoch minutes of the binary formats and the "Oct 15 2019 18:00" form tasks
+ * are displayed in.
+ *
+ * <p>Parsing reads the digits in place instead of going through a {@link DateTimeFormatter}. What users type
+ * is parsed to primitives, with {@link #NOT_A_DATE} for text that is not a date, so a command can be read
+ * without allocating. What is read from disk is parsed to the LocalDate and LocalDateTime a task keeps, and
+ * throws like the java.time parsers do.</p>
+ *
+ * <p>Formatting appends to a StringBuilder the caller supplies, so a whole task list is rendered into one
+ * buffer. The display form of a date is cached by its epoch day in a small direct-mapped table, since a
+ * list tends to show the same few days again and again. Entries are immutable, so threads may race to fill
+ * a slot without harm.</p>
+ */
+public final class DateCodec {
+    /** Returned by the parse methods for text that is not a date. */
+    public static final long NOT_A_DATE = Long.MIN_VALUE;
+
+    // yyyy-MM-dd, yyyy-MM-dd HHmm, yyyy-MM-ddTHH:mm and yyyy-MM-ddTHH:mm:ss
+    private static final int DATE_LENGTH = 10;
+    private static final int DATE_TIME_LENGTH = 15;
+    private static final int ISO_DATE_TIME_LENGTH = 16;
+    private static final int ISO_SECONDS_LENGTH = 19;
+    private static final int SECONDS_PER_MINUTE = 60;
+    private static final int MINUTES_PER_HOUR = 60;
+    private static final int MINUTES_PER_DAY = 24 * MINUTES_PER_HOUR;
+    private static final int[] DAYS_IN_MONTH = {31, 28, 31, 30, 31, 30, 31, 31, 30, 31, 30, 31};
+    private static final String[] MONTH_NAMES = {
+        "Jan", "Feb", "Mar", "Apr", "May", "Jun", "Jul", "Aug", "Sep", "Oct", "Nov", "Dec"
+    };
+    // Years the display form writes as four plain digits; others go through the formatter
+    private static final int MIN_PLAIN_YEAR = 1;
+    private static final int MAX_PLAIN_YEAR = 9999;
+    private static final DateTimeFormatter DISPLAY_FORMATTER =
+            DateTimeFormatter.ofPattern("MMM dd yyyy", Locale.ENGLISH);
+
+    private static final int CACHE_BITS = 9;
+    private static final int CACHE_MASK = (1 << CACHE_BITS) - 1;
+    private static final RenderedDate[] CACHE = new RenderedDate[1 << CACHE_BITS];
+
+    /**
+     * The display form of one date, as kept in the cache.
+     */
+    private static final class RenderedDate {
+        private final long epochDay;
+        private final String text;
+
+        private RenderedDate(long epochDay, String text) {
+            this.epochDay = epochDay;
+            this.text = text;
+        }
+    }
+
+    private DateCodec() {
+    }
+
+    /**
+     * Reads a date in yyyy-MM-dd form, ignoring blanks around it. Like the formatter it replaces, a day past
+     * the end of its month, e.g. 2019-02-30, is moved back to the last day of the month.
+     *
+     * @param text The text
+     * @param start The index of the first character
+     * @param end The index just past the last character
+     * @return The epoch day, or {@link #NOT_A_DATE} if the text is not a date
+     */
+    public static long parseDate(CharSequence text, int start, int end) {
+        start = skipBlanks(text, start, end);
+        end = trimEnd(text, start, end);
+        return end - start == DATE_LENGTH ? readDate(text, start, true) : NOT_A_DATE;
+    }
+
+    /**
+     * Reads a date in yyyy-MM-dd form, ignoring blanks around it, rejecting days past the end of the month
+     * the way {@link LocalDate#parse} does.
+     *
+     * @param text The text
+     * @param start The index of the first character
+     * @param end The index just past the last character
+     * @return The epoch day, or {@link #NOT_A_DATE} if the text is not a date
+     */
+    public static long parseIsoDate(CharSequence text, int start, int end) {
+        start = skipBlanks(text, start, end);
+        end = trimEnd(text, start, end);
+        return end - start == DATE_LENGTH ? readDate(text, start, false) : NOT_A_DATE;
+    }
+
+    /**
+     * Reads a date and time in yyyy-MM-dd HHmm form, ignoring blanks around it.
+     *
+     * @param text The text
+     * @param start The index of the first character
+     * @param end The index just past the last character
+     * @return The minutes since the epoch, or {@link #NOT_A_DATE} if the text is not a date and time
+     */
+    public static long parseDateTime(CharSequence text, int start, int end) {
+        start = skipBlanks(text, start, end);
+        end = trimEnd(text, start, end);
+        if (end - start != DATE_TIME_LENGTH || text.charAt(start + DATE_LENGTH) != ' ') {
+            return NOT_A_DATE;
+        }
+        long day = readDate(text, start, true);
+        int hour = readDigits(text, start + 11, 2);
+        int minute = readDigits(text, start + 13, 2);
+        if (day == NOT_A_DATE || hour < 0 || hour > 23 || minute < 0 || minute >= MINUTES_PER_HOUR) {
+            return NOT_A_DATE;
+        }
+        return day * MINUTES_PER_DAY + hour * MINUTES_PER_HOUR + minute;
+    }
+
+    /**
+     * Reads an ISO yyyy-MM-dd date from the bytes of a data file.
+     *
+     * @param data The bytes
+     * @param start The index of the first byte
+     * @param end The index just past the last byte
+     * @return The date
+     * @throws DateTimeException if the bytes are not a valid date
+     */
+    public static LocalDate readIsoDate(byte[] data, int start, int end) {
+        if (end - start != DATE_LENGTH || data[start + 4] != '-' || data[start + 7] != '-') {
+            throw new DateTimeException("Invalid date");
+        }
+        return LocalDate.of(digits(data, start, 4), digits(data, start + 5, 2), digits(data, start + 8, 2));
+    }
+
+    /**
+     * Reads an ISO yyyy-MM-ddTHH:mm[:ss] date-time from the bytes of a data file, falling back to the full
+     * ISO parser for rarer forms such as fractional seconds.
+     *
+     * @param data The bytes
+     * @param start The index of the first byte
+     * @param end The index just past the last byte
+     * @return The date-time
+     * @throws DateTimeException if the bytes are not a valid date-time
+     */
+    public static LocalDateTime readIsoDateTime(byte[] data, int start, int end) {
+        int length = end - start;
+        boolean isMinutePrecision = length == ISO_DATE_TIME_LENGTH;
+        boolean isSecondPrecision = length == ISO_SECONDS_LENGTH && data[start + 16] == ':';
+        if (!isMinutePrecision && !isSecondPrecision) {
+            return LocalDateTime.parse(new String(data, start, length, StandardCharsets.US_ASCII));
+        }
+        if (data[start + 10] != 'T' || data[start + 13] != ':') {
+            throw new DateTimeException("Invalid date-time");
+        }
+        LocalDate date = readIsoDate(data, start, start + DATE_LENGTH);
+        int seconds = isSecondPrecision ? digits(data, start + 17, 2) : 0;
+        return date.atTime(digits(data, start + 11, 2), digits(data, start + 14, 2), seconds);
+    }
+
+    /**
+     * Counts the minutes from the epoch to a date-time, dropping any seconds.
+     *
+     * @param dateTime The date-time
+     * @return The epoch minute
+     */
+    public static long toEpochMinute(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC) / SECONDS_PER_MINUTE;
+    }
+
+    /**
+     * Returns the date-time a number of minutes after the epoch.
+     *
+     * @param epochMinute The epoch minute
+     * @return The date-time
+     */
+    public static LocalDateTime fromEpochMinute(long epochMinute) {
+        return LocalDateTime.ofEpochSecond(epochMinute * SECONDS_PER_MINUTE, 0, ZoneOffset.UTC);
+    }
+
+    /**
+     * Appends a date the way tasks display it, e.g. "Oct 15 2019".
+     *
+     * @param sb The builder to append to
+     * @param date The date
+     * @return The builder
+     */
+    public static StringBuilder appendDisplayDate(StringBuilder sb, LocalDate date) {
+        return sb.append(formatDisplayDate(date));
+    }
+
+    /**
+     * Appends a date-time the way events display it, e.g. "Oct 15 2019 18:00".
+     *
+     * @param sb The builder to append to
+     * @param dateTime The date-time
+     * @return The builder
+     */
+    public static StringBuilder appendDisplayDateTime(StringBuilder sb, LocalDateTime dateTime) {
+        appendDisplayDate(sb, dateTime.toLocalDate()).append(' ');
+        appendTwoDigits(sb, dateTime.getHour()).append(':');
+        return appendTwoDigits(sb, dateTime.getMinute());
+    }
+
+    /**
+     * Formats a date the way tasks display it, e.g. "Oct 15 2019".
+     *
+     * @param date The date
+     * @return The formatted date, shared with other callers showing the same day
+     */
+    public static String formatDisplayDate(LocalDate date) {
+        long epochDay = date.toEpochDay();
+        int slot = (int) (epochDay & CACHE_MASK);
+        RenderedDate cached = CACHE[slot];
+        if (cached != null && cached.epochDay == epochDay) {
+            return cached.text;
+        }
+        String text = renderDisplayDate(date);
+        CACHE[slot] = new RenderedDate(epochDay, text);
+        return text;
+    }
+
+    private static String renderDisplayDate(LocalDate date) {
+        int year = date.getYear();
+        if (year < MIN_PLAIN_YEAR || year > MAX_PLAIN_YEAR) {
+            return date.format(DISPLAY_FORMATTER);
+        }
+        StringBuilder sb = new StringBuilder(DATE_LENGTH + 1);
+        sb.append(MONTH_NAMES[date.getMonthValue() - 1]).append(' ');
+        appendTwoDigits(sb, date.getDayOfMonth()).append(' ');
+        appendTwoDigits(sb, year / 100);
+        return appendTwoDigits(sb, year % 100).toString();
+    }
+
+    private static StringBuilder appendTwoDigits(StringBuilder sb, int value) {
+        return sb.append((char) ('0' + value / 10)).append((char) ('0' + value % 10));
+    }
+
+    private static int skipBlanks(CharSequence text, int start, int end) {
+        while (start < end && text.charAt(start) <= ' ') {
+            start++;
+        }
+        return start;
+    }
+
+    private static int trimEnd(CharSequence text, int start, int end) {
+        while (end > start && text.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        return end;
+    }
+
+    private static long readDate(CharSequence text, int start, boolean isLenient) {
+        int year = readDigits(text, start, 4);
+        int month = readDigits(text, start + 5, 2);
+        int day = readDigits(text, start + 8, 2);
+        if (year < 0 || text.charAt(start + 4) != '-' || text.charAt(start + 7) != '-'
+                || month < 1 || month > 12 || day < 1 || day > 31) {
+            return NOT_A_DATE;
+        }
+        int lastDay = daysInMonth(year, month);
+        if (day > lastDay && !isLenient) {
+            return NOT_A_DATE;
+        }
+        return epochDay(year, month, Math.min(day, lastDay));
+    }
+
+    /**
+     * Reads a fixed number of decimal digits.
+     *
+     * @return The number, or -1 if any of the characters is not a digit
+     */
+    private static int readDigits(CharSequence text, int start, int count) {
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            int digit = text.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    private static int digits(byte[] data, int start, int count) {
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            int digit = data[i] - '0';
+            if (digit < 0 || digit > 9) {
+                throw new DateTimeException("Invalid digit in date");
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    private static int daysInMonth(int year, int month) {
+        boolean isLeap = year % 4 == 0 && (year % 100 != 0 || year % 400 == 0);
+        return month == 2 && isLeap ? 29 : DAYS_IN_MONTH[month - 1];
+    }
+
+    /**
+     * Counts the days from 1970-01-01 to a date, the way {@link LocalDate#toEpochDay} does.
+     */
+    private static long epochDay(int year, int month, int day) {
+        // Count from March so the leap day is the last day of the year
+        long shiftedYear = month <= 2 ? year - 1 : year;
+        long era = Math.floorDiv(shiftedYear, 400);
+        long yearOfEra = shiftedYear - era * 400;
+        long dayOfYear = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146_097 + dayOfEra - 719_468;
+    }
+}
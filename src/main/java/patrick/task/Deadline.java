@@ -1,7 +1,6 @@
 package patrick.task;
 
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
 
 /**
  * Represents a deadline task with a specific due date
@@ -31,8 +30,14 @@ public class Deadline extends Task {
     }
 
     @Override
-    public String toString() {
-        return "[D]" + super.toString() + " (by: " + by.format(DateTimeFormatter.ofPattern("MMM dd yyyy")) + ")";
+    public Task copy() {
+        return copyStateTo(new Deadline(getDescription(), by));
+    }
+
+    @Override
+    public StringBuilder appendTo(StringBuilder sb) {
+        super.appendTo(sb.append("[D]")).append(" (by: ");
+        return DateCodec.appendDisplayDate(sb, by).append(')');
     }
 
     @Override
@@ -1,7 +1,6 @@
 package patrick.task;
 
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 
 /**
  * Represents an event task with a start and end time
@@ -46,9 +45,15 @@ public class Event extends Task {
     }
 
     @Override
-    public String toString() {
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("MMM dd yyyy HH:mm");
-        return "[E]" + super.toString() + " (from: " + from.format(formatter) + " to: " + to.format(formatter) + ")";
+    public Task copy() {
+        return copyStateTo(new Event(getDescription(), from, to));
+    }
+
+    @Override
+    public StringBuilder appendTo(StringBuilder sb) {
+        super.appendTo(sb.append("[E]")).append(" (from: ");
+        DateCodec.appendDisplayDateTime(sb, from).append(" to: ");
+        return DateCodec.appendDisplayDateTime(sb, to).append(')');
     }
 
     @Override
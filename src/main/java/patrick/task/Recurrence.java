@@ -0,0 +1,417 @@
+package patrick.task;
+
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * The rule of a recurring task, every so many days from a first date, together with the occurrences
+ * that are done.
+ *
+ * <p>Occurrences are never stored: they are computed from the rule when asked for, so a task that repeats
+ * daily for years costs the same as one that repeats twice. Which occurrences are done is kept as
+ * {@link DoneOccurrences}: a watermark up to which every occurrence is done, plus the few occurrences that
+ * differ from it. A series that is kept up with costs the same however long it has run. The done occurrences
+ * are replaced rather than changed, so a reader on another thread always sees a complete set.</p>
+ */
+public class Recurrence {
+    private static final int DAYS_PER_WEEK = 7;
+    private static final char DAYS_UNIT = 'd';
+    private static final char WEEKS_UNIT = 'w';
+    private static final String DATE_SEPARATOR = ",";
+    private static final String DONE_THROUGH_PREFIX = "..";
+    private static final long[] NO_DAYS = new long[0];
+    private static final long LAST_DAY = LocalDate.MAX.toEpochDay();
+
+    private final long firstDay;
+    private final int intervalDays;
+    private volatile DoneOccurrences done;
+
+    /**
+     * Which occurrences of a recurring task are done: every occurrence up to and including a watermark day,
+     * except the listed exceptions, and none after it, except the listed exceptions. The watermark is kept as
+     * high as it can go, so the exceptions are only the occurrences marked out of order. Instances never
+     * change, so they can be shared between versions of a task list.
+     */
+    public static final class DoneOccurrences {
+        private final long doneThrough;
+        private final long[] exceptions;
+
+        private DoneOccurrences(long doneThrough, long[] exceptions) {
+            this.doneThrough = doneThrough;
+            this.exceptions = exceptions;
+        }
+
+        /**
+         * Returns the epoch day of the last occurrence of the done run, which is before the first occurrence
+         * if none is done.
+         *
+         * @return The watermark day
+         */
+        public long getDoneThrough() {
+            return doneThrough;
+        }
+
+        /**
+         * Returns the sorted epoch days of the occurrences whose status differs from the watermark: not done
+         * up to it, done after it. The array is shared and must not be changed.
+         *
+         * @return The exception days
+         */
+        public long[] getExceptions() {
+            return exceptions;
+        }
+
+        private boolean isDone(long day) {
+            return (day <= doneThrough) != (Arrays.binarySearch(exceptions, day) >= 0);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof DoneOccurrences)) {
+                return false;
+            }
+            DoneOccurrences that = (DoneOccurrences) other;
+            return doneThrough == that.doneThrough && Arrays.equals(exceptions, that.exceptions);
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(doneThrough) * 31 + Arrays.hashCode(exceptions);
+        }
+    }
+
+    /**
+     * Creates a rule repeating every given number of days from the first date.
+     *
+     * @param first The date of the first occurrence
+     * @param intervalDays The number of days between occurrences
+     */
+    public Recurrence(LocalDate first, int intervalDays) {
+        assert first != null : "First occurrence cannot be null";
+        assert intervalDays > 0 : "Interval must be positive";
+
+        this.firstDay = first.toEpochDay();
+        this.intervalDays = intervalDays;
+        this.done = new DoneOccurrences(firstDay - intervalDays, NO_DAYS);
+    }
+
+    /**
+     * Parses an interval such as "1d" or "2w".
+     *
+     * @param text A positive number followed by d for days or w for weeks
+     * @return The interval in days
+     * @throws IllegalArgumentException if the text is not a positive interval
+     */
+    public static int parseInterval(String text) {
+        String trimmed = text.trim().toLowerCase();
+        if (trimmed.length() < 2) {
+            throw new IllegalArgumentException("Interval needs a number and a unit");
+        }
+        char unit = trimmed.charAt(trimmed.length() - 1);
+        int count = Integer.parseInt(trimmed.substring(0, trimmed.length() - 1));
+        if (count <= 0 || (unit != DAYS_UNIT && unit != WEEKS_UNIT)) {
+            throw new IllegalArgumentException("Interval must be a positive number of days or weeks");
+        }
+        return unit == WEEKS_UNIT ? Math.multiplyExact(count, DAYS_PER_WEEK) : count;
+    }
+
+    /**
+     * Formats the interval the way {@link #parseInterval} reads it, in weeks when it is a whole number of weeks.
+     *
+     * @return The interval, e.g. "1d" or "2w"
+     */
+    public String formatInterval() {
+        return intervalDays % DAYS_PER_WEEK == 0
+                ? (intervalDays / DAYS_PER_WEEK) + String.valueOf(WEEKS_UNIT)
+                : intervalDays + String.valueOf(DAYS_UNIT);
+    }
+
+    /**
+     * Returns the date of the first occurrence.
+     *
+     * @return The first date
+     */
+    public LocalDate getFirst() {
+        return LocalDate.ofEpochDay(firstDay);
+    }
+
+    /**
+     * Returns the number of days between occurrences.
+     *
+     * @return The interval in days
+     */
+    public int getIntervalDays() {
+        return intervalDays;
+    }
+
+    /**
+     * Checks whether the task occurs on a date.
+     *
+     * @param date The date
+     * @return true if an occurrence falls on the date
+     */
+    public boolean isOccurrence(LocalDate date) {
+        long day = date.toEpochDay();
+        return day >= firstDay && (day - firstDay) % intervalDays == 0;
+    }
+
+    /**
+     * Returns the epoch day of the first occurrence on or after the given day, which may be past the last
+     * representable date.
+     */
+    private long firstDayFrom(long day) {
+        if (day <= firstDay) {
+            return firstDay;
+        }
+        long intervals = (day - firstDay + intervalDays - 1) / intervalDays;
+        return firstDay + intervals * intervalDays;
+    }
+
+    /**
+     * Lists the occurrences from one date to another, both inclusive, computing each one only when the
+     * iteration reaches it.
+     *
+     * @param from The first date
+     * @param to The last date
+     * @return The dates of the occurrences in order
+     */
+    public Iterable<LocalDate> occurrencesBetween(LocalDate from, LocalDate to) {
+        long lastDay = to.toEpochDay();
+        return () -> new Iterator<>() {
+            private long day = firstDayFrom(from.toEpochDay());
+
+            @Override
+            public boolean hasNext() {
+                return day <= lastDay;
+            }
+
+            @Override
+            public LocalDate next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                LocalDate date = LocalDate.ofEpochDay(day);
+                // Stop instead of stepping past the last date a LocalDate can hold
+                day = day > LAST_DAY - intervalDays ? Long.MAX_VALUE : day + intervalDays;
+                return date;
+            }
+        };
+    }
+
+    /**
+     * Checks whether any occurrence falls from one date to another, both inclusive, in O(1).
+     *
+     * @param from The first date
+     * @param to The last date
+     * @return true if the task occurs in the range
+     */
+    public boolean hasOccurrenceBetween(LocalDate from, LocalDate to) {
+        return firstDayFrom(from.toEpochDay()) <= to.toEpochDay();
+    }
+
+    /**
+     * Finds the earliest occurrence that is not done.
+     *
+     * @return The date of the occurrence
+     */
+    public LocalDate nextPending() {
+        DoneOccurrences current = done;
+        long[] exceptions = current.exceptions;
+        // Exceptions up to the watermark are the gaps in the done run; past it, the next occurrence is pending
+        if (exceptions.length > 0 && exceptions[0] <= current.doneThrough) {
+            return LocalDate.ofEpochDay(exceptions[0]);
+        }
+        return LocalDate.ofEpochDay(current.doneThrough + intervalDays);
+    }
+
+    /**
+     * Finds the latest occurrence that is done.
+     *
+     * @return The date of the occurrence, or null if none is done
+     */
+    public LocalDate lastDone() {
+        DoneOccurrences current = done;
+        long[] exceptions = current.exceptions;
+        if (exceptions.length > 0 && exceptions[exceptions.length - 1] > current.doneThrough) {
+            return LocalDate.ofEpochDay(exceptions[exceptions.length - 1]);
+        }
+        return current.doneThrough >= firstDay ? LocalDate.ofEpochDay(current.doneThrough) : null;
+    }
+
+    /**
+     * Checks whether the occurrence on a date is done.
+     *
+     * @param date The date of the occurrence
+     * @return true if it was marked as done
+     */
+    public boolean isDoneOn(LocalDate date) {
+        return done.isDone(date.toEpochDay());
+    }
+
+    /**
+     * Marks the occurrence on a date as done or not done, in time proportional to the number of exceptions.
+     *
+     * @param date The date of an occurrence
+     * @param isDone The new status of the occurrence
+     */
+    public void setDoneOn(LocalDate date, boolean isDone) {
+        assert isOccurrence(date) : "Only occurrences can be marked";
+        DoneOccurrences current = done;
+        long day = date.toEpochDay();
+        if (current.isDone(day) == isDone) {
+            return;
+        }
+        done = normalize(current.doneThrough, toggle(current.exceptions, day));
+    }
+
+    /**
+     * Adds a day to sorted exceptions, or removes it if it is already there.
+     */
+    private static long[] toggle(long[] exceptions, long day) {
+        int index = Arrays.binarySearch(exceptions, day);
+        if (index >= 0) {
+            long[] shrunk = new long[exceptions.length - 1];
+            System.arraycopy(exceptions, 0, shrunk, 0, index);
+            System.arraycopy(exceptions, index + 1, shrunk, index, shrunk.length - index);
+            return shrunk;
+        }
+        int insertion = -index - 1;
+        long[] grown = new long[exceptions.length + 1];
+        System.arraycopy(exceptions, 0, grown, 0, insertion);
+        grown[insertion] = day;
+        System.arraycopy(exceptions, insertion, grown, insertion + 1, exceptions.length - insertion);
+        return grown;
+    }
+
+    /**
+     * Moves the watermark over done occurrences just after it and back over pending occurrences at it, so
+     * the exceptions hold only the occurrences that break the run.
+     */
+    private DoneOccurrences normalize(long doneThrough, long[] exceptions) {
+        while (true) {
+            long next = doneThrough + intervalDays;
+            if (Arrays.binarySearch(exceptions, next) >= 0) {
+                exceptions = toggle(exceptions, next);
+                doneThrough = next;
+            } else if (doneThrough >= firstDay && Arrays.binarySearch(exceptions, doneThrough) >= 0) {
+                exceptions = toggle(exceptions, doneThrough);
+                doneThrough -= intervalDays;
+            } else {
+                return new DoneOccurrences(doneThrough, exceptions);
+            }
+        }
+    }
+
+    /**
+     * Marks the earliest occurrence that is not done as done.
+     */
+    public void markNextDone() {
+        setDoneOn(nextPending(), true);
+    }
+
+    /**
+     * Marks the latest occurrence that is done as not done, if there is one.
+     */
+    public void unmarkLastDone() {
+        LocalDate last = lastDone();
+        if (last != null) {
+            setDoneOn(last, false);
+        }
+    }
+
+    /**
+     * Returns the occurrences that are done.
+     *
+     * @return The done occurrences, which never change
+     */
+    public DoneOccurrences getDone() {
+        return done;
+    }
+
+    /**
+     * Replaces the occurrences that are done, e.g. to restore an earlier version.
+     *
+     * @param occurrences Done occurrences taken from a recurrence with the same rule
+     */
+    public void setDone(DoneOccurrences occurrences) {
+        done = occurrences;
+    }
+
+    /**
+     * Replaces the occurrences that are done with the ones a watermark and its exceptions describe.
+     *
+     * @param doneThrough The epoch day every occurrence up to which is done, apart from the exceptions
+     * @param exceptions The sorted epoch days of occurrences whose status differs from the watermark
+     * @throws IllegalArgumentException if a day is not an occurrence or the days are not sorted
+     */
+    public void setDone(long doneThrough, long[] exceptions) {
+        if (doneThrough >= firstDay && !isOccurrenceDay(doneThrough)) {
+            throw new IllegalArgumentException("Not an occurrence: " + LocalDate.ofEpochDay(doneThrough));
+        }
+        for (int i = 0; i < exceptions.length; i++) {
+            if (!isOccurrenceDay(exceptions[i]) || (i > 0 && exceptions[i] <= exceptions[i - 1])) {
+                throw new IllegalArgumentException("Invalid done occurrences");
+            }
+        }
+        done = normalize(Math.max(doneThrough, firstDay - intervalDays), exceptions);
+    }
+
+    private boolean isOccurrenceDay(long day) {
+        return day >= firstDay && (day - firstDay) % intervalDays == 0;
+    }
+
+    /**
+     * Formats the done occurrences as a comma-separated list: the watermark after "..", if any occurrence is
+     * done up to it, then the dates of the exceptions.
+     *
+     * @return The dates, e.g. "..2026-10-17,2026-10-20", or an empty string if none is done
+     */
+    public String formatDoneDates() {
+        DoneOccurrences current = done;
+        List<String> dates = new ArrayList<>();
+        if (current.doneThrough >= firstDay) {
+            dates.add(DONE_THROUGH_PREFIX + LocalDate.ofEpochDay(current.doneThrough));
+        }
+        for (long day : current.exceptions) {
+            dates.add(LocalDate.ofEpochDay(day).toString());
+        }
+        return String.join(DATE_SEPARATOR, dates);
+    }
+
+    /**
+     * Reads done occurrences in the form {@link #formatDoneDates} writes. Each listed date flips the status
+     * the watermark gives its occurrence, so a plain list of dates, as older files hold, marks those dates.
+     *
+     * @param text The comma-separated ISO dates, optionally starting with a ".." watermark
+     * @throws DateTimeException if a date is invalid
+     * @throws IllegalArgumentException if a date is not an occurrence
+     */
+    public void parseDoneDates(String text) {
+        int start = 0;
+        while (start <= text.length()) {
+            int end = text.indexOf(DATE_SEPARATOR, start);
+            end = end < 0 ? text.length() : end;
+            boolean isWatermark = text.startsWith(DONE_THROUGH_PREFIX, start);
+            int dateStart = isWatermark ? start + DONE_THROUGH_PREFIX.length() : start;
+            long day = DateCodec.parseIsoDate(text, dateStart, end);
+            if (day != DateCodec.NOT_A_DATE) {
+                if (!isOccurrenceDay(day)) {
+                    throw new IllegalArgumentException("Not an occurrence: " + LocalDate.ofEpochDay(day));
+                }
+                if (isWatermark) {
+                    done = normalize(day, done.exceptions);
+                } else {
+                    done = normalize(done.doneThrough, toggle(done.exceptions, day));
+                }
+            } else if (!text.substring(start, end).isBlank()) {
+                throw new DateTimeException("Invalid done date: " + text.substring(start, end).trim());
+            }
+            start = end + DATE_SEPARATOR.length();
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package patrick.task;
+
+import java.time.LocalDate;
+
+/**
+ * Represents a deadline that repeats every so many days, e.g. a daily standup report.
+ * Its due date is the date of the first occurrence.
+ */
+public class RecurringDeadline extends Deadline implements RecurringTask {
+    private final Recurrence recurrence;
+
+    /**
+     * Creates a new recurring deadline.
+     *
+     * @param description The description of the deadline
+     * @param by The due date of the first occurrence
+     * @param intervalDays The number of days between occurrences
+     */
+    public RecurringDeadline(String description, LocalDate by, int intervalDays) {
+        super(description, by);
+        this.recurrence = new Recurrence(by, intervalDays);
+    }
+
+    @Override
+    public Recurrence getRecurrence() {
+        return recurrence;
+    }
+
+    @Override
+    public Task occurrenceOn(LocalDate date) {
+        assert recurrence.isOccurrence(date) : "Date must be an occurrence";
+        Deadline occurrence = new Deadline(getDescription(), date);
+        if (recurrence.isDoneOn(date)) {
+            occurrence.markAsDone();
+        }
+        if (getId() > 0) {
+            occurrence.setId(getId());
+        }
+        occurrence.markAsOccurrence();
+        return occurrence;
+    }
+
+    @Override
+    public Task copy() {
+        RecurringDeadline copy = new RecurringDeadline(getDescription(), getBy(), recurrence.getIntervalDays());
+        copy.recurrence.setDone(recurrence.getDone());
+        return copyStateTo(copy);
+    }
+
+    /**
+     * Marks the earliest occurrence that is not done yet as done.
+     */
+    @Override
+    public void markAsDone() {
+        recurrence.markNextDone();
+    }
+
+    /**
+     * Marks the latest occurrence that is done as not done.
+     */
+    @Override
+    public void markAsNotDone() {
+        recurrence.unmarkLastDone();
+    }
+
+    @Override
+    public StringBuilder appendTo(StringBuilder sb) {
+        sb.append("[D][").append(getStatusIcon()).append("] ").append(getDescription()).append(" (by: ");
+        DateCodec.appendDisplayDate(sb, recurrence.nextPending());
+        return sb.append(", every ").append(recurrence.formatInterval()).append(')');
+    }
+
+    @Override
+    public String toFileFormat() {
+        String formatted = super.toFileFormat() + " | every " + recurrence.formatInterval();
+        String doneDates = recurrence.formatDoneDates();
+        return doneDates.isEmpty() ? formatted : formatted + " | " + doneDates;
+    }
+}
@@ -0,0 +1,85 @@
+package patrick.task;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Represents an event that repeats every so many days, e.g. a weekly meeting.
+ * Its start and end times are those of the first occurrence; every occurrence lasts as long.
+ */
+public class RecurringEvent extends Event implements RecurringTask {
+    private final Recurrence recurrence;
+
+    /**
+     * Creates a new recurring event.
+     *
+     * @param description The description of the event
+     * @param from The start time of the first occurrence
+     * @param to The end time of the first occurrence
+     * @param intervalDays The number of days between occurrences
+     */
+    public RecurringEvent(String description, LocalDateTime from, LocalDateTime to, int intervalDays) {
+        super(description, from, to);
+        this.recurrence = new Recurrence(from.toLocalDate(), intervalDays);
+    }
+
+    @Override
+    public Recurrence getRecurrence() {
+        return recurrence;
+    }
+
+    @Override
+    public Task occurrenceOn(LocalDate date) {
+        assert recurrence.isOccurrence(date) : "Date must be an occurrence";
+        long shift = ChronoUnit.DAYS.between(recurrence.getFirst(), date);
+        Event occurrence = new Event(getDescription(), getFrom().plusDays(shift), getTo().plusDays(shift));
+        if (recurrence.isDoneOn(date)) {
+            occurrence.markAsDone();
+        }
+        if (getId() > 0) {
+            occurrence.setId(getId());
+        }
+        occurrence.markAsOccurrence();
+        return occurrence;
+    }
+
+    @Override
+    public Task copy() {
+        RecurringEvent copy = new RecurringEvent(getDescription(), getFrom(), getTo(), recurrence.getIntervalDays());
+        copy.recurrence.setDone(recurrence.getDone());
+        return copyStateTo(copy);
+    }
+
+    /**
+     * Marks the earliest occurrence that is not done yet as done.
+     */
+    @Override
+    public void markAsDone() {
+        recurrence.markNextDone();
+    }
+
+    /**
+     * Marks the latest occurrence that is done as not done.
+     */
+    @Override
+    public void markAsNotDone() {
+        recurrence.unmarkLastDone();
+    }
+
+    @Override
+    public StringBuilder appendTo(StringBuilder sb) {
+        Event next = (Event) occurrenceOn(recurrence.nextPending());
+        sb.append("[E][").append(getStatusIcon()).append("] ").append(getDescription()).append(" (from: ");
+        DateCodec.appendDisplayDateTime(sb, next.getFrom()).append(" to: ");
+        DateCodec.appendDisplayDateTime(sb, next.getTo());
+        return sb.append(", every ").append(recurrence.formatInterval()).append(')');
+    }
+
+    @Override
+    public String toFileFormat() {
+        String formatted = super.toFileFormat() + " | every " + recurrence.formatInterval();
+        String doneDates = recurrence.formatDoneDates();
+        return doneDates.isEmpty() ? formatted : formatted + " | " + doneDates;
+    }
+}
@@ -0,0 +1,27 @@
+package patrick.task;
+
+import java.time.LocalDate;
+
+/**
+ * A task that repeats. The list holds the task once, and its occurrences are computed from its
+ * {@link Recurrence} when they are needed. Marking the task as done marks its earliest pending occurrence,
+ * and marking it as not done unmarks its latest done one, so the task itself is never done.
+ */
+public interface RecurringTask {
+    /**
+     * Returns the rule and the done occurrences of the task.
+     *
+     * @return The recurrence
+     */
+    Recurrence getRecurrence();
+
+    /**
+     * Creates a one-off task for a single occurrence, with the ID of the recurring task and the done status
+     * of that occurrence. It is a copy for showing and is not part of any list, and
+     * {@link Task#isOccurrence()} is true for it.
+     *
+     * @param date The date of an occurrence
+     * @return The occurrence as a task of the same type
+     */
+    Task occurrenceOn(LocalDate date);
+}
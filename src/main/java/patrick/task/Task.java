@@ -2,11 +2,20 @@ package patrick.task;
 
 /**
  * Represents a task with a description and completion status.
+ * A task also carries a stable ID, assigned once when it first joins a task list, that identifies it
+ * regardless of its position in the list. An ID of 0 means none has been assigned yet.
  */
 
 public class Task {
+    private static final int ID_RADIX = 16;
+    private static final String ID_PREFIX = "#";
+
     private String description;
-    private boolean isDone;
+    // Volatile so a task marked on one thread shows as done on every other
+    private volatile boolean isDone;
+    private long id;
+    // Set on the one-off copies a recurring task makes of its occurrences
+    private boolean isOccurrence;
 
     /**
      * Creates a new Task with the given description
@@ -39,6 +48,103 @@ public class Task {
         return description;
     }
 
+    /**
+     * Returns whether the task is completed
+     *
+     * @return true if the task is done
+     */
+    public boolean isDone() {
+        return isDone;
+    }
+
+    /**
+     * Returns the stable ID of the task
+     *
+     * @return The ID, or 0 if none has been assigned
+     */
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * Assigns the stable ID of the task. IDs never change once assigned.
+     *
+     * @param id The positive ID
+     */
+    public void setId(long id) {
+        assert id > 0 : "Task ID must be positive";
+        assert this.id == 0 || this.id == id : "Task ID cannot change once assigned";
+        this.id = id;
+    }
+
+    /**
+     * Formats an ID the way users type it, e.g. "#a7f3".
+     *
+     * @param id The ID
+     * @return The ID in hex after a '#'
+     */
+    public static String formatId(long id) {
+        return ID_PREFIX + Long.toHexString(id);
+    }
+
+    /**
+     * Parses an ID in the form produced by {@link #formatId(long)}.
+     *
+     * @param text The text to parse
+     * @return The ID
+     * @throws NumberFormatException if the text is not a '#' followed by a positive hex number
+     */
+    public static long parseId(String text) {
+        if (!text.startsWith(ID_PREFIX)) {
+            throw new NumberFormatException("Missing " + ID_PREFIX + " before task ID");
+        }
+        long id = Long.parseLong(text.substring(ID_PREFIX.length()), ID_RADIX);
+        if (id <= 0) {
+            throw new NumberFormatException("Task ID must be positive");
+        }
+        return id;
+    }
+
+    /**
+     * Creates a copy of the task with the same ID, details and status. Later changes to either one do not
+     * affect the other.
+     *
+     * @return The copy
+     */
+    public Task copy() {
+        return copyStateTo(new Task(description));
+    }
+
+    /**
+     * Gives a freshly created copy the ID and done status of this task.
+     *
+     * @param copy The copy, with the same details as this task
+     * @return The copy
+     */
+    protected Task copyStateTo(Task copy) {
+        copy.id = id;
+        copy.isDone = isDone;
+        copy.isOccurrence = isOccurrence;
+        return copy;
+    }
+
+    /**
+     * Returns whether the task stands for one occurrence of a recurring task, with the ID of that task,
+     * rather than being a task in a list.
+     *
+     * @return true for an occurrence
+     */
+    public boolean isOccurrence() {
+        return isOccurrence;
+    }
+
+    /**
+     * Marks the task as one occurrence of a recurring task.
+     */
+    void markAsOccurrence() {
+        isOccurrence = true;
+    }
+
     /**
      * Marks the task as done
      */
@@ -53,13 +159,24 @@ public class Task {
         isDone = false;
     }
 
+    /**
+     * Appends the string representation of the task, so a whole list can be rendered into one builder.
+     * Subclasses override this rather than {@link #toString()}.
+     *
+     * @param sb The builder to append to
+     * @return The builder, in the format "[status] description"
+     */
+    public StringBuilder appendTo(StringBuilder sb) {
+        return sb.append('[').append(getStatusIcon()).append("] ").append(description);
+    }
+
     /**
      * Returns a string representation of the task.
      *
      * @return A string in the format "[status] description"
      */
     public String toString() {
-        return "[" + getStatusIcon() + "] " + description;
+        return appendTo(new StringBuilder()).toString();
     }
 
     /**
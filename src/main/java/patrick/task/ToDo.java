@@ -14,8 +14,13 @@ public class ToDo extends Task {
     }
 
     @Override
-    public String toString() {
-        return "[T]" + super.toString();
+    public Task copy() {
+        return copyStateTo(new ToDo(getDescription()));
+    }
+
+    @Override
+    public StringBuilder appendTo(StringBuilder sb) {
+        return super.appendTo(sb.append("[T]"));
     }
 
     @Override
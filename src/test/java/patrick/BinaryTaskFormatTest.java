@@ -0,0 +1,59 @@
+package patrick;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+
+import org.junit.jupiter.api.Test;
+
+import patrick.task.Task;
+
+public class BinaryTaskFormatTest {
+    private static final String[] RECORDS = {
+        "#1 | T | 1 | read book",
+        "#2 | D | 0 | return book | 2019-10-22",
+        "#a7f3 | E | 0 | project meeting | 2019-10-15T18:00 | 2019-10-15T20:30",
+        "#a7f4 | T | 0 | café ☕",
+        "#a7f5 | D | 0 | standup | 2019-10-14 | every 1d | ..2019-10-14,2019-10-16",
+        "#a7f6 | E | 0 | gym | 2019-10-14T18:00 | 2019-10-14T19:00 | every 2w",
+    };
+
+    @Test
+    public void convert_textToBinaryAndBack_preservesTasks() throws IOException, PatrickException {
+        Path directory = Files.createTempDirectory("patrick");
+        Path text = directory.resolve("tasks.txt");
+        Path binary = directory.resolve("tasks" + BinaryTaskFormat.EXTENSION);
+        Path roundTrip = directory.resolve("round-trip.txt");
+        Files.writeString(text, String.join("\n", RECORDS) + "\n");
+
+        assertEquals(RECORDS.length, TaskFileConverter.convert(text.toString(), binary.toString()));
+        assertEquals(RECORDS.length, TaskFileConverter.convert(binary.toString(), roundTrip.toString()));
+
+        assertTrue(BinaryTaskFormat.hasMagic(binary));
+        assertFalse(BinaryTaskFormat.hasMagic(roundTrip));
+        assertTrue(Files.size(binary) < Files.size(text));
+        assertEquals(Files.readAllLines(text), Files.readAllLines(roundTrip));
+    }
+
+    @Test
+    public void load_binaryFileWithTextExtension_detectedByMagic() throws IOException, PatrickException {
+        Path directory = Files.createTempDirectory("patrick");
+        Path binary = directory.resolve("tasks" + BinaryTaskFormat.EXTENSION);
+        Path renamed = directory.resolve("tasks.txt");
+        ArrayList<Task> tasks = new ArrayList<>();
+        tasks.add(TaskFileReader.parseLine(RECORDS[1]));
+        new Storage(binary.toString()).save(tasks);
+        Files.move(binary, renamed);
+
+        ArrayList<Task> loaded = new Storage(renamed.toString()).load();
+
+        assertEquals(1, loaded.size());
+        Task task = loaded.get(0);
+        assertEquals(RECORDS[1], Task.formatId(task.getId()) + " | " + task.toFileFormat());
+    }
+}
@@ -0,0 +1,47 @@
+package patrick;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+public class CommandLexerTest {
+
+    @Test
+    public void lex_verbInAnyCase_findsCommandAndTrimmedArgument() {
+        CommandLexer lexer = new CommandLexer();
+        assertEquals(Command.UNMARK, lexer.lex("UnMark   12  "));
+        assertEquals("12", lexer.getInput().subSequence(lexer.getArgumentStart(), lexer.getArgumentEnd()));
+        assertEquals("  12  ", lexer.getArgument());
+
+        assertEquals(Command.LIST, lexer.lex("list"));
+        assertFalse(lexer.hasArgument());
+        assertEquals(Command.LIST, lexer.lex("list "));
+        assertTrue(lexer.hasArgument() && lexer.isArgumentBlank());
+
+        assertEquals(Command.UNKNOWN, lexer.lex(" list"));
+        assertEquals(Command.UNKNOWN, lexer.lex("lists"));
+        assertEquals(Command.UNKNOWN, lexer.lex("undu"));
+        assertEquals(Command.UNKNOWN, lexer.lex(""));
+    }
+
+    @Test
+    public void lookup_everyVerb_findsItsOwnCommand() {
+        for (Command command : Command.values()) {
+            String verb = command.getVerb();
+            assertEquals(command, Command.lookup(verb, 0, verb.length()));
+        }
+    }
+
+    @Test
+    public void parseNumber_invalidText_returnsSentinel() {
+        assertEquals(-3, CommandLexer.parseNumber(" -3 ", 0, 4));
+        assertEquals(Integer.MAX_VALUE, CommandLexer.parseNumber("2147483647", 0, 10));
+        assertEquals(CommandLexer.NOT_A_NUMBER, CommandLexer.parseNumber("2147483648", 0, 10));
+        assertEquals(CommandLexer.NOT_A_NUMBER, CommandLexer.parseNumber("1a", 0, 2));
+        assertEquals(CommandLexer.NOT_A_NUMBER, CommandLexer.parseNumber("-", 0, 1));
+        assertEquals(0xa7f3, CommandLexer.parseId("#a7f3", 0, 5));
+        assertEquals(CommandLexer.NOT_AN_ID, CommandLexer.parseId("#a7g3", 0, 5));
+    }
+}
@@ -0,0 +1,76 @@
+package patrick;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import patrick.task.DateCodec;
+import patrick.task.Deadline;
+import patrick.task.Event;
+
+public class DateCodecTest {
+
+    @Test
+    public void parseDate_randomDates_matchesLocalDate() {
+        Random random = new Random(7);
+        for (int i = 0; i < 10_000; i++) {
+            LocalDate date = LocalDate.ofEpochDay(random.nextInt(2_000_000) - 1_000_000);
+            if (date.getYear() < 0 || date.getYear() > 9999) {
+                continue;
+            }
+            String text = date.toString();
+            assertEquals(date.toEpochDay(), DateCodec.parseDate(text, 0, text.length()));
+            LocalDateTime time = date.atTime(random.nextInt(24), random.nextInt(60));
+            String timeText = String.format("%s %02d%02d", text, time.getHour(), time.getMinute());
+            assertEquals(DateCodec.toEpochMinute(time), DateCodec.parseDateTime(timeText, 0, timeText.length()));
+        }
+        assertEquals(LocalDate.of(2020, 2, 29).toEpochDay(), DateCodec.parseDate("2020-02-31", 0, 10));
+        assertEquals(DateCodec.NOT_A_DATE, DateCodec.parseIsoDate("2020-02-31", 0, 10));
+        assertEquals(DateCodec.NOT_A_DATE, DateCodec.parseDate("2019-13-01", 0, 10));
+        assertEquals(DateCodec.NOT_A_DATE, DateCodec.parseDate("2019-1-01", 0, 9));
+        assertEquals(DateCodec.NOT_A_DATE, DateCodec.parseDateTime("2019-10-15 2400", 0, 15));
+    }
+
+    @Test
+    public void appendDisplayDateTime_randomDates_matchesFormatter() {
+        DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("MMM dd yyyy", Locale.ENGLISH);
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("MMM dd yyyy HH:mm", Locale.ENGLISH);
+        Random random = new Random(11);
+        StringBuilder sb = new StringBuilder();
+        // Wide enough that many dates share a cache slot, and past the years written as four plain digits
+        for (int i = 0; i < 10_000; i++) {
+            LocalDate date = LocalDate.ofEpochDay(random.nextInt(8_000_000) - 4_000_000);
+            LocalDateTime time = date.atTime(random.nextInt(24), random.nextInt(60), random.nextInt(60));
+            assertEquals(date.format(dateFormatter), DateCodec.formatDisplayDate(date));
+            sb.setLength(0);
+            assertEquals(time.format(formatter), DateCodec.appendDisplayDateTime(sb, time).toString());
+        }
+
+        LocalDateTime from = LocalDateTime.of(2019, 10, 15, 18, 0);
+        assertEquals("[E][ ] meeting (from: Oct 15 2019 18:00 to: Oct 15 2019 20:05)",
+                new Event("meeting", from, from.plusMinutes(125)).toString());
+        assertEquals("[D][ ] return book (by: Jan 05 2020)", new Deadline("return book", LocalDate.of(2020, 1, 5))
+                .toString());
+    }
+
+    @Test
+    public void readIsoDateTime_fileForms_matchesLocalDateTime() {
+        for (String text : new String[] {"2019-10-15T18:00", "2019-10-15T18:00:59", "2019-10-15T18:00:59.5"}) {
+            byte[] bytes = text.getBytes(StandardCharsets.US_ASCII);
+            assertEquals(LocalDateTime.parse(text), DateCodec.readIsoDateTime(bytes, 0, bytes.length));
+        }
+        byte[] badDay = "2019-02-30".getBytes(StandardCharsets.US_ASCII);
+        assertThrows(DateTimeException.class, () -> DateCodec.readIsoDate(badDay, 0, badDay.length));
+        byte[] badTime = "2019-10-15 18:00".getBytes(StandardCharsets.US_ASCII);
+        assertThrows(DateTimeException.class, () -> DateCodec.readIsoDateTime(badTime, 0, badTime.length));
+    }
+}
@@ -0,0 +1,109 @@
+package patrick;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import patrick.task.Event;
+import patrick.task.RecurringEvent;
+import patrick.task.Task;
+import patrick.task.ToDo;
+
+public class EventIntervalTreeTest {
+    private static final LocalDateTime START = LocalDateTime.of(2019, 10, 15, 0, 0);
+
+    @Test
+    public void findOverlapping_afterRandomAddsAndDeletes_matchesScan() {
+        Random random = new Random(42);
+        EventIntervalTree tree = new EventIntervalTree();
+        List<Event> live = new ArrayList<>();
+
+        for (int step = 0; step < 5000; step++) {
+            if (live.isEmpty() || random.nextInt(3) > 0) {
+                LocalDateTime from = START.plusHours(random.nextInt(500));
+                Event event = new Event("event " + step, from, from.plusHours(random.nextInt(48)));
+                live.add(event);
+                tree.add(event);
+            } else {
+                tree.remove(live.remove(random.nextInt(live.size())));
+            }
+        }
+
+        for (int query = 0; query < 200; query++) {
+            LocalDateTime from = START.plusHours(random.nextInt(550) - 25);
+            LocalDateTime to = from.plusHours(random.nextInt(30));
+            List<Task> expected = new ArrayList<>();
+            live.stream()
+                    .filter(event -> event.getFrom().isBefore(to) && event.getTo().isAfter(from))
+                    .sorted(Comparator.comparing(Event::getFrom))
+                    .forEach(expected::add);
+            assertEquals(expected, tree.findOverlapping(from, to));
+        }
+    }
+
+    @Test
+    public void findOverlapping_touchingEventsAndTodos_areNotClashes() {
+        EventIntervalTree tree = new EventIntervalTree();
+        Event morning = new Event("lecture", START.withHour(9), START.withHour(11));
+        Event lunch = new Event("lunch", START.withHour(11), START.withHour(12));
+        tree.add(morning);
+        tree.add(lunch);
+        tree.add(new ToDo("read book"));
+
+        assertEquals(List.of(lunch), tree.findOverlapping(START.withHour(11), START.withHour(13)));
+        assertEquals(List.of(morning, lunch), tree.findOverlapping(START.withHour(10), START.withHour(12)));
+    }
+
+    @Test
+    public void findOverlapping_recurringEventsInsideAndOutsideHorizon_matchesScan() {
+        Random random = new Random(7);
+        EventIntervalTree tree = new EventIntervalTree(Clock.fixed(START.toInstant(ZoneOffset.UTC), ZoneOffset.UTC));
+        List<RecurringEvent> series = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            LocalDateTime from = START.plusHours(random.nextInt(24 * 200) - 24 * 100);
+            RecurringEvent event = new RecurringEvent("series " + i, from, from.plusHours(1 + random.nextInt(30)),
+                    1 + random.nextInt(14));
+            series.add(event);
+            tree.add(event);
+        }
+        tree.remove(series.remove(0));
+
+        // Periods from a month before the horizon starts to a month after it ends
+        for (int query = 0; query < 200; query++) {
+            LocalDateTime from = START.plusHours(random.nextInt(24 * 150) - 24 * 30);
+            LocalDateTime to = from.plusHours(random.nextInt(48));
+            List<String> expected = new ArrayList<>();
+            for (RecurringEvent event : series) {
+                Duration duration = Duration.between(event.getFrom(), event.getTo());
+                int interval = event.getRecurrence().getIntervalDays();
+                for (LocalDateTime start = event.getFrom(); start.isBefore(to); start = start.plusDays(interval)) {
+                    if (start.plus(duration).isAfter(from)) {
+                        expected.add(new Event(event.getDescription(), start, start.plus(duration)).toString());
+                    }
+                }
+            }
+            List<Task> found = tree.findOverlapping(from, to);
+            List<String> actual = new ArrayList<>();
+            for (Task task : found) {
+                actual.add(task.toString());
+            }
+            Collections.sort(expected);
+            Collections.sort(actual);
+            assertEquals(expected, actual);
+            for (int i = 1; i < found.size(); i++) {
+                assertFalse(((Event) found.get(i)).getFrom().isBefore(((Event) found.get(i - 1)).getFrom()));
+            }
+        }
+    }
+}
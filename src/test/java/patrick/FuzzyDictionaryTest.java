@@ -0,0 +1,81 @@
+package patrick;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.junit.jupiter.api.Test;
+
+public class FuzzyDictionaryTest {
+    private static String randomWord(Random random) {
+        StringBuilder word = new StringBuilder();
+        int length = 1 + random.nextInt(8);
+        for (int i = 0; i < length; i++) {
+            // A small alphabet makes near misses common
+            word.append((char) ('a' + random.nextInt(4)));
+        }
+        return word.toString();
+    }
+
+    private static int distance(String first, String second) {
+        int[][] table = new int[first.length() + 1][second.length() + 1];
+        for (int i = 0; i <= first.length(); i++) {
+            for (int j = 0; j <= second.length(); j++) {
+                if (i == 0 || j == 0) {
+                    table[i][j] = i + j;
+                } else {
+                    int substitution = table[i - 1][j - 1] + (first.charAt(i - 1) == second.charAt(j - 1) ? 0 : 1);
+                    table[i][j] = Math.min(substitution, Math.min(table[i - 1][j], table[i][j - 1]) + 1);
+                }
+            }
+        }
+        return table[first.length()][second.length()];
+    }
+
+    @Test
+    public void find_typos_returnsWordsWithinDistance() {
+        FuzzyDictionary dictionary = new FuzzyDictionary();
+        for (String word : List.of("read", "book", "books", "bookshelf", "bread", "news")) {
+            dictionary.add(word);
+        }
+
+        assertEquals(List.of("book"), dictionary.find("bok", 1));
+        assertEquals(List.of("book", "books"), dictionary.find("bok", 2));
+        assertEquals(List.of("bread", "read"), dictionary.find("reed", 2));
+        assertEquals(List.of(), dictionary.find("xyz", 1));
+    }
+
+    @Test
+    public void find_afterRandomAddsAndRemoves_matchesScan() {
+        Random random = new Random(42);
+        FuzzyDictionary dictionary = new FuzzyDictionary();
+        TreeSet<String> live = new TreeSet<>();
+
+        for (int step = 0; step < 20000; step++) {
+            String word = randomWord(random);
+            if (random.nextInt(3) > 0) {
+                dictionary.add(word);
+                live.add(word);
+            } else {
+                dictionary.remove(word);
+                live.remove(word);
+            }
+        }
+        assertEquals(live.size(), dictionary.size());
+
+        for (int query = 0; query < 200; query++) {
+            String word = randomWord(random);
+            int maxDistance = random.nextInt(3);
+            List<String> expected = new ArrayList<>();
+            for (String candidate : live) {
+                if (distance(word, candidate) <= maxDistance) {
+                    expected.add(candidate);
+                }
+            }
+            assertEquals(expected, dictionary.find(word, maxDistance));
+        }
+    }
+}
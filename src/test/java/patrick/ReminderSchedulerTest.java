@@ -0,0 +1,142 @@
+package patrick;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import patrick.task.Deadline;
+import patrick.task.Event;
+import patrick.task.RecurringDeadline;
+import patrick.task.Task;
+
+public class ReminderSchedulerTest {
+    private static final LocalDateTime START = LocalDateTime.of(2019, 10, 15, 12, 0);
+
+    /**
+     * A clock that only moves when the test moves it.
+     */
+    private static class ManualClock extends Clock {
+        private Instant now = START.toInstant(ZoneOffset.UTC);
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+
+        private LocalDateTime now() {
+            return LocalDateTime.ofInstant(now, ZoneOffset.UTC);
+        }
+
+        private void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+    }
+
+    @Test
+    public void fireDueReminders_changedTasks_firesOnlyPendingOnesOnce() throws PatrickException {
+        ManualClock clock = new ManualClock();
+        ReminderScheduler reminders = new ReminderScheduler(Duration.ofMinutes(15), clock);
+        List<Task> fired = new ArrayList<>();
+        reminders.setListener(fired::add);
+        TaskList tasks = new TaskList();
+        tasks.addIndex(reminders);
+
+        Task meeting = new Event("meeting", START.plusHours(1), START.plusHours(2));
+        Task book = new Deadline("return book", START.toLocalDate().plusDays(1));
+        tasks.addTask(meeting);
+        tasks.addTask(book);
+        tasks.addTask(new Event("lunch", START.minusHours(1), START));
+        tasks.addTask(new Event("dinner", START.plusHours(6), START.plusHours(7)));
+        tasks.markTask(3);
+        assertEquals(2, reminders.size());
+
+        clock.advance(Duration.ofMinutes(44));
+        reminders.fireDueReminders();
+        assertTrue(fired.isEmpty());
+
+        clock.advance(Duration.ofMinutes(1));
+        reminders.fireDueReminders();
+        assertEquals(List.of(meeting), fired);
+
+        tasks.deleteTask(1);
+        tasks.undo();
+        tasks.deleteTask(1);
+        clock.advance(Duration.ofDays(1));
+        reminders.fireDueReminders();
+        assertEquals(List.of(meeting), fired);
+        assertEquals(0, reminders.size());
+    }
+
+    @Test
+    public void fireDueReminders_recurringDeadline_schedulesNextOccurrenceAfterEach() throws PatrickException {
+        ManualClock clock = new ManualClock();
+        ReminderScheduler reminders = new ReminderScheduler(Duration.ZERO, clock);
+        List<LocalDate> fired = new ArrayList<>();
+        reminders.setListener(task -> fired.add(((Deadline) task).getBy()));
+        TaskList tasks = new TaskList();
+        tasks.addTask(new RecurringDeadline("standup", START.toLocalDate().minusDays(4), 2));
+        tasks.addIndex(reminders);
+
+        tasks.setOccurrenceStatus(0, START.toLocalDate().plusDays(2), true);
+        for (int day = 0; day < 6; day++) {
+            clock.advance(Duration.ofDays(1));
+            reminders.fireDueReminders();
+        }
+        LocalDate today = START.toLocalDate();
+        assertEquals(List.of(today.plusDays(4), today.plusDays(6)), fired);
+    }
+
+    @Test
+    public void fireDueReminders_manyRemindersAcrossLevels_fireInTheirOwnTick() {
+        ManualClock clock = new ManualClock();
+        ReminderScheduler reminders = new ReminderScheduler(Duration.ZERO, clock);
+        List<Task> fired = new ArrayList<>();
+        reminders.setListener(fired::add);
+        Random random = new Random(42);
+        int count = 20_000;
+        for (int i = 0; i < count; i++) {
+            // Up to about two years ahead, so reminders start on every level but the last
+            LocalDateTime from = START.plusSeconds(1 + random.nextInt(60_000_000));
+            reminders.add(new Event("event " + i, from, from.plusHours(1)));
+        }
+
+        Duration step = Duration.ofHours(7);
+        int total = 0;
+        LocalDateTime previous = clock.now();
+        while (total < count) {
+            clock.advance(step);
+            reminders.fireDueReminders();
+            for (Task task : fired) {
+                LocalDateTime from = ((Event) task).getFrom();
+                assertTrue(from.isAfter(previous) && !from.isAfter(clock.now()));
+            }
+            total += fired.size();
+            fired.clear();
+            previous = clock.now();
+        }
+        assertEquals(count, total);
+        assertEquals(0, reminders.size());
+    }
+}
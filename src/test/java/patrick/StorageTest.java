@@ -0,0 +1,248 @@
+package patrick;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import patrick.task.Task;
+import patrick.task.ToDo;
+
+public class StorageTest {
+    private Path dataFile;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        dataFile = Files.createTempDirectory("patrick").resolve("tasks.txt");
+    }
+
+    @Test
+    public void load_journaledMutations_replayedOnTopOfFile() throws PatrickException {
+        Storage storage = new Storage(dataFile.toString());
+        ArrayList<Task> tasks = new ArrayList<>();
+        tasks.add(new ToDo("read book"));
+        storage.save(tasks);
+
+        Task returnBook = new ToDo("return book");
+        storage.appendAdd(returnBook);
+        storage.appendAdd(new ToDo("exercise"));
+        returnBook.markAsDone();
+        storage.appendMark(1, returnBook);
+        storage.appendDelete(0, tasks.get(0));
+
+        ArrayList<Task> loaded = new Storage(dataFile.toString()).load();
+
+        assertEquals(2, loaded.size());
+        assertEquals("T | 1 | return book", loaded.get(0).toFileFormat());
+        assertEquals("T | 0 | exercise", loaded.get(1).toFileFormat());
+    }
+
+    @Test
+    public void load_withJournal_compactsIntoDataFile() throws PatrickException, IOException {
+        Storage storage = new Storage(dataFile.toString());
+        storage.appendAdd(new ToDo("read book"));
+        Path journal = Path.of(dataFile + ".journal");
+        assertTrue(Files.exists(journal));
+
+        storage.load();
+
+        assertFalse(Files.exists(journal));
+        assertEquals("T | 0 | read book", Files.readAllLines(dataFile).get(0));
+    }
+
+    @Test
+    public void load_journalAlreadyInSnapshot_addsNothingTwice() throws PatrickException, IOException {
+        Storage storage = new Storage(dataFile.toString());
+        TaskList taskList = new TaskList();
+        taskList.addTask(new ToDo("read book"));
+        storage.save(taskList.snapshot());
+        taskList.addTask(new ToDo("return book"));
+        storage.appendAdd(taskList.getTask(1));
+        storage.appendMark(1, taskList.markTask(1));
+        Path journal = Path.of(dataFile + ".journal");
+        byte[] journalBytes = Files.readAllBytes(journal);
+
+        // As if the process died after the snapshot was renamed into place but before the journal was deleted
+        storage.save(taskList.snapshot());
+        Files.write(journal, journalBytes);
+        ArrayList<Task> loaded = new Storage(dataFile.toString()).load();
+
+        assertEquals(2, loaded.size());
+        assertEquals("T | 0 | read book", loaded.get(0).toFileFormat());
+        assertEquals("T | 1 | return book", loaded.get(1).toFileFormat());
+        assertEquals(2, Files.readAllLines(dataFile).size());
+    }
+
+    @Test
+    public void load_journaledOccurrences_replaysEachDate() throws PatrickException, IOException {
+        Files.writeString(dataFile, "#1 | D | 0 | standup | 2019-10-14 | every 1d | ..2019-10-14\n");
+        Storage storage = new Storage(dataFile.toString());
+        TaskList taskList = new TaskList(storage.load());
+
+        storage.appendMark(0, taskList.markTask(0));
+        storage.appendOccurrenceStatus(0, taskList.setOccurrenceStatus(0, LocalDate.of(2019, 10, 20), true));
+        storage.appendOccurrenceStatus(0, taskList.setOccurrenceStatus(0, LocalDate.of(2019, 10, 14), false));
+        Path journal = Path.of(dataFile + ".journal");
+        assertEquals(List.of("done-on | #1 | 2019-10-15", "done-on | #1 | 2019-10-20",
+                "undone-on | #1 | 2019-10-14"), Files.readAllLines(journal));
+        String journalText = Files.readString(journal);
+
+        // Replaying the same records again, as after a crash before the journal was deleted, changes nothing
+        Files.writeString(journal, journalText + journalText);
+        ArrayList<Task> loaded = new Storage(dataFile.toString()).load();
+
+        assertEquals(taskList.getTask(0).toFileFormat(), loaded.get(0).toFileFormat());
+        assertEquals("D | 0 | standup | 2019-10-14 | every 1d | ..2019-10-15,2019-10-14,2019-10-20",
+                loaded.get(0).toFileFormat());
+    }
+
+    @Test
+    public void load_corruptedJournalRecord_skipsRecord() throws PatrickException, IOException {
+        Storage storage = new Storage(dataFile.toString());
+        storage.appendAdd(new ToDo("read book"));
+        Files.writeString(Path.of(dataFile + ".journal"), "mark | 7\nadd | T | 0",
+                StandardOpenOption.APPEND);
+
+        ArrayList<Task> loaded = storage.load();
+
+        assertEquals(1, loaded.size());
+        assertEquals(" ", loaded.get(0).getStatusIcon());
+    }
+
+    @Test
+    public void flush_asyncDurability_writesSnapshotWithoutJournal() throws PatrickException, IOException {
+        Storage storage = new Storage(dataFile.toString(), Durability.ASYNC, 60_000);
+        TaskList taskList = new TaskList();
+        storage.attach(taskList);
+
+        taskList.addTask(new ToDo("read book"));
+        storage.appendAdd(taskList.getTask(0));
+        taskList.markTask(0);
+        storage.appendMark(0, taskList.getTask(0));
+        assertFalse(Files.exists(dataFile));
+
+        storage.close();
+
+        assertFalse(taskList.isDirty());
+        assertFalse(Files.exists(Path.of(dataFile + ".journal")));
+        assertEquals("#1 | T | 1 | read book", Files.readAllLines(dataFile).get(0));
+    }
+
+    @Test
+    public void checkpoint_duringBatch_writesOneSnapshotOfEveryChange() throws PatrickException, IOException {
+        Files.writeString(dataFile, "T | 0 | read book\n");
+        Storage storage = new Storage(dataFile.toString());
+        TaskList taskList = new TaskList(storage.load());
+        storage.attach(taskList);
+
+        storage.beginBatch();
+        taskList.addTask(new ToDo("return book"));
+        storage.appendAdd(taskList.getTask(1));
+        taskList.markTask(0);
+        storage.appendMark(0, taskList.getTask(0));
+        storage.save(taskList.snapshot());
+        assertFalse(Files.exists(Path.of(dataFile + ".journal")));
+        assertEquals(List.of("T | 0 | read book"), Files.readAllLines(dataFile));
+
+        storage.checkpoint();
+        assertEquals(List.of("#1 | T | 1 | read book", "#2 | T | 0 | return book"), Files.readAllLines(dataFile));
+
+        storage.endBatch();
+        storage.appendAdd(new ToDo("exercise"));
+        assertTrue(Files.exists(Path.of(dataFile + ".journal")));
+    }
+
+    @Test
+    public void endBatch_everyDurability_reloadsEveryChange() throws PatrickException, IOException {
+        for (Durability durability : Durability.values()) {
+            Path file = Files.createTempDirectory("patrick").resolve("tasks.txt");
+            Files.writeString(file, "T | 0 | read book\n");
+            Storage storage = new Storage(file.toString(), durability, 60_000);
+            TaskList taskList = new TaskList(storage.load());
+            storage.attach(taskList);
+
+            storage.beginBatch();
+            taskList.addTask(new ToDo("return book"));
+            storage.appendAdd(taskList.getTask(1));
+            storage.appendMark(0, taskList.markTask(0));
+            storage.checkpoint();
+            storage.appendDelete(1, taskList.deleteTask(1));
+            storage.endBatch();
+            storage.close();
+
+            ArrayList<Task> reloaded = new Storage(file.toString()).load();
+            assertEquals(1, reloaded.size(), durability.toString());
+            assertEquals("T | 1 | read book", reloaded.get(0).toFileFormat(), durability.toString());
+        }
+    }
+
+    @Test
+    public void flush_groupCommitDurability_writesPendingJournal() throws PatrickException {
+        Storage storage = new Storage(dataFile.toString(), Durability.GROUP_COMMIT, 60_000);
+        storage.appendAdd(new ToDo("read book"));
+        storage.appendAdd(new ToDo("return book"));
+
+        storage.close();
+
+        assertEquals(2, new Storage(dataFile.toString()).load().size());
+    }
+
+    @Test
+    public void appendMark_taskInDataFile_flipsStatusByteInPlace() throws PatrickException, IOException {
+        Files.writeString(dataFile, "T | 0 | hello\nD | 0 | read book | 2019-10-22\n");
+        Storage storage = new Storage(dataFile.toString());
+        ArrayList<Task> tasks = storage.load();
+
+        tasks.get(1).markAsDone();
+        storage.appendMark(1, tasks.get(1));
+        storage.close();
+
+        assertFalse(Files.exists(Path.of(dataFile + ".journal")));
+        assertEquals("D | 1 | read book | 2019-10-22", Files.readAllLines(dataFile).get(1));
+    }
+
+    @Test
+    public void appendUnmark_binaryDataFile_flipsFlagsByteInPlace() throws PatrickException {
+        Path binaryFile = dataFile.resolveSibling("tasks" + BinaryTaskFormat.EXTENSION);
+        Storage storage = new Storage(binaryFile.toString());
+        ArrayList<Task> tasks = new ArrayList<>();
+        tasks.add(new ToDo("read book"));
+        tasks.get(0).markAsDone();
+        storage.save(tasks);
+
+        tasks.get(0).markAsNotDone();
+        storage.appendUnmark(0, tasks.get(0));
+
+        assertEquals(" ", new Storage(binaryFile.toString()).load().get(0).getStatusIcon());
+    }
+
+    @Test
+    public void load_journalReferringToIds_replaysRegardlessOfPositions() throws PatrickException, IOException {
+        Files.writeString(dataFile, "T | 0 | read book\nT | 0 | return book\n");
+        Storage storage = new Storage(dataFile.toString());
+        TaskList taskList = new TaskList(storage.load());
+
+        taskList.addTask(new ToDo("exercise"));
+        storage.appendAdd(taskList.getTask(2));
+        Task deleted = taskList.deleteTask(0);
+        storage.appendDelete(0, deleted);
+        taskList.markTask(1);
+        storage.appendMark(1, taskList.getTask(1));
+
+        ArrayList<Task> loaded = new Storage(dataFile.toString()).load();
+
+        assertEquals(2, loaded.size());
+        assertEquals("#2 | T | 0 | return book", Files.readAllLines(dataFile).get(0));
+        assertEquals("#3 | T | 1 | exercise", Files.readAllLines(dataFile).get(1));
+    }
+}
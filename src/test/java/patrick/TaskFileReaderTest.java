@@ -0,0 +1,101 @@
+package patrick;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.DateTimeException;
+import java.util.ArrayList;
+
+import org.junit.jupiter.api.Test;
+
+import patrick.task.Task;
+
+public class TaskFileReaderTest {
+
+    @Test
+    public void parseLine_eachTaskType_roundTripsFileFormat() {
+        String[] lines = {
+            "T | 1 | read book",
+            "D | 0 | return book | 2019-10-22",
+            "E | 0 | project meeting | 2019-10-15T18:00 | 2019-10-15T20:30",
+            "D | 0 | standup | 2019-10-14 | every 1d | ..2019-10-14,2019-10-16",
+            "E | 0 | gym | 2019-10-14T18:00 | 2019-10-14T19:00 | every 2w",
+        };
+        for (String line : lines) {
+            assertEquals(line, TaskFileReader.parseLine(line).toFileFormat());
+        }
+    }
+
+    @Test
+    public void parseLine_listOfDoneDates_readsAsWatermarkAndExceptions() {
+        Task task = TaskFileReader.parseLine(
+                "D | 0 | standup | 2019-10-14 | every 1d | 2019-10-16,2019-10-14,2019-10-15");
+
+        assertEquals("D | 0 | standup | 2019-10-14 | every 1d | ..2019-10-16", task.toFileFormat());
+    }
+
+    @Test
+    public void parseLine_invalidRecords_returnsNull() {
+        assertNull(TaskFileReader.parseLine("T | 0"));
+        assertNull(TaskFileReader.parseLine("X | 0 | unknown type"));
+    }
+
+    @Test
+    public void parseLine_invalidDate_throwsException() {
+        assertThrows(DateTimeException.class, () -> TaskFileReader.parseLine("D | 0 | bad date | 2019-13-45"));
+    }
+
+    @Test
+    public void read_repeatedDescriptions_shareOneInstance() throws IOException {
+        Path file = Files.createTempFile("patrick", ".txt");
+        Files.writeString(file, "T | 0 | read book\nD | 0 | read book | 2019-10-22\n"
+                + "T | 0 | l\u00e9ire\nT | 1 | l\u00e9ire\n");
+        ArrayList<Task> tasks = new ArrayList<>();
+
+        TaskFileReader.read(file, tasks);
+
+        assertEquals("read book", tasks.get(0).getDescription());
+        assertSame(tasks.get(0).getDescription(), tasks.get(1).getDescription());
+        assertEquals("l\u00e9ire", tasks.get(2).getDescription());
+        assertSame(tasks.get(2).getDescription(), tasks.get(3).getDescription());
+        assertSame(tasks.get(0).getDescription(), DescriptionPool.shared().dedup(new String("read book")));
+        Files.delete(file);
+    }
+
+    @Test
+    public void read_fileWithoutTrailingNewline_readsEveryLine() throws IOException {
+        Path file = Files.createTempFile("patrick", ".txt");
+        Files.writeString(file, "T | 0 | hello\r\nD | 0 | read book | 2019-10-22\nT | 1 | exercise");
+
+        ArrayList<Task> tasks = new ArrayList<>();
+        TaskFileReader.read(file, tasks);
+
+        assertEquals(3, tasks.size());
+        assertEquals("T | 0 | hello", tasks.get(0).toFileFormat());
+        assertEquals("T | 1 | exercise", tasks.get(2).toFileFormat());
+    }
+
+    @Test
+    public void read_largeFile_keepsFileOrderAcrossChunks() throws IOException {
+        Path file = Files.createTempFile("patrick", ".txt");
+        StringBuilder content = new StringBuilder();
+        int lineCount = 200_000;
+        for (int i = 0; i < lineCount; i++) {
+            content.append("T | 0 | task number ").append(i).append('\n');
+        }
+        Files.writeString(file, content);
+
+        ArrayList<Task> tasks = new ArrayList<>();
+        TaskFileReader.read(file, tasks);
+
+        assertEquals(lineCount, tasks.size());
+        for (int i = 0; i < lineCount; i += 997) {
+            assertEquals("task number " + i, tasks.get(i).getDescription());
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package patrick;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+
+import patrick.task.Task;
+import patrick.task.ToDo;
+
+public class TaskListConcurrencyTest {
+    private static final int WRITERS = 8;
+    private static final int READERS = 4;
+    private static final int TASKS_PER_WRITER = 2000;
+
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+    private final AtomicBoolean isWriting = new AtomicBoolean(true);
+
+    /**
+     * Starts every job on its own thread at the same moment and waits for the writers to finish.
+     */
+    private void runConcurrently(List<Runnable> writers, List<Runnable> readers) throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> writerThreads = new ArrayList<>();
+        List<Thread> readerThreads = new ArrayList<>();
+        for (Runnable writer : writers) {
+            writerThreads.add(startThread(start, writer));
+        }
+        for (Runnable reader : readers) {
+            readerThreads.add(startThread(start, () -> {
+                while (isWriting.get()) {
+                    reader.run();
+                }
+            }));
+        }
+        start.countDown();
+        for (Thread thread : writerThreads) {
+            thread.join();
+        }
+        isWriting.set(false);
+        for (Thread thread : readerThreads) {
+            thread.join();
+        }
+        assertNull(failure.get(), "A thread failed: " + failure.get());
+    }
+
+    private Thread startThread(CountDownLatch start, Runnable job) {
+        Thread thread = new Thread(() -> {
+            try {
+                start.await();
+                job.run();
+            } catch (Throwable e) {
+                failure.compareAndSet(null, e);
+            }
+        });
+        thread.start();
+        return thread;
+    }
+
+    /**
+     * Checks that a snapshot is in strictly increasing ID order, i.e. no task is missing its place or
+     * listed twice.
+     */
+    private static void assertConsistent(List<Task> snapshot) {
+        for (int i = 1; i < snapshot.size(); i++) {
+            assertTrue(snapshot.get(i - 1).getId() < snapshot.get(i).getId(), "Snapshot out of order");
+        }
+    }
+
+    @Test
+    public void addTask_concurrentWritersAndReaders_noLostUpdates() throws InterruptedException {
+        TaskList taskList = new TaskList();
+        List<Runnable> writers = new ArrayList<>();
+        for (int w = 0; w < WRITERS; w++) {
+            String word = "writer" + w;
+            writers.add(() -> {
+                for (int i = 0; i < TASKS_PER_WRITER; i++) {
+                    taskList.addTask(new ToDo(word + " task " + i));
+                }
+            });
+        }
+        List<Runnable> readers = new ArrayList<>();
+        for (int r = 0; r < READERS; r++) {
+            readers.add(() -> {
+                int sizeBefore = taskList.size();
+                ArrayList<Task> snapshot = taskList.snapshot();
+                assertConsistent(snapshot);
+                assertTrue(snapshot.size() >= sizeBefore, "Snapshot lost tasks");
+                taskList.findTasks("writer1", SearchMode.WORD);
+            });
+        }
+
+        runConcurrently(writers, readers);
+
+        int total = WRITERS * TASKS_PER_WRITER;
+        assertEquals(total, taskList.size());
+        ArrayList<Task> tasks = taskList.snapshot();
+        assertConsistent(tasks);
+        assertEquals(total, tasks.size());
+        assertEquals(1L, tasks.get(0).getId());
+        assertEquals((long) total, tasks.get(total - 1).getId());
+        for (int w = 0; w < WRITERS; w++) {
+            assertEquals(TASKS_PER_WRITER, taskList.findTasks("writer" + w, SearchMode.WORD).size());
+        }
+    }
+
+    @Test
+    public void markTask_concurrentWritersOnDisjointTasks_everyMarkKept() throws InterruptedException {
+        TaskList taskList = new TaskList();
+        int total = WRITERS * TASKS_PER_WRITER;
+        for (int i = 0; i < total; i++) {
+            taskList.addTask(new ToDo("task " + i));
+        }
+
+        List<Runnable> writers = new ArrayList<>();
+        for (int w = 0; w < WRITERS; w++) {
+            int first = w;
+            writers.add(() -> {
+                try {
+                    // Writers interleave over the list, each marking every WRITERS-th task
+                    for (int index = first; index < total; index += WRITERS) {
+                        taskList.markTask(index);
+                    }
+                } catch (PatrickException e) {
+                    throw new AssertionError(e);
+                }
+            });
+        }
+        List<Runnable> readers = new ArrayList<>();
+        for (int r = 0; r < READERS; r++) {
+            readers.add(() -> {
+                assertEquals(total, taskList.snapshot().size());
+                taskList.findDoneIndexes();
+            });
+        }
+
+        runConcurrently(writers, readers);
+
+        assertEquals(total, taskList.findDoneIndexes().length);
+        for (Task task : taskList.snapshot()) {
+            assertTrue(task.isDone(), "Mark was lost for " + task);
+        }
+    }
+
+    @Test
+    public void markTasks_concurrentReaders_neverSeePartialBulkMark() throws InterruptedException {
+        TaskList taskList = new TaskList();
+        int total = 500;
+        for (int i = 0; i < total; i++) {
+            taskList.addTask(new ToDo("task " + i));
+        }
+        int[] everyIndex = new int[total];
+        for (int i = 0; i < total; i++) {
+            everyIndex[i] = i;
+        }
+
+        Runnable writer = () -> {
+            try {
+                for (int round = 0; round < 200; round++) {
+                    taskList.markTasks(everyIndex);
+                    taskList.unmarkTasks(everyIndex);
+                }
+            } catch (PatrickException e) {
+                throw new AssertionError(e);
+            }
+        };
+        List<Runnable> readers = new ArrayList<>();
+        for (int r = 0; r < READERS; r++) {
+            boolean isSorted = r % 2 == 0;
+            readers.add(() -> {
+                List<Task> tasks = isSorted ? taskList.getTasks(SortOrder.TYPE) : taskList.snapshot();
+                long doneCount = tasks.stream().filter(Task::isDone).count();
+                assertTrue(doneCount == 0 || doneCount == total, "Saw " + doneCount + " of " + total + " marked");
+                // Rendering later must not pick up a change made after the tasks were taken
+                Thread.yield();
+                assertEquals(doneCount, tasks.stream().filter(Task::isDone).count());
+            });
+        }
+
+        runConcurrently(List.of(writer), readers);
+    }
+}
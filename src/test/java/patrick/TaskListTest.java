@@ -1,11 +1,24 @@
 package patrick;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import patrick.task.Deadline;
+import patrick.task.Event;
+import patrick.task.Recurrence;
+import patrick.task.RecurringDeadline;
+import patrick.task.RecurringTask;
 import patrick.task.Task;
 import patrick.task.ToDo;
 
@@ -54,6 +67,26 @@ public class TaskListTest {
         assertEquals("X", task.getStatusIcon());
     }
 
+    @Test
+    public void markTask_idsOutOfFileOrder_marksListedTask() throws PatrickException {
+        Task second = new ToDo("second");
+        second.setId(2);
+        Task unnumbered = new ToDo("unnumbered");
+        Task first = new ToDo("first");
+        first.setId(1);
+        TaskList loaded = new TaskList(new ArrayList<>(List.of(second, unnumbered, first)));
+
+        assertEquals(describe(List.of(first, second, unnumbered)), describe(loaded.getTasks()));
+        for (int i = 0; i < loaded.size(); i++) {
+            assertEquals(loaded.getTasks().get(i).getId(), loaded.getTask(i).getId());
+        }
+        assertEquals(first, loaded.markTask(0));
+        assertTrue(first.isDone());
+        assertFalse(second.isDone());
+        assertEquals(second, loaded.unmarkTask(1));
+        assertEquals(0, loaded.indexOfId(first.getId()));
+    }
+
     @Test
     public void markTask_invalidIndex_throwsException() {
         assertThrows(PatrickException.class, () -> {
@@ -88,4 +121,341 @@ public class TaskListTest {
             taskList.getTask(0);
         });
     }
+
+    @Test
+    public void findTasks_wordMode_matchesWholeWordsIgnoringCase() {
+        Task readBook = new ToDo("Read book");
+        Task bookshelf = new ToDo("build bookshelf");
+        Task returnBook = new ToDo("return the book, then read");
+        taskList.addTask(readBook);
+        taskList.addTask(bookshelf);
+        taskList.addTask(returnBook);
+
+        assertEquals(List.of(readBook, returnBook), taskList.findTasks("book READ", SearchMode.WORD));
+        assertEquals(List.of(readBook, bookshelf, returnBook), taskList.findTasks("book", SearchMode.SUBSTRING));
+    }
+
+    @Test
+    public void findTasks_wordModeAfterDelete_doesNotReturnDeletedTask() throws PatrickException {
+        taskList.addTask(new ToDo("read book"));
+        Task kept = new ToDo("return book");
+        taskList.addTask(kept);
+
+        taskList.deleteTask(0);
+
+        assertEquals(List.of(kept), taskList.findTasks("book", SearchMode.WORD));
+    }
+
+    @Test
+    public void findTasks_fuzzyMode_toleratesTyposInEveryWord() throws PatrickException {
+        Task readBook = new ToDo("read book");
+        Task bookshelf = new ToDo("build bookshelf");
+        Task readNews = new ToDo("read news");
+        taskList.addTask(readBook);
+        taskList.addTask(bookshelf);
+        taskList.addTask(readNews);
+
+        assertEquals(List.of(readBook), taskList.findTasks("reed bok", SearchMode.FUZZY));
+        assertEquals(List.of(readBook, readNews), taskList.findTasks("rread", SearchMode.FUZZY));
+        assertEquals(List.of(), taskList.findTasks("bo", SearchMode.FUZZY));
+
+        taskList.deleteTask(0);
+        assertEquals(List.of(), taskList.findTasks("reed bok", SearchMode.FUZZY));
+    }
+
+    @Test
+    public void findTopTasks_rankedQuery_prefersRareWordsAndShortDescriptions() {
+        List<Task> milk = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            milk.add(new ToDo("buy milk"));
+            taskList.addTask(milk.get(i));
+        }
+        Task eggs = new ToDo("buy eggs");
+        Task longEggs = new ToDo("buy eggs and then walk the dog around the park");
+        taskList.addTask(longEggs);
+        taskList.addTask(eggs);
+
+        assertEquals(List.of(eggs, longEggs), taskList.findTopTasks("buy eggs", 2));
+        // Equally relevant tasks come in list order
+        assertEquals(milk.subList(0, 3), taskList.findTopTasks("milk", 3));
+        assertEquals(List.of(), taskList.findTopTasks("bread", 3));
+    }
+
+    @Test
+    public void findTopTasks_hugeLimit_returnsEveryMatch() {
+        Task milk = new ToDo("buy milk");
+        Task eggs = new ToDo("buy eggs");
+        taskList.addTask(milk);
+        taskList.addTask(eggs);
+
+        assertEquals(List.of(milk, eggs), taskList.findTopTasks("buy", Integer.MAX_VALUE));
+        assertEquals(List.of(eggs), taskList.findTopTasks("eggs", 500_000_000));
+    }
+
+    @Test
+    public void query_structuredQuery_matchesEveryCondition() throws PatrickException {
+        Task returnBook = new Deadline("return book", LocalDate.of(2019, 10, 20));
+        Task buyBook = new Deadline("buy book", LocalDate.of(2019, 10, 25));
+        Task lateBook = new Deadline("renew book", LocalDate.of(2019, 11, 5));
+        Task readBook = new ToDo("read book");
+        Task meeting = new Event("book club", LocalDateTime.of(2019, 10, 22, 18, 0),
+                LocalDateTime.of(2019, 10, 22, 20, 0));
+        for (Task task : List.of(returnBook, buyBook, lateBook, readBook, meeting)) {
+            taskList.addTask(task);
+        }
+        taskList.markTask(1);
+
+        assertEquals(List.of(returnBook),
+                taskList.query(TaskQuery.parse("book type:D -done before:2019-11-01 after:2019-10-01")));
+        assertEquals(List.of(buyBook, readBook),
+                taskList.query(TaskQuery.parse("done OR (read AND NOT type:E)")));
+        assertEquals(List.of(lateBook, meeting),
+                taskList.query(TaskQuery.parse("type:E OR after:2019-10-31")));
+        assertThrows(PatrickException.class, () -> TaskQuery.parse("book (type:D"));
+        assertThrows(PatrickException.class, () -> TaskQuery.parse("book OR"));
+        assertThrows(PatrickException.class, () -> TaskQuery.parse("before:tomorrow"));
+    }
+
+    @Test
+    public void explain_selectiveCondition_avoidsFullScan() throws PatrickException {
+        for (int i = 0; i < 100; i++) {
+            taskList.addTask(new ToDo("task " + i));
+        }
+        taskList.addTask(new Deadline("return book", LocalDate.of(2019, 10, 20)));
+
+        List<String> plan = taskList.explain(TaskQuery.parse("task OR book"));
+        List<String> datePlan = taskList.explain(TaskQuery.parse("task after:2019-10-01 before:2019-11-01"));
+
+        assertEquals("Access path: full scan (~101 tasks)", plan.get(1));
+        assertEquals("Access path: date index from 2019-10-02 to 2019-10-31 (~1 tasks)", datePlan.get(1));
+        assertEquals(List.of(), taskList.query(TaskQuery.parse("task after:2019-10-01 before:2019-11-01")));
+    }
+
+    @Test
+    public void getTasks_sortedView_keptInOrderAcrossChanges() throws PatrickException {
+        Task later = new Deadline("return book", LocalDate.of(2019, 10, 20));
+        Task sooner = new Deadline("buy book", LocalDate.of(2019, 10, 15));
+        Task read = new ToDo("read book");
+        Task meeting = new Event("book club", LocalDateTime.of(2019, 10, 18, 18, 0),
+                LocalDateTime.of(2019, 10, 18, 20, 0));
+        taskList.addTask(read);
+        taskList.addTask(later);
+        assertEquals(describe(List.of(later, read)), describe(taskList.getTasks(SortOrder.DATE)));
+        assertEquals(describe(List.of(read, later)), describe(taskList.getTasks(SortOrder.STATUS)));
+
+        taskList.addTask(sooner);
+        taskList.addTask(meeting);
+        taskList.markTask(0);
+        taskList.deleteTask(1);
+
+        assertEquals(describe(List.of(sooner, meeting, read)), describe(taskList.getTasks(SortOrder.DATE)));
+        assertEquals(describe(List.of(sooner, meeting, read)), describe(taskList.getTasks(SortOrder.STATUS)));
+        assertEquals(describe(List.of(read, sooner, meeting)), describe(taskList.getTasks(SortOrder.TYPE)));
+
+        taskList.undo();
+        taskList.undo();
+
+        assertEquals(describe(List.of(sooner, meeting, later, read)), describe(taskList.getTasks(SortOrder.DATE)));
+        assertEquals(describe(List.of(read, later, sooner, meeting)), describe(taskList.getTasks(SortOrder.STATUS)));
+    }
+
+    @Test
+    public void findUpcoming_mixedTasks_returnsDatedTasksInRangeByDate() {
+        LocalDate today = LocalDate.of(2019, 10, 15);
+        Task later = new Deadline("return book", today.plusDays(3));
+        Task meeting = new Event("meeting", today.atTime(14, 0), today.atTime(16, 0));
+        Task tooLate = new Deadline("submit report", today.plusDays(8));
+        taskList.addTask(later);
+        taskList.addTask(new ToDo("read book"));
+        taskList.addTask(meeting);
+        taskList.addTask(tooLate);
+
+        assertEquals(List.of(meeting, later), taskList.findUpcoming(today, 7));
+        assertEquals(List.of(tooLate), taskList.findDueOn(today.plusDays(8)));
+    }
+
+    @Test
+    public void findUpcoming_recurringDeadline_expandsOccurrencesInRange() throws PatrickException {
+        LocalDate today = LocalDate.of(2019, 10, 15);
+        taskList.addTask(new RecurringDeadline("standup", today.minusDays(2), 2));
+        taskList.addTask(new Deadline("return book", today.plusDays(2)));
+
+        List<String> upcoming = new ArrayList<>();
+        for (Task task : taskList.findUpcoming(today, 3)) {
+            upcoming.add(((Deadline) task).getBy() + " " + task.getDescription());
+        }
+        assertEquals(List.of("2019-10-15 standup", "2019-10-17 return book", "2019-10-17 standup"), upcoming);
+        assertEquals(1, taskList.findOverdue(today).size());
+
+        taskList.markTask(0);
+        taskList.setOccurrenceStatus(0, today.plusDays(2), true);
+        Recurrence recurrence = ((RecurringTask) taskList.getTask(0)).getRecurrence();
+        assertEquals(today, recurrence.nextPending());
+        assertTrue(taskList.findOverdue(today).isEmpty());
+        assertTrue(taskList.findDueOn(today.plusDays(2)).get(0).isDone());
+        assertThrows(PatrickException.class, () -> taskList.setOccurrenceStatus(0, today.plusDays(1), true));
+
+        taskList.undo();
+        assertFalse(recurrence.isDoneOn(today.plusDays(2)));
+        assertTrue(recurrence.isDoneOn(today.minusDays(2)));
+    }
+
+    @Test
+    public void findOverdue_recurringSeriesBehind_listsEarliestPendingOccurrenceOnce() throws PatrickException {
+        LocalDate today = LocalDate.of(2019, 10, 15);
+        taskList.addTask(new RecurringDeadline("standup", today.minusDays(30), 1));
+        taskList.addTask(new Deadline("return book", today.minusDays(20)));
+
+        assertEquals(List.of("2019-09-15 standup", "2019-09-25 return book"), describeByDate(
+                taskList.findOverdue(today)));
+
+        taskList.markTask(0);
+        assertEquals(List.of("2019-09-16 standup", "2019-09-25 return book"), describeByDate(
+                taskList.findOverdue(today)));
+        taskList.undo();
+        assertEquals("2019-09-15 standup", describeByDate(taskList.findOverdue(today)).get(0));
+    }
+
+    @Test
+    public void findDueOn_seriesOfSeveralIntervals_findsOnlyThoseOccurringThatDay() throws PatrickException {
+        LocalDate day = LocalDate.of(2019, 10, 15);
+        taskList.addTask(new RecurringDeadline("daily", day.minusDays(3), 1));
+        taskList.addTask(new RecurringDeadline("every other day", day.minusDays(4), 2));
+        taskList.addTask(new RecurringDeadline("skipped", day.minusDays(3), 2));
+        taskList.addTask(new RecurringDeadline("weekly", day.minusDays(14), 7));
+        taskList.addTask(new RecurringDeadline("not started", day.plusDays(7), 7));
+
+        assertEquals(List.of("2019-10-15 daily", "2019-10-15 every other day", "2019-10-15 weekly"),
+                describeByDate(taskList.findDueOn(day)));
+        assertEquals(5, taskList.findUpcoming(day, 1).size());
+    }
+
+    @Test
+    public void findOverdue_markedTask_isNoLongerOverdue() throws PatrickException {
+        LocalDate today = LocalDate.of(2019, 10, 15);
+        Task missed = new Deadline("return book", today.minusDays(2));
+        Task done = new Event("meeting", LocalDateTime.of(2019, 10, 1, 9, 0), LocalDateTime.of(2019, 10, 1, 10, 0));
+        taskList.addTask(missed);
+        taskList.addTask(done);
+        taskList.addTask(new Deadline("submit report", today));
+
+        taskList.markTask(1);
+        assertEquals(List.of(missed), taskList.findOverdue(today));
+
+        taskList.unmarkTask(1);
+        taskList.deleteTask(0);
+        assertEquals(List.of(done), taskList.findOverdue(today));
+    }
+
+    @Test
+    public void deleteTask_randomPositions_keepsOrderAndIds() throws PatrickException {
+        Random random = new Random(42);
+        List<Task> expected = new ArrayList<>();
+        for (int step = 0; step < 5000; step++) {
+            if (expected.isEmpty() || random.nextInt(3) > 0) {
+                Task task = new ToDo("task " + step);
+                expected.add(task);
+                taskList.addTask(task);
+            } else {
+                int index = random.nextInt(expected.size());
+                assertEquals(expected.remove(index), taskList.deleteTask(index));
+            }
+        }
+
+        assertEquals(describe(expected), describeTasks());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(i, taskList.indexOfId(expected.get(i).getId()));
+        }
+    }
+
+    @Test
+    public void indexOfId_deletedTask_throwsException() throws PatrickException {
+        taskList.addTask(new ToDo("read book"));
+        Task deleted = taskList.deleteTask(0);
+
+        assertThrows(PatrickException.class, () -> taskList.indexOfId(deleted.getId()));
+    }
+
+    @Test
+    public void deleteTasks_rangeAndDone_indexesReferToListBeforeDelete() throws PatrickException {
+        for (int i = 1; i <= 6; i++) {
+            taskList.addTask(new ToDo("task " + i));
+        }
+        taskList.markTasks(new int[] {0, 4});
+
+        List<Task> deleted = taskList.deleteTasks(new int[] {1, 2, 3});
+        assertEquals(List.of("task 2", "task 3", "task 4"), deleted.stream().map(Task::getDescription).toList());
+
+        taskList.deleteTasks(taskList.findDoneIndexes());
+        assertEquals(List.of("task 6"), taskList.getTasks().stream().map(Task::getDescription).toList());
+    }
+
+    @Test
+    public void markTasks_oneInvalidIndex_marksNothing() {
+        taskList.addTask(new ToDo("read book"));
+
+        assertThrows(PatrickException.class, () -> taskList.markTasks(new int[] {0, 1}));
+        assertEquals(" ", taskList.getTasks().get(0).getStatusIcon());
+    }
+
+    @Test
+    public void undo_randomChanges_restoresEveryEarlierVersion() throws PatrickException {
+        Random random = new Random(42);
+        List<List<String>> versions = new ArrayList<>();
+        versions.add(describeTasks());
+        for (int step = 0; step < 60; step++) {
+            int choice = taskList.size() == 0 ? 0 : random.nextInt(4);
+            if (choice == 0) {
+                taskList.addTask(new ToDo("task " + step));
+            } else if (choice == 1) {
+                taskList.deleteTask(random.nextInt(taskList.size()));
+            } else if (choice == 2) {
+                taskList.markTask(random.nextInt(taskList.size()));
+            } else if (taskList.findDoneIndexes().length > 0) {
+                taskList.deleteTasks(taskList.findDoneIndexes());
+            } else {
+                continue;
+            }
+            versions.add(describeTasks());
+        }
+
+        for (int version = versions.size() - 2; version >= 0; version--) {
+            taskList.undo();
+            assertEquals(versions.get(version), describeTasks());
+        }
+        assertThrows(PatrickException.class, () -> taskList.undo());
+
+        for (int version = 1; version < versions.size(); version++) {
+            taskList.redo();
+            assertEquals(versions.get(version), describeTasks());
+        }
+    }
+
+    @Test
+    public void redo_afterNewChange_throwsException() throws PatrickException {
+        taskList.addTask(new ToDo("read book"));
+        taskList.undo();
+        taskList.addTask(new ToDo("return book"));
+
+        assertThrows(PatrickException.class, () -> taskList.redo());
+    }
+
+    private List<String> describeTasks() {
+        return describe(taskList.getTasks());
+    }
+
+    /**
+     * Describes tasks by ID and as shown, since listed tasks are copies rather than the tasks in the list.
+     */
+    private static List<String> describe(List<Task> tasks) {
+        return tasks.stream().map(task -> Task.formatId(task.getId()) + " " + task).toList();
+    }
+
+    private static List<String> describeByDate(List<Task> tasks) {
+        List<String> described = new ArrayList<>();
+        for (Task task : tasks) {
+            described.add(((Deadline) task).getBy() + " " + task.getDescription());
+        }
+        return described;
+    }
 }
@@ -0,0 +1,65 @@
+package patrick;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import patrick.task.Task;
+import patrick.task.ToDo;
+
+public class TrigramIndexTest {
+    private static final String[] WORDS = {"read", "book", "Bookshelf", "return", "ready", "café", "oo", "a"};
+    private static final String[] QUERIES = {"book", "Book", "ead", "read book", "re", "o", "shelf", "afé", "xyz"};
+
+    @Test
+    public void find_afterRandomAddsAndDeletes_matchesContainsScan() {
+        Random random = new Random(42);
+        TrigramIndex index = new TrigramIndex();
+        List<Task> live = new ArrayList<>();
+
+        for (int step = 0; step < 5000; step++) {
+            if (live.isEmpty() || random.nextInt(2) > 0) {
+                Task task = new ToDo(WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)]);
+                live.add(task);
+                index.add(task);
+            } else {
+                index.remove(live.remove(random.nextInt(live.size())));
+            }
+        }
+
+        for (String query : QUERIES) {
+            List<Task> expected = new ArrayList<>();
+            for (Task task : live) {
+                if (task.getDescription().contains(query)) {
+                    expected.add(task);
+                }
+            }
+            assertEquals(expected, index.find(query), query);
+        }
+    }
+
+    @Test
+    public void find_queryWithMissingTrigram_returnsNothing() {
+        TrigramIndex index = new TrigramIndex();
+        index.add(new ToDo("read book"));
+
+        assertEquals(List.of(), index.find("red"));
+    }
+
+    @Test
+    public void find_queryShorterThanTrigram_scansAndIsCounted() {
+        TrigramIndex index = new TrigramIndex();
+        Task borrowBook = new ToDo("borrow book");
+        index.add(borrowBook);
+        index.add(new ToDo("read news"));
+
+        assertEquals(List.of(borrowBook), index.find("bo"));
+        assertEquals(List.of(borrowBook), index.find("boo"));
+        assertTrue(index.describe().endsWith("1 queries under 3 characters scanned every task"));
+    }
+}
@@ -0,0 +1,24 @@
+@ECHO OFF
+
+REM create bin directory if it doesn't exist
+if not exist ..\bin mkdir ..\bin
+
+REM delete output from previous run
+if exist ACTUAL-BATCH.TXT del ACTUAL-BATCH.TXT
+
+REM start from an empty task list
+if exist data rmdir /s /q data
+
+REM compile the CLI and what it uses into the bin folder
+javac -encoding UTF-8 -sourcepath ..\src\main\java -Xlint:none -d ..\bin ..\src\main\java\patrick\PatrickStar.java
+IF ERRORLEVEL 1 (
+    echo ********** BUILD FAILURE **********
+    exit /b 1
+)
+REM no error here, errorlevel == 0
+
+REM run the commands in input.txt as one batch and redirect the output to the ACTUAL-BATCH.TXT
+java -classpath ..\bin patrick.PatrickStar --batch input.txt > ACTUAL-BATCH.TXT
+
+REM compare the output to the expected output
+FC ACTUAL-BATCH.TXT EXPECTED-BATCH.TXT
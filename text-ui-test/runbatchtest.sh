@@ -0,0 +1,41 @@
+#!/usr/bin/env bash
+
+# create bin directory if it doesn't exist
+if [ ! -d "../bin" ]
+then
+    mkdir ../bin
+fi
+
+# delete output from previous run
+if [ -e "./ACTUAL-BATCH.TXT" ]
+then
+    rm ACTUAL-BATCH.TXT
+fi
+
+# start from an empty task list
+rm -rf ./data
+
+# compile the CLI and what it uses into the bin folder, terminates if error occurred
+if ! javac -encoding UTF-8 -sourcepath ../src/main/java -Xlint:none -d ../bin ../src/main/java/patrick/PatrickStar.java
+then
+    echo "********** BUILD FAILURE **********"
+    exit 1
+fi
+
+# run the commands in input.txt as one batch and redirect the output to the ACTUAL-BATCH.TXT
+java -classpath ../bin patrick.PatrickStar --batch input.txt > ACTUAL-BATCH.TXT
+
+# convert to UNIX format
+cp EXPECTED-BATCH.TXT EXPECTED-BATCH-UNIX.TXT
+dos2unix ACTUAL-BATCH.TXT EXPECTED-BATCH-UNIX.TXT
+
+# compare the output to the expected output
+diff ACTUAL-BATCH.TXT EXPECTED-BATCH-UNIX.TXT
+if [ $? -eq 0 ]
+then
+    echo "Test result: PASSED"
+    exit 0
+else
+    echo "Test result: FAILED"
+    exit 1
+fi
\ No newline at end of file